@@ -0,0 +1,46 @@
+package com.habesha.community.config;
+
+import com.habesha.community.repository.HomeSwapRepository;
+import com.habesha.community.repository.ListingSpecifications;
+import com.habesha.community.repository.RentalRepository;
+import com.habesha.community.repository.ServiceOfferRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+/**
+ * Runs every listing filter once at startup with all of its filters set,
+ * so the Criteria queries (LIKE ... ESCAPE, the owner join fetch) are
+ * translated and executed before the first request.  A query
+ * that Hibernate or the database rejects fails the boot, the same way an
+ * invalid {@code @Query} would.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ListingQueryCheck implements CommandLineRunner {
+
+    /** Exercises the LIKE metacharacter escaping. */
+    private static final String PROBE = "a%_\\";
+
+    private final RentalRepository rentalRepository;
+    private final ServiceOfferRepository serviceOfferRepository;
+    private final HomeSwapRepository homeSwapRepository;
+
+    @Override
+    @Transactional(readOnly = true)
+    public void run(String... args) {
+        PageRequest one = PageRequest.of(0, 1, ListingSpecifications.newestFirst());
+        rentalRepository.findAll(ListingSpecifications.rentals(
+                PROBE, PROBE, PROBE, BigDecimal.ZERO, BigDecimal.ONE), one);
+        serviceOfferRepository.findAll(ListingSpecifications.services(
+                PROBE, PROBE, BigDecimal.ZERO, BigDecimal.ONE), one);
+        homeSwapRepository.findAll(ListingSpecifications.homeSwaps(PROBE, PROBE, 1, PROBE), one);
+        log.info("Listing queries checked");
+    }
+}
@@ -0,0 +1,13 @@
+package com.habesha.community.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Turns on {@code @Scheduled} methods: the activity write-behind flush and
+ * the nightly expired-session cleanup in UserSessionService.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,6 +1,7 @@
 package com.habesha.community.config;
 
 import com.habesha.community.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -56,6 +57,10 @@ public class SecurityConfig {
                 // ----- CORS preflight - MUST be first -----
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
 
+                // Async re-dispatches (SSE streams completing) were already
+                // authorised on the original request
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                 // ----- Public health and actuator endpoints -----
                 .requestMatchers(
                         "/actuator/**",
@@ -1,5 +1,6 @@
 package com.habesha.community.controller;
 
+import com.habesha.community.dto.AdCardDto;
 import com.habesha.community.dto.AdDetailsDto;
 import com.habesha.community.dto.ClassifiedAdRequest;
 import com.habesha.community.model.ClassifiedAd;
@@ -8,17 +9,24 @@ import com.habesha.community.model.User;
 import com.habesha.community.repository.AdPhotoRepository;
 import com.habesha.community.service.AdService;
 import com.habesha.community.service.FileStorageService;
+import com.habesha.community.service.MediaBlobService;
+import com.habesha.community.service.PhotoProcessingService;
 import com.habesha.community.service.SupabaseStorageService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.Comparator;
@@ -31,8 +39,9 @@ import java.nio.file.Path;
  * Notes:
  * - Exposed under BOTH "/ads" and "/api/ads" so frontend can call /api/ads.
  * - GET /api/ads?page=0&size=36 is used by the global search.
- * - List endpoint does safe, in-memory pagination on top of AdService.listAds(...).
+ * - List endpoint returns slim cards, filtered and paged in SQL by AdService.listAdCards(...).
  */
+@Slf4j
 @RestController
 @RequestMapping({"/ads", "/api/ads"})
 @RequiredArgsConstructor
@@ -42,6 +51,9 @@ public class AdController {
     private final AdPhotoRepository adPhotoRepository;
     private final FileStorageService storage;
     private final SupabaseStorageService supabaseStorage;
+    private final MediaBlobService mediaBlobService;
+    private final PhotoProcessingService photoProcessing;
+    private final TransactionTemplate transactionTemplate;
 
     /* -------------------------------------------------------------------------
      * CREATE
@@ -61,35 +73,25 @@ public class AdController {
     }
 
     /* -------------------------------------------------------------------------
-     * LIST (with safe pagination)
+     * LIST (paged in SQL)
      *
      * Used by:
      * - Ads list pages in the app.
-     * - Global search (calls /api/ads?page=0&size=36).
+     * - Global search (calls /api/ads?page=0&size=36, optionally with q=).
      * ---------------------------------------------------------------------- */
 
     @GetMapping
-    public ResponseEntity<List<ClassifiedAd>> listAds(
+    public ResponseEntity<List<AdCardDto>> listAds(
             @RequestParam(name = "category", required = false) String category,
+            @RequestParam(name = "q", required = false) String q,
+            @RequestParam(name = "minPrice", required = false) BigDecimal minPrice,
+            @RequestParam(name = "maxPrice", required = false) BigDecimal maxPrice,
             @RequestParam(name = "page", required = false, defaultValue = "0") int page,
             @RequestParam(name = "size", required = false, defaultValue = "36") int size
     ) {
-        // Pull all ads (optionally filtered by category)
-        List<ClassifiedAd> all = adService.listAds(Optional.ofNullable(category));
-
-        // Defensive pagination on top of the list result
         int safePage = Math.max(page, 0);
         int safeSize = Math.min(Math.max(size, 1), 100); // cap to avoid huge pages
-        int fromIndex = safePage * safeSize;
-
-        if (fromIndex >= all.size()) {
-            return ResponseEntity.ok(Collections.emptyList());
-        }
-
-        int toIndex = Math.min(fromIndex + safeSize, all.size());
-        List<ClassifiedAd> pageSlice = all.subList(fromIndex, toIndex);
-
-        return ResponseEntity.ok(pageSlice);
+        return ResponseEntity.ok(adService.listAdCards(category, q, minPrice, maxPrice, safePage, safeSize));
     }
 
     /* -------------------------------------------------------------------------
@@ -110,13 +112,9 @@ public class AdController {
      */
     @RequestMapping(value = "/{id}", method = RequestMethod.HEAD)
     public ResponseEntity<Void> headAd(@PathVariable Long id) {
-        try {
-            // If this throws, we treat as not found
-            adService.getAdDetails(id);
-            return ResponseEntity.ok().build();
-        } catch (Exception ex) {
-            return ResponseEntity.notFound().build();
-        }
+        return adService.exists(id)
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.notFound().build();
     }
 
     /* -------------------------------------------------------------------------
@@ -234,46 +232,78 @@ public class AdController {
      * PHOTO UPLOAD
      * ---------------------------------------------------------------------- */
 
+    /**
+     * Supabase uploads run first, in parallel and before any database
+     * access, so no JDBC connection is held while they are on the network.
+     * The photo rows are then written in one short transaction; if that
+     * fails, or the ad does not exist (404), the uploaded objects are deleted.
+     */
     @PostMapping("/{id}/photos")
-    @Transactional
     public ResponseEntity<Map<String, Object>> uploadPhotos(
             @PathVariable Long id,
             @RequestParam("files") List<MultipartFile> files
     ) throws Exception {
-        
-        System.out.println("=== PHOTO UPLOAD DEBUG ===");
-        System.out.println("Ad ID: " + id);
-        System.out.println("Files received: " + files.size());
-        
-        ClassifiedAd ad = adService.getAdByIdWithPhotos(id);
-        if (ad == null) {
-            System.out.println("Ad not found with ID: " + id);
-            return ResponseEntity.notFound().build();
-        }
-
-        System.out.println("Ad found: " + ad.getTitle());
-        System.out.println("Existing photos: " + (ad.getPhotos() != null ? ad.getPhotos().size() : "null"));
+        log.debug("Photo upload for ad {}: {} file(s)", id, files != null ? files.size() : 0);
 
         if (CollectionUtils.isEmpty(files)) {
             return ResponseEntity.badRequest()
                     .body(Map.of("error", "No files provided"));
         }
 
+        List<MultipartFile> nonEmpty = files.stream().filter(mf -> !mf.isEmpty()).collect(Collectors.toList());
+        List<String> cdnUrls = supabaseStorage.isEnabled() && !nonEmpty.isEmpty()
+                ? supabaseStorage.uploadAll("ad/" + id, nonEmpty)
+                : null;
+        if (cdnUrls != null) log.debug("Ad {} photos uploaded to Supabase: {}", id, cdnUrls);
+
+        List<Map<String, Object>> saved;
+        try {
+            saved = transactionTemplate.execute(status -> {
+                try {
+                    return savePhotos(id, nonEmpty, cdnUrls);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            if (cdnUrls != null) supabaseStorage.deleteAll(cdnUrls);
+            throw e;
+        }
+        if (saved == null) {
+            if (cdnUrls != null) supabaseStorage.deleteAll(cdnUrls);
+            return ResponseEntity.notFound().build();
+        }
+
+        log.debug("Saved {} photo(s) for ad {}", saved.size(), id);
+        return ResponseEntity.ok(Map.of(
+                "message", "Photos uploaded successfully",
+                "count", saved.size(),
+                "photos", saved
+        ));
+    }
+
+    /**
+     * Photo rows for an upload; {@code cdnUrls} holds the Supabase URLs when
+     * the files went there.  Returns null when the ad does not exist.
+     */
+    private List<Map<String, Object>> savePhotos(Long id, List<MultipartFile> files, List<String> cdnUrls) throws IOException {
+        ClassifiedAd ad;
+        try {
+            ad = adService.getAdByIdWithPhotos(id);
+        } catch (IllegalArgumentException notFound) {
+            return null;
+        }
+
         Path base = Path.of("uploads", "ads", String.valueOf(id)).toAbsolutePath();
-        System.out.println("Upload directory: " + base);
-        
         int nextIndex = (ad.getPhotos() == null) ? 0 : ad.getPhotos().size();
-        System.out.println("Next sort index: " + nextIndex);
 
         List<Map<String, Object>> saved = new ArrayList<>();
 
-        for (MultipartFile mf : files) {
-            if (mf.isEmpty()) continue;
-
+        for (int i = 0; i < files.size(); i++) {
+            MultipartFile mf = files.get(i);
             String original = Objects.requireNonNullElse(mf.getOriginalFilename(), "image.jpg");
             String safe = storage.safeFilename(original);
             String contentType = mf.getContentType() != null ? mf.getContentType() : "image/jpeg";
-            byte[] imageBytes = mf.getBytes();
 
             AdPhoto.AdPhotoBuilder pb = AdPhoto.builder()
                     .filename(safe)
@@ -281,44 +311,26 @@ public class AdController {
                     .ad(ad)
                     .contentType(contentType);
 
-            if (supabaseStorage.isEnabled()) {
-                String cdnUrl = supabaseStorage.upload("ad/" + id, original, imageBytes, contentType);
-                pb.filePath(cdnUrl);
-                System.out.println("File uploaded to Supabase: " + cdnUrl);
+            if (cdnUrls != null) {
+                pb.filePath(cdnUrls.get(i));
             } else {
+                byte[] imageBytes = mf.getBytes();
                 Path savedPath = storage.saveStream(base, safe, new ByteArrayInputStream(imageBytes));
-                pb.filePath(savedPath.toString()).imageData(imageBytes);
-                System.out.println("File saved to: " + savedPath);
+                pb.filePath(savedPath.toString()).imageBlobId(mediaBlobService.store(imageBytes, contentType));
+                log.debug("Ad {} photo saved to {}", id, savedPath);
             }
 
-            AdPhoto photo = pb.build();
-            System.out.println("Creating AdPhoto: filename=" + safe + ", sortIndex=" + photo.getSortIndex() + ", adId=" + ad.getId());
-
-            try {
-                AdPhoto savedPhoto = adPhotoRepository.save(photo);
-                System.out.println("Successfully saved AdPhoto with ID: " + savedPhoto.getId());
-
-                saved.add(Map.of(
-                        "id", savedPhoto.getId(),
-                        "filename", safe,
-                        "url", "/ads/photos/" + savedPhoto.getId(),
-                        "size", mf.getSize()
-                ));
-            } catch (Exception e) {
-                System.err.println("Error saving AdPhoto: " + e.getMessage());
-                e.printStackTrace();
-                throw e;
-            }
-        }
+            AdPhoto savedPhoto = adPhotoRepository.save(pb.build());
+            photoProcessing.submit(PhotoProcessingService.Kind.AD, savedPhoto.getId(), savedPhoto.getFilePath());
 
-        System.out.println("Total photos saved: " + saved.size() + " for ad: " + id);
-        System.out.println("=== END PHOTO UPLOAD DEBUG ===");
-        
-        return ResponseEntity.ok(Map.of(
-                "message", "Photos uploaded successfully",
-                "count", saved.size(),
-                "photos", saved
-        ));
+            saved.add(Map.of(
+                    "id", savedPhoto.getId(),
+                    "filename", safe,
+                    "url", "/ads/photos/" + savedPhoto.getId(),
+                    "size", mf.getSize()
+            ));
+        }
+        return saved;
     }
 
     /* -------------------------------------------------------------------------
@@ -333,9 +345,6 @@ public class AdController {
             return ResponseEntity.notFound().build();
         }
 
-        System.out.println("Loading ad " + id + " with photos. Photos count: " + 
-                          (ad.getPhotos() != null ? ad.getPhotos().size() : "null"));
-
         List<Map<String, Object>> photos = (
                 ad.getPhotos() == null
                         ? List.<AdPhoto>of()
@@ -368,10 +377,9 @@ public class AdController {
         }
         String posterAvatar = (poster != null) ? poster.getAvatarUrl() : null;
 
-        // Get like information using the same logic as AdDetailsDto
-        AdDetailsDto adDetails = adService.getAdDetails(id);
-        long likeCount = adDetails != null ? adDetails.getLikeCount() : 0;
-        boolean likedByMe = adDetails != null ? adDetails.isLikedByMe() : false;
+        // Like information: the counter column plus one lookup for the viewer
+        long likeCount = ad.getLikeCount();
+        boolean likedByMe = adService.likedByMe(List.of(id)).contains(id);
 
         Map<String, Object> payload = new LinkedHashMap<>();
         payload.put("id", ad.getId());
@@ -394,8 +402,7 @@ public class AdController {
         payload.put("likeCount", likeCount);
         payload.put("likedByMe", likedByMe);
 
-        System.out.println("Returning ad with " + photos.size() + " photos, poster: " + posterName + 
-                          ", likes: " + likeCount + ", likedByMe: " + likedByMe);
+        log.debug("Ad {}: {} photo(s), {} like(s)", id, photos.size(), likeCount);
         return ResponseEntity.ok(payload);
     }
 }
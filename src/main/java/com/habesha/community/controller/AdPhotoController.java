@@ -4,20 +4,12 @@ import com.habesha.community.model.ClassifiedAd;
 import com.habesha.community.model.AdPhoto;
 import com.habesha.community.repository.AdPhotoRepository;
 import com.habesha.community.repository.ClassifiedAdRepository;
+import com.habesha.community.service.MediaBlobService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.CacheControl;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
-import java.net.URI;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.time.Duration;
-
 @RestController
 @RequestMapping
 @RequiredArgsConstructor
@@ -25,70 +17,50 @@ public class AdPhotoController {
 
     private final ClassifiedAdRepository adRepository;
     private final AdPhotoRepository photoRepository;
+    private final MediaBlobService mediaBlobService;
 
     @GetMapping("/ads/photos/{photoId}")
     @Transactional(readOnly = true)
-    public ResponseEntity<?> photoById(@PathVariable Long photoId) {
+    public ResponseEntity<?> photoById(@PathVariable Long photoId,
+                                       @RequestParam(defaultValue = "false") boolean thumb) {
         AdPhoto p = photoRepository.findById(photoId).orElse(null);
         if (p == null) return ResponseEntity.notFound().build();
-        return stream(p);
+        return stream(p, thumb);
     }
 
     @GetMapping("/ads/{id}/photos/first")
     @Transactional(readOnly = true)
-    public ResponseEntity<?> firstPhoto(@PathVariable Long id) {
+    public ResponseEntity<?> firstPhoto(@PathVariable Long id,
+                                        @RequestParam(defaultValue = "false") boolean thumb) {
         ClassifiedAd ad = adRepository.findById(id).orElse(null);
         if (ad == null || ad.getPhotos() == null || ad.getPhotos().isEmpty()) {
             return ResponseEntity.notFound().build();
         }
-        return stream(ad.getPhotos().get(0));
+        return stream(ad.getPhotos().get(0), thumb);
     }
 
     @GetMapping("/ads/{id}/photos/{index}")
     @Transactional(readOnly = true)
-    public ResponseEntity<?> photoByIndex(@PathVariable Long id, @PathVariable Integer index) {
+    public ResponseEntity<?> photoByIndex(@PathVariable Long id, @PathVariable Integer index,
+                                          @RequestParam(defaultValue = "false") boolean thumb) {
         ClassifiedAd ad = adRepository.findById(id).orElse(null);
         if (ad == null || ad.getPhotos() == null || index >= ad.getPhotos().size() || index < 0) {
             return ResponseEntity.notFound().build();
         }
-        return stream(ad.getPhotos().get(index));
+        return stream(ad.getPhotos().get(index), thumb);
     }
 
-    private ResponseEntity<?> stream(AdPhoto p) {
+    private ResponseEntity<?> stream(AdPhoto p, boolean thumb) {
         // CDN redirect for Supabase-stored photos
         String fp = p.getFilePath();
-        if (fp != null && (fp.startsWith("http://") || fp.startsWith("https://"))) {
-            return ResponseEntity.status(HttpStatus.FOUND)
-                    .location(URI.create(fp))
-                    .cacheControl(CacheControl.maxAge(Duration.ofDays(30)).cachePublic())
-                    .build();
-        }
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setCacheControl(CacheControl.maxAge(Duration.ofDays(30)).cachePublic());
+        if (LocalPhotoResponses.isRemote(fp)) return LocalPhotoResponses.redirect(fp);
 
-        // Try disk first
-        try {
-            Path path = Path.of(fp);
-            if (Files.exists(path)) {
-                String mime = Files.probeContentType(path);
-                if (mime == null) mime = "image/jpeg";
-                return ResponseEntity.ok()
-                        .headers(headers)
-                        .contentType(MediaType.parseMediaType(mime))
-                        .body(Files.readAllBytes(path));
-            }
-        } catch (Exception ignored) {}
-
-        // Fallback to database blob
-        if (p.getImageData() != null && p.getImageData().length > 0) {
-            String mime = p.getContentType() != null ? p.getContentType() : "image/jpeg";
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .contentType(MediaType.parseMediaType(mime))
-                    .body(p.getImageData());
+        // Disk first, streamed (the thumbnail when asked for and made); then the database blob
+        ResponseEntity<?> res = thumb ? LocalPhotoResponses.file(p.getThumbPath(), "image/jpeg") : null;
+        if (res == null) res = LocalPhotoResponses.file(fp, p.getContentType());
+        if (res == null && p.getImageBlobId() != null) {
+            res = LocalPhotoResponses.blob(mediaBlobService.find(p.getImageBlobId()).orElse(null), p.getContentType());
         }
-
-        return ResponseEntity.notFound().build();
+        return res != null ? res : ResponseEntity.notFound().build();
     }
 }
@@ -3,7 +3,10 @@ package com.habesha.community.controller;
 import com.habesha.community.model.Payment;
 import com.habesha.community.model.Role;
 import com.habesha.community.model.ServiceOffer;
+import com.habesha.community.service.ActivityLogService;
 import com.habesha.community.service.AdminService;
+import com.habesha.community.service.ConversationService;
+import com.habesha.community.service.UserStatsService;
 import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -23,6 +26,9 @@ import java.util.Map;
 @PreAuthorize("hasRole('ADMIN')")
 public class AdminController {
     private final AdminService adminService;
+    private final ConversationService conversationService;
+    private final ActivityLogService activityLogService;
+    private final UserStatsService userStatsService;
 
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getStats() {
@@ -47,6 +53,37 @@ public class AdminController {
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Re-derive the inbox conversation summaries from the messages table.
+     * Safe to run at any time; use it if previews or unread badges drift.
+     */
+    @PostMapping("/conversations/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildConversations() {
+        return ResponseEntity.ok(Map.of("rows", conversationService.rebuildAll()));
+    }
+
+    /**
+     * Re-derive the activity log (feed + interaction badge) from the source
+     * tables, keeping the configured retention window.
+     */
+    @PostMapping("/activity/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildActivityLog() {
+        return ResponseEntity.ok(Map.of("rows", activityLogService.rebuildAll()));
+    }
+
+    /** Run the activity log retention/compaction pass now instead of waiting for the nightly job. */
+    @PostMapping("/activity/compact")
+    public ResponseEntity<Void> compactActivityLog() {
+        activityLogService.compact();
+        return ResponseEntity.noContent().build();
+    }
+
+    /** Re-derive every user's profile counters and fix the rows that drifted. */
+    @PostMapping("/user-stats/reconcile")
+    public ResponseEntity<Map<String, Object>> reconcileUserStats() {
+        return ResponseEntity.ok(Map.of("rows", userStatsService.reconcile()));
+    }
+
     @GetMapping("/payments")
     public ResponseEntity<List<Payment>> getPayments() {
         return ResponseEntity.ok(adminService.getAllPayments());
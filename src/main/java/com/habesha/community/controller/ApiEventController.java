@@ -2,8 +2,11 @@ package com.habesha.community.controller;
 
 import com.habesha.community.dto.EventDetailDto;
 import com.habesha.community.dto.UserSummaryDto;
+import com.habesha.community.model.ActivityType;
 import com.habesha.community.model.Event;
 import com.habesha.community.repository.EventRepository;
+import com.habesha.community.service.ActivityLogService;
+import com.habesha.community.service.EventService;
 import com.habesha.community.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -18,6 +21,8 @@ import org.springframework.web.server.ResponseStatusException;
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -32,6 +37,8 @@ public class ApiEventController {
 
     private final EventRepository eventRepository;
     private final UserService userService;
+    private final ActivityLogService activityLogService;
+    private final EventService eventService;
 
     /**
      * List events with optional filters and pagination.  Unsupported
@@ -57,8 +64,12 @@ public class ApiEventController {
         }
         Pageable pageable = PageRequest.of(page, size, Sort.by(dir, sortProp));
         Page<Event> eventPage = eventRepository.findAll(pageable);
+        Map<Long, UserSummaryDto> authors = userService.toSummaries(eventPage.getContent().stream()
+                .map(Event::getOrganizer)
+                .filter(Objects::nonNull)
+                .toList());
         List<EventDetailDto> dtos = eventPage.getContent().stream()
-                .map(this::toDto)
+                .map(event -> toDto(event, authors.get(event.getOrganizer() != null ? event.getOrganizer().getId() : null)))
                 .collect(Collectors.toList());
         return ResponseEntity.ok(dtos);
     }
@@ -70,14 +81,13 @@ public class ApiEventController {
     public ResponseEntity<EventDetailDto> getEvent(@PathVariable Long id) {
         Event event = eventRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(org.springframework.http.HttpStatus.NOT_FOUND, "Event not found"));
-        return ResponseEntity.ok(toDto(event));
+        return ResponseEntity.ok(toDto(event, userService.toSummary(event.getOrganizer())));
     }
 
     /**
      * Convert an Event entity into the detail DTO including author summary.
      */
-    private EventDetailDto toDto(Event event) {
-        UserSummaryDto author = userService.toSummary(event.getOrganizer());
+    private EventDetailDto toDto(Event event, UserSummaryDto author) {
         List<String> images = event.getImageUrl() != null && !event.getImageUrl().isBlank()
                 ? Collections.singletonList(event.getImageUrl())
                 : Collections.emptyList();
@@ -103,15 +113,14 @@ public class ApiEventController {
     public ResponseEntity<Event> createEvent(@RequestBody Event body) {
         var me = userService.getCurrentUser().orElseThrow(() -> 
             new ResponseStatusException(org.springframework.http.HttpStatus.UNAUTHORIZED));
-        body.setOrganizer(me);
-        var saved = eventRepository.save(body);
-        return ResponseEntity.ok(saved);
+        return ResponseEntity.ok(eventService.createEvent(body, me));
     }
 
     /**
      * Update an existing Event owned by the current user.
      */
   @PutMapping("/{id}")
+  @org.springframework.transaction.annotation.Transactional
 public ResponseEntity<Event> updateEvent(@PathVariable Long id, @RequestBody Event body) {
     var me = userService.getCurrentUser().orElseThrow(() ->
         new ResponseStatusException(org.springframework.http.HttpStatus.UNAUTHORIZED));
@@ -132,6 +141,7 @@ public ResponseEntity<Event> updateEvent(@PathVariable Long id, @RequestBody Eve
     }
 
     var saved = eventRepository.save(body);
+    activityLogService.listingRetitled(ActivityType.EVENT_CREATED, saved.getId(), saved.getTitle());
     return ResponseEntity.ok(saved);
 }
 
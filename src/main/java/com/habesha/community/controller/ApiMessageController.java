@@ -2,10 +2,11 @@ package com.habesha.community.controller;
 
 import com.habesha.community.dto.EnsureThreadRequest;
 import com.habesha.community.dto.EnsureThreadResponse;
+import com.habesha.community.dto.MessageDto;
+import com.habesha.community.dto.MessagePageDto;
 import com.habesha.community.dto.MessageRequest;
 import com.habesha.community.dto.ThreadSummaryDto;
 import com.habesha.community.dto.UserSummaryDto;
-import com.habesha.community.model.Message;
 import com.habesha.community.model.User;
 import com.habesha.community.repository.UserRepository;
 import com.habesha.community.service.MessageService;
@@ -86,14 +87,34 @@ public class ApiMessageController {
     }
 
     /**
-     * Get conversation with another user (ascending by time).
+     * Get conversation with another user (ascending by time).  Without
+     * cursors this is the newest page, which is what the legacy UI shows.
      * Supports both:
      *  - GET /api/messages/conversation/{otherUserId}
      *  - GET /messages/{otherUserId}  (legacy used by Messages.jsx)
      */
     @GetMapping({"/conversation/{otherUserId}", "/{otherUserId}"})
-    public ResponseEntity<List<Message>> conversation(@PathVariable Long otherUserId) {
-        return ResponseEntity.ok(messageService.getConversation(otherUserId));
+    public ResponseEntity<List<MessageDto>> conversation(
+            @PathVariable Long otherUserId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(
+                messageService.getConversationPage(otherUserId, before, after, limit).getMessages());
+    }
+
+    /**
+     * Cursor-paginated conversation with paging metadata.
+     *  - GET /api/messages/conversation/{otherUserId}/page?before={messageId}&limit=50
+     *  - GET /api/messages/conversation/{otherUserId}/page?after={messageId}
+     */
+    @GetMapping("/conversation/{otherUserId}/page")
+    public ResponseEntity<MessagePageDto> conversationPage(
+            @PathVariable Long otherUserId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(messageService.getConversationPage(otherUserId, before, after, limit));
     }
 
     /**
@@ -2,6 +2,7 @@ package com.habesha.community.controller;
 
 import com.habesha.community.model.User;
 import com.habesha.community.repository.UserRepository;
+import com.habesha.community.service.CountsService;
 import com.habesha.community.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -20,6 +21,7 @@ public class ApiNotificationsController {
 
     private final UserService userService;
     private final UserRepository userRepository;
+    private final CountsService countsService;
 
     /**
      * Mark notifications as "seen now" for the current user.
@@ -34,6 +36,7 @@ public class ApiNotificationsController {
         LocalDateTime now = LocalDateTime.now();
         user.setNotificationsSeenAt(now);
         userRepository.save(user);
+        countsService.invalidate(user.getId());
 
         return ResponseEntity.ok(Map.of("ok", true, "seenAt", now.toString()));
     }
@@ -2,14 +2,17 @@ package com.habesha.community.controller;
 
 import com.habesha.community.dto.RentalDetailDto;
 import com.habesha.community.dto.UserSummaryDto;
+import com.habesha.community.model.ActivityType;
 import com.habesha.community.model.Rental;
+import com.habesha.community.repository.ListingSpecifications;
 import com.habesha.community.repository.RentalRepository;
+import com.habesha.community.service.ActivityLogService;
+import com.habesha.community.service.RentalService;
 import com.habesha.community.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
@@ -18,6 +21,8 @@ import org.springframework.web.server.ResponseStatusException;
 import java.math.BigDecimal;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -32,10 +37,14 @@ public class ApiRentalController {
 
     private final RentalRepository rentalRepository;
     private final UserService userService;
+    private final ActivityLogService activityLogService;
+    private final RentalService rentalService;
 
     /**
-     * List rentals with optional filters.  Only page/size and sort are
-     * currently supported; search parameters are reserved for future use.
+     * List rentals with optional filters, applied in SQL (see
+     * {@link ListingSpecifications#rentals}).  {@code sort} is
+     * {@code prop,DIR} with prop one of createdAt, price or title;
+     * anything else sorts newest first.  {@code size} is capped at 100.
      */
     @GetMapping
     @Transactional(readOnly = true)
@@ -49,18 +58,16 @@ public class ApiRentalController {
             @RequestParam(name = "size", defaultValue = "10") int size,
             @RequestParam(name = "sort", defaultValue = "createdAt,DESC") String sort
     ) {
-        Sort.Direction dir = Sort.Direction.DESC;
-        String sortProp = "createdAt";
-        if (sort != null && sort.contains(",")) {
-            String[] parts = sort.split(",");
-            sortProp = parts[0];
-            dir = parts[1].equalsIgnoreCase("ASC") ? Sort.Direction.ASC : Sort.Direction.DESC;
-        }
-        Pageable pageable = PageRequest.of(page, size, Sort.by(dir, sortProp));
-        // For now, ignore search and filtering; they can be implemented later
-        Page<Rental> pageData = rentalRepository.findAll(pageable);
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 100),
+                ListingSpecifications.rentalSort(sort));
+        Page<Rental> pageData = rentalRepository.findAll(
+                ListingSpecifications.rentals(search, roomType, location, minPrice, maxPrice), pageable);
+        Map<Long, UserSummaryDto> authors = userService.toSummaries(pageData.getContent().stream()
+                .map(Rental::getOwner)
+                .filter(Objects::nonNull)
+                .toList());
         List<RentalDetailDto> dtos = pageData.getContent().stream()
-                .map(this::toDto)
+                .map(rental -> toDto(rental, authors.get(rental.getOwner() != null ? rental.getOwner().getId() : null)))
                 .collect(Collectors.toList());
         return ResponseEntity.ok(dtos);
     }
@@ -73,11 +80,10 @@ public class ApiRentalController {
     public ResponseEntity<RentalDetailDto> getRental(@PathVariable Long id) {
         Rental rental = rentalRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(org.springframework.http.HttpStatus.NOT_FOUND, "Rental not found"));
-        return ResponseEntity.ok(toDto(rental));
+        return ResponseEntity.ok(toDto(rental, userService.toSummary(rental.getOwner())));
     }
 
-    private RentalDetailDto toDto(Rental rental) {
-        UserSummaryDto author = userService.toSummary(rental.getOwner());
+    private RentalDetailDto toDto(Rental rental, UserSummaryDto author) {
         return RentalDetailDto.builder()
                 .id(rental.getId())
                 .title(rental.getTitle())
@@ -109,15 +115,14 @@ public class ApiRentalController {
     public ResponseEntity<Rental> createRental(@RequestBody Rental body) {
         var me = userService.getCurrentUser().orElseThrow(() -> 
             new ResponseStatusException(org.springframework.http.HttpStatus.UNAUTHORIZED));
-        body.setOwner(me);
-        var saved = rentalRepository.save(body);
-        return ResponseEntity.ok(saved);
+        return ResponseEntity.ok(rentalService.createRental(body, me));
     }
 
     /**
      * Update an existing Rental owned by the current user.
      */
     @PutMapping("/{id}")
+    @Transactional
     public ResponseEntity<Rental> updateRental(@PathVariable Long id, @RequestBody Rental body) {
         var me = userService.getCurrentUser().orElseThrow(() -> 
             new ResponseStatusException(org.springframework.http.HttpStatus.UNAUTHORIZED));
@@ -130,6 +135,7 @@ public class ApiRentalController {
         body.setId(existing.getId());
         body.setOwner(me);
         var saved = rentalRepository.save(body);
+        activityLogService.listingRetitled(ActivityType.RENTAL_CREATED, saved.getId(), saved.getTitle());
         return ResponseEntity.ok(saved);
     }
 
@@ -2,15 +2,21 @@ package com.habesha.community.controller;
 
 import com.habesha.community.dto.ServiceDetailDto;
 import com.habesha.community.dto.UserSummaryDto;
+import com.habesha.community.model.ActivityType;
 import com.habesha.community.model.ServiceOffer;
+import com.habesha.community.model.User;
+import com.habesha.community.model.UserStats;
+import com.habesha.community.repository.ListingSpecifications;
 import com.habesha.community.repository.ServiceOfferRepository;
-import com.habesha.community.repository.ServiceReviewRepository;
+import com.habesha.community.service.ActivityLogService;
+import com.habesha.community.service.MediaBlobService;
+import com.habesha.community.service.ServiceMarketplaceService;
 import com.habesha.community.service.UserService;
+import com.habesha.community.service.UserStatsService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
@@ -18,6 +24,8 @@ import org.springframework.web.server.ResponseStatusException;
 import java.math.BigDecimal;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -31,12 +39,19 @@ import java.util.stream.Collectors;
 public class ApiServiceController {
 
     private final ServiceOfferRepository serviceOfferRepository;
-    private final ServiceReviewRepository serviceReviewRepository;
     private final UserService userService;
+    private final ActivityLogService activityLogService;
+    private final UserStatsService userStatsService;
     private final com.habesha.community.service.SupabaseStorageService supabaseStorage;
+    private final MediaBlobService mediaBlobService;
+    private final ServiceMarketplaceService serviceMarketplaceService;
 
     /**
-     * List available services with optional search and price filters.
+     * List available services with optional search, category and price
+     * filters, applied in SQL (see {@link ListingSpecifications#services}).
+     * {@code sort} is {@code prop,DIR} with prop one of createdAt, price
+     * (or basePrice) or title; anything else sorts newest first.
+     * {@code size} is capped at 100.
      */
     @GetMapping
     public ResponseEntity<List<ServiceDetailDto>> listServices(
@@ -48,18 +63,21 @@ public class ApiServiceController {
             @RequestParam(name = "size", defaultValue = "10") int size,
             @RequestParam(name = "sort", defaultValue = "createdAt,DESC") String sort
     ) {
-        Sort.Direction dir = Sort.Direction.DESC;
-        String sortProp = "createdAt";
-        if (sort != null && sort.contains(",")) {
-            String[] parts = sort.split(",");
-            sortProp = parts[0];
-            dir = parts[1].equalsIgnoreCase("ASC") ? Sort.Direction.ASC : Sort.Direction.DESC;
-        }
-        Pageable pageable = PageRequest.of(page, size, Sort.by(dir, sortProp));
-        // For now we ignore search and category filters; they could be implemented via Specifications
-        Page<ServiceOffer> pageData = serviceOfferRepository.findAll(pageable);
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 100),
+                ListingSpecifications.serviceSort(sort));
+        Page<ServiceOffer> pageData = serviceOfferRepository.findAll(
+                ListingSpecifications.services(search, category, minPrice, maxPrice), pageable);
+        List<User> providers = pageData.getContent().stream()
+                .map(ServiceOffer::getProvider)
+                .filter(Objects::nonNull)
+                .toList();
+        Map<Long, UserSummaryDto> authors = userService.toSummaries(providers);
+        Map<Long, UserStats> providerStats = userStatsService.getAll(providers.stream().map(User::getId).toList());
         List<ServiceDetailDto> dtos = pageData.getContent().stream()
-                .map(this::toDto)
+                .map(offer -> {
+                    Long providerId = offer.getProvider() != null ? offer.getProvider().getId() : null;
+                    return toDto(offer, authors.get(providerId), providerStats.get(providerId));
+                })
                 .collect(Collectors.toList());
         return ResponseEntity.ok(dtos);
     }
@@ -75,19 +93,16 @@ public class ApiServiceController {
     }
 
     private ServiceDetailDto toDto(ServiceOffer offer) {
-        UserSummaryDto author = userService.toSummary(offer.getProvider());
-
-        // Review aggregates (so cards can show ★ rating + count without an extra call)
-        Double rating = null;
-        Long reviewCount = null;
-        if (offer.getProvider() != null && offer.getProvider().getId() != null) {
-            Long providerId = offer.getProvider().getId();
-            reviewCount = serviceReviewRepository.countByProvider_Id(providerId);
-            Double avg = serviceReviewRepository.averageRating(providerId);
-            if (avg != null) {
-                rating = Math.round(avg * 10.0) / 10.0; // one decimal place
-            }
-        }
+        Long providerId = offer.getProvider() != null ? offer.getProvider().getId() : null;
+        return toDto(offer, userService.toSummary(offer.getProvider()),
+                providerId != null ? userStatsService.get(providerId) : null);
+    }
+
+    private ServiceDetailDto toDto(ServiceOffer offer, UserSummaryDto author, UserStats providerStats) {
+        // Review aggregates (so cards can show ★ rating + count without an extra call),
+        // read from the provider's denormalized counters
+        Double rating = providerStats != null ? providerStats.averageRating() : null;
+        Long reviewCount = providerStats != null ? providerStats.getReviewsReceived() : null;
 
         return ServiceDetailDto.builder()
                 .id(offer.getId())
@@ -112,22 +127,19 @@ public class ApiServiceController {
 
     /** Stream the service's cover image (public). */
     @GetMapping("/{id}/image")
-    public ResponseEntity<byte[]> getServiceImage(@PathVariable Long id) {
+    public ResponseEntity<?> getServiceImage(@PathVariable Long id) {
         ServiceOffer offer = serviceOfferRepository.findById(id).orElse(null);
-        if (offer == null || offer.getImageData() == null || offer.getImageData().length == 0) {
+        if (offer == null || offer.getImageBlobId() == null) {
             return ResponseEntity.notFound().build();
         }
-        String mime = offer.getImageContentType() != null ? offer.getImageContentType() : "image/jpeg";
-        return ResponseEntity.ok()
-                .contentType(org.springframework.http.MediaType.parseMediaType(mime))
-                .cacheControl(org.springframework.http.CacheControl
-                        .maxAge(java.time.Duration.ofDays(30)).cachePublic())
-                .body(offer.getImageData());
+        ResponseEntity<?> res = LocalPhotoResponses.blob(
+                mediaBlobService.find(offer.getImageBlobId()).orElse(null), offer.getImageContentType());
+        return res != null ? res : ResponseEntity.notFound().build();
     }
 
     /** Alias used by the feed image resolver. */
     @GetMapping("/{id}/photos/first")
-    public ResponseEntity<byte[]> getServiceFirstPhoto(@PathVariable Long id) {
+    public ResponseEntity<?> getServiceFirstPhoto(@PathVariable Long id) {
         return getServiceImage(id);
     }
 
@@ -159,12 +171,15 @@ public class ApiServiceController {
                     supabaseStorage.deleteByPublicUrl(offer.getImagePath());
                 }
                 offer.setImagePath(publicUrl);
-                offer.setImageData(null);
+                mediaBlobService.delete(offer.getImageBlobId());
+                offer.setImageBlobId(null);
                 offer.setImageContentType(contentType);
             } else {
                 // Legacy fallback when Supabase is not configured: DB blob.
-                offer.setImageData(file.getBytes());
+                Long previous = offer.getImageBlobId();
+                offer.setImageBlobId(mediaBlobService.store(file.getBytes(), contentType));
                 offer.setImageContentType(contentType);
+                mediaBlobService.delete(previous);
             }
         } catch (java.io.IOException e) {
             throw new ResponseStatusException(
@@ -185,9 +200,7 @@ public class ApiServiceController {
     public ResponseEntity<ServiceOffer> createServiceOffer(@RequestBody ServiceOffer body) {
         var me = userService.getCurrentUser().orElseThrow(() -> 
             new ResponseStatusException(org.springframework.http.HttpStatus.UNAUTHORIZED));
-        body.setProvider(me);
-        var saved = serviceOfferRepository.save(body);
-        return ResponseEntity.ok(saved);
+        return ResponseEntity.ok(serviceMarketplaceService.createService(body, me));
     }
 
     /**
@@ -218,6 +231,9 @@ public class ApiServiceController {
         if (body.getMode() != null) existing.setMode(body.getMode());
 
         var saved = serviceOfferRepository.save(existing);
+        if (body.getTitle() != null) {
+            activityLogService.listingRetitled(ActivityType.SERVICE_CREATED, saved.getId(), saved.getTitle());
+        }
         return ResponseEntity.ok(saved);
     }
 
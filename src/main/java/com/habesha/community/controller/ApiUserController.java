@@ -1,13 +1,18 @@
 package com.habesha.community.controller;
 
+import com.habesha.community.dto.LeaderboardEntryDto;
 import com.habesha.community.dto.UserProfileDto;
 import com.habesha.community.dto.UserSummaryDto;
 import com.habesha.community.dto.UserUpdateRequest;
 import com.habesha.community.model.User;
+import com.habesha.community.service.LeaderboardService;
 import com.habesha.community.service.UserService;
+import com.habesha.community.security.AuthPrincipal;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 /**
@@ -23,6 +28,7 @@ public class ApiUserController {
 
     private final UserService userService;
     private final com.habesha.community.service.BlockService blockService;
+    private final LeaderboardService leaderboardService;
 
     /**
      * Get the current authenticated user's full profile.  Returns 401
@@ -81,20 +87,37 @@ public class ApiUserController {
     }
 
     /**
-     * Retrieve a leaderboard of users ordered by experience points (xp).
-     * Returns a list of user profiles with xp included, ordered
-     * descending by xp.  This endpoint mirrors the functionality
-     * provided by the E‑Learning {@code /getRankings} route.
+     * Retrieve a page of the leaderboard ordered by experience points
+     * (xp), highest first; ties go to the older account.  This endpoint
+     * mirrors the functionality provided by the E‑Learning
+     * {@code /getRankings} route.  {@code size} is capped at
+     * {@link LeaderboardService#MAX_PAGE_SIZE}.
      */
     @GetMapping("/rankings")
-    public ResponseEntity<java.util.List<UserProfileDto>> getRankings() {
-        // Fetch all users ordered by xp descending via the service
-        java.util.List<com.habesha.community.model.User> users = userService.findAllOrderedByXp();
-        java.util.List<UserProfileDto> profiles = new java.util.ArrayList<>();
-        for (com.habesha.community.model.User u : users) {
-            profiles.add(userService.toProfile(u, false));
+    public ResponseEntity<java.util.List<LeaderboardEntryDto>> getRankings(
+            @RequestParam(name = "page", defaultValue = "0") int page,
+            @RequestParam(name = "size", defaultValue = "50") int size) {
+        return ResponseEntity.ok(leaderboardService.page(page, size));
+    }
+
+    /** The current user's leaderboard row and rank.  Returns 401 if not authenticated. */
+    @GetMapping("/rankings/me")
+    public ResponseEntity<LeaderboardEntryDto> getMyRank() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !(auth.getPrincipal() instanceof AuthPrincipal me)) {
+            return ResponseEntity.status(401).build();
         }
-        return ResponseEntity.ok(profiles);
+        return leaderboardService.rankOf(me.id())
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /** A user's leaderboard row and rank, or 404 if the user does not exist. */
+    @GetMapping("/rankings/{id}")
+    public ResponseEntity<LeaderboardEntryDto> getRank(@PathVariable Long id) {
+        return leaderboardService.rankOf(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     /**
@@ -6,6 +6,7 @@ import com.habesha.community.dto.RegisterRequest;
 import com.habesha.community.dto.RegistrationResponse;
 import com.habesha.community.dto.UserResponse;
 import com.habesha.community.service.AuthenticationService;
+import com.habesha.community.service.UserSessionService;
 import com.habesha.community.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -25,6 +26,7 @@ public class AuthController {
 
     private final AuthenticationService authService;
     private final UserService userService;
+    private final UserSessionService userSessionService;
 
     @PostMapping("/register")
     public ResponseEntity<RegistrationResponse> register(@Valid @RequestBody RegisterRequest request) {
@@ -48,6 +50,16 @@ public class AuthController {
         return ResponseEntity.ok(authService.login(request));
     }
 
+    /**
+     * Revoke the session bound to the bearer token on this request.  Safe to
+     * call without a token; it simply does nothing.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<java.util.Map<String, Object>> logout() {
+        userSessionService.signOutCurrentSession();
+        return ResponseEntity.ok(java.util.Map.of("ok", true));
+    }
+
     /**
      * Diagnostic endpoint to check auth system health.
      * Returns info about JWT config and DB connectivity without exposing secrets.
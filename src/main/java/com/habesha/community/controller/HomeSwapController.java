@@ -55,9 +55,21 @@ public class HomeSwapController {
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
 
+    /**
+     * Newest posts first, paged (size capped at 100).  Optional filters:
+     * location and swapWindow (substring), homeType (exact), bedrooms
+     * (minimum).
+     */
     @GetMapping(value = "/homeswap", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<HomeSwapResponse>> list() {
-        return ResponseEntity.ok(service.list());
+    public ResponseEntity<List<HomeSwapResponse>> list(
+            @RequestParam(name = "location", required = false) String location,
+            @RequestParam(name = "homeType", required = false) String homeType,
+            @RequestParam(name = "bedrooms", required = false) Integer bedrooms,
+            @RequestParam(name = "swapWindow", required = false) String swapWindow,
+            @RequestParam(name = "page", defaultValue = "0") int page,
+            @RequestParam(name = "size", defaultValue = "50") int size) {
+        return ResponseEntity.ok(service.list(location, homeType, bedrooms, swapWindow,
+                Math.max(page, 0), Math.min(Math.max(size, 1), 100)));
     }
 
     @GetMapping(value = "/homeswap/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -2,79 +2,50 @@ package com.habesha.community.controller;
 
 import com.habesha.community.model.HomeSwapPhoto;
 import com.habesha.community.repository.HomeSwapPhotoRepository;
+import com.habesha.community.service.MediaBlobService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.CacheControl;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
-import java.net.URI;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.time.Duration;
-
 @RestController
 @RequestMapping
 @RequiredArgsConstructor
 public class HomeSwapPhotoController {
 
     private final HomeSwapPhotoRepository photoRepository;
+    private final MediaBlobService mediaBlobService;
 
     @GetMapping("/homeswap/photos/{photoId}")
     @Transactional(readOnly = true)
-    public ResponseEntity<?> photoById(@PathVariable Long photoId) {
+    public ResponseEntity<?> photoById(@PathVariable Long photoId,
+                                       @RequestParam(defaultValue = "false") boolean thumb) {
         HomeSwapPhoto p = photoRepository.findById(photoId).orElse(null);
         if (p == null) return ResponseEntity.notFound().build();
-        return stream(p);
+        return stream(p, thumb);
     }
 
     @GetMapping("/homeswap/{id}/photos/first")
     @Transactional(readOnly = true)
-    public ResponseEntity<?> firstPhoto(@PathVariable Long id) {
+    public ResponseEntity<?> firstPhoto(@PathVariable Long id,
+                                        @RequestParam(defaultValue = "false") boolean thumb) {
         HomeSwapPhoto p = photoRepository.findFirstByHomeSwap_IdOrderBySortOrderAscIdAsc(id)
                 .orElse(null);
         if (p == null) return ResponseEntity.notFound().build();
-        return stream(p);
+        return stream(p, thumb);
     }
 
-    private ResponseEntity<?> stream(HomeSwapPhoto p) {
+    private ResponseEntity<?> stream(HomeSwapPhoto p, boolean thumb) {
         // CDN redirect for Supabase-stored photos (url field holds the public URL)
         String url = p.getUrl();
-        if (url != null && (url.startsWith("http://") || url.startsWith("https://"))) {
-            return ResponseEntity.status(HttpStatus.FOUND)
-                    .location(URI.create(url))
-                    .cacheControl(CacheControl.maxAge(Duration.ofDays(30)).cachePublic())
-                    .build();
-        }
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setCacheControl(CacheControl.maxAge(Duration.ofDays(30)).cachePublic());
+        if (LocalPhotoResponses.isRemote(url)) return LocalPhotoResponses.redirect(url);
 
-        // Try disk first
-        try {
-            Path path = Path.of(p.getPath());
-            if (Files.exists(path)) {
-                String mime = Files.probeContentType(path);
-                if (mime == null) mime = p.getContentType() != null ? p.getContentType() : "image/jpeg";
-                return ResponseEntity.ok()
-                        .headers(headers)
-                        .contentType(MediaType.parseMediaType(mime))
-                        .body(Files.readAllBytes(path));
-            }
-        } catch (Exception ignored) {}
-
-        // Fallback to database blob
-        if (p.getImageData() != null && p.getImageData().length > 0) {
-            String mime = p.getContentType() != null ? p.getContentType() : "image/jpeg";
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .contentType(MediaType.parseMediaType(mime))
-                    .body(p.getImageData());
+        // Disk first, streamed (the thumbnail when asked for and made); then the database blob
+        ResponseEntity<?> res = thumb ? LocalPhotoResponses.file(p.getThumbPath(), "image/jpeg") : null;
+        if (res == null) res = LocalPhotoResponses.file(p.getPath(), p.getContentType());
+        if (res == null && p.getImageBlobId() != null) {
+            res = LocalPhotoResponses.blob(mediaBlobService.find(p.getImageBlobId()).orElse(null), p.getContentType());
         }
-
-        return ResponseEntity.notFound().build();
+        return res != null ? res : ResponseEntity.notFound().build();
     }
 }
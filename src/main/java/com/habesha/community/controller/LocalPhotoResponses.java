@@ -0,0 +1,128 @@
+package com.habesha.community.controller;
+
+import com.habesha.community.model.MediaBlob;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared response building for the ad, rental and home-swap photo endpoints.
+ *
+ * Disk files are returned as a {@link Resource}, so the body is streamed by
+ * the message converter instead of being read into a byte array.  Because
+ * the body is a resource, Spring MVC also answers {@code Range} requests
+ * with 206 partial content.  The ETag is strong and comes from the file's
+ * identity (inode where the filesystem has one), size and mtime, so the
+ * file is never read to compute it.  A matching {@code If-None-Match} gets
+ * a 304 before the file is opened.  Database blobs are keyed by blob id.
+ * MIME types are resolved from the extension once and cached.
+ */
+final class LocalPhotoResponses {
+
+    static final CacheControl CACHE = CacheControl.maxAge(Duration.ofDays(30)).cachePublic();
+
+    private static final MediaType FALLBACK = MediaType.IMAGE_JPEG;
+
+    /** Extension (lowercase) → media type; bounded by the handful of image extensions in use. */
+    private static final Map<String, MediaType> MIME_BY_EXT = new ConcurrentHashMap<>();
+
+    private LocalPhotoResponses() {
+    }
+
+    static boolean isRemote(String location) {
+        return location != null && (location.startsWith("http://") || location.startsWith("https://"));
+    }
+
+    /** 302 to the public object-storage URL, so the bytes never pass through this service. */
+    static ResponseEntity<?> redirect(String url) {
+        return ResponseEntity.status(HttpStatus.FOUND)
+                .location(URI.create(url))
+                .cacheControl(CACHE)
+                .build();
+    }
+
+    /**
+     * A streamed response for the file at {@code location}, or null when the
+     * path is blank or no regular file is there (the caller then falls back
+     * to the database blob).
+     */
+    static ResponseEntity<Resource> file(String location, String storedContentType) {
+        if (!StringUtils.hasText(location)) return null;
+        Path path;
+        BasicFileAttributes attrs;
+        try {
+            path = Path.of(location);
+            attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+        if (!attrs.isRegularFile()) return null;
+
+        long mtime = attrs.lastModifiedTime().toMillis();
+        return ResponseEntity.ok()
+                .cacheControl(CACHE)
+                .eTag(etag(attrs))
+                .lastModified(mtime)
+                .contentType(mediaType(path, storedContentType))
+                .contentLength(attrs.size())
+                .body(new FileSystemResource(path));
+    }
+
+    /**
+     * A response for bytes held in media_blob.  Blob rows are never rewritten,
+     * so the id alone is a strong ETag.
+     */
+    static ResponseEntity<?> blob(MediaBlob blob, String storedContentType) {
+        if (blob == null || blob.getData() == null || blob.getData().length == 0) return null;
+        String type = StringUtils.hasText(storedContentType) ? storedContentType : blob.getContentType();
+        return ResponseEntity.ok()
+                .cacheControl(CACHE)
+                .eTag("\"b" + Long.toHexString(blob.getId()) + "\"")
+                .contentType(parse(type))
+                .body(blob.getData());
+    }
+
+    private static String etag(BasicFileAttributes attrs) {
+        Object key = attrs.fileKey();
+        return "\"" + Long.toHexString(attrs.size())
+                + '-' + Long.toHexString(attrs.lastModifiedTime().toMillis())
+                + (key != null ? "-" + Integer.toHexString(key.hashCode()) : "")
+                + "\"";
+    }
+
+    private static MediaType mediaType(Path path, String storedContentType) {
+        String name = path.getFileName() != null ? path.getFileName().toString() : "";
+        int dot = name.lastIndexOf('.');
+        if (dot >= 0 && dot < name.length() - 1) {
+            String ext = name.substring(dot + 1).toLowerCase(Locale.ROOT);
+            MediaType cached = MIME_BY_EXT.computeIfAbsent(ext,
+                    e -> MediaTypeFactory.getMediaType("f." + e).orElse(null));
+            if (cached != null) return cached;
+        }
+        return parse(storedContentType);
+    }
+
+    private static MediaType parse(String contentType) {
+        if (!StringUtils.hasText(contentType)) return FALLBACK;
+        try {
+            return MediaType.parseMediaType(contentType);
+        } catch (RuntimeException e) {
+            return FALLBACK;
+        }
+    }
+}
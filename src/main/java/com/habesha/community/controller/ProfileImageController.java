@@ -2,12 +2,18 @@ package com.habesha.community.controller;
 
 import com.habesha.community.dto.UserResponse;
 import com.habesha.community.model.User;
+import com.habesha.community.repository.UserRepository.AvatarView;
+import com.habesha.community.service.AvatarService;
 import com.habesha.community.service.SupabaseStorageService;
 import com.habesha.community.service.UserService;
+import com.habesha.community.security.AuthPrincipal;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.*;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -25,6 +31,7 @@ public class ProfileImageController {
 
     private final UserService userService;
     private final SupabaseStorageService supabaseStorage;
+    private final AvatarService avatarService;
 
     /**
      * Upload avatar. Accepts common field names.
@@ -93,58 +100,65 @@ public class ProfileImageController {
     }
 
     /**
-     * Stream or redirect to the current user's avatar.
+     * Stream or redirect to the current user's avatar.  The URL is the same
+     * for everyone, so it is never cached as immutable; it revalidates by ETag.
      */
     @GetMapping("/me/profile-image")
-    public ResponseEntity<?> getMyProfileImage() {
-        User u = userService.getCurrentUser()
-            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Not authenticated"));
-        String imgUrl = u.getProfileImageUrl();
-        if (imgUrl != null && (imgUrl.startsWith("http://") || imgUrl.startsWith("https://"))) {
-            return ResponseEntity.status(HttpStatus.FOUND)
-                    .location(URI.create(imgUrl))
-                    .cacheControl(CacheControl.maxAge(Duration.ofDays(30)).cachePublic())
-                    .build();
+    public ResponseEntity<?> getMyProfileImage(@RequestParam(required = false) Integer size,
+                                               WebRequest request) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !(auth.getPrincipal() instanceof AuthPrincipal me)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Not authenticated");
         }
-        var img = userService.getCurrentUserImage()
-            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No image"));
-        return buildImageResponse(img.data(), img.contentType());
+        return avatar(me.id(), size, null, request);
     }
 
     /**
      * Public endpoint to fetch a user's avatar by ID (useful for {@code <img>} tags).
+     * {@code size} picks the 48/128/512 px rendition (default 512); a request
+     * carrying the current {@code v} is cached as immutable.
      */
     @GetMapping("/{id}/profile-image")
-    public ResponseEntity<?> getUserProfileImage(@PathVariable Long id) {
+    public ResponseEntity<?> getUserProfileImage(@PathVariable Long id,
+                                                 @RequestParam(required = false) Integer size,
+                                                 @RequestParam(value = "v", required = false) String version,
+                                                 WebRequest request) {
+        return avatar(id, size, version, request);
+    }
+
+    private ResponseEntity<?> avatar(Long userId, Integer size, String requestedVersion, WebRequest request) {
+        AvatarView view = avatarService.find(userId)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No image"));
+
         // Redirect to CDN if there's an external URL (Supabase path)
-        try {
-            User u = userService.getEntityById(id);
-            String imgUrl = u.getProfileImageUrl();
-            if (imgUrl != null && (imgUrl.startsWith("http://") || imgUrl.startsWith("https://"))) {
-                return ResponseEntity.status(HttpStatus.FOUND)
-                        .location(URI.create(imgUrl))
-                        .cacheControl(CacheControl.maxAge(Duration.ofDays(30)).cachePublic())
-                        .build();
-            }
-        } catch (Exception ignored) {}
+        String imgUrl = view.getProfileImageUrl();
+        if (imgUrl != null && (imgUrl.startsWith("http://") || imgUrl.startsWith("https://"))) {
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(URI.create(imgUrl))
+                    .cacheControl(CacheControl.maxAge(Duration.ofDays(30)).cachePublic())
+                    .build();
+        }
+
+        AvatarService.Rendition rendition = AvatarService.rendition(view, size);
+        if (rendition == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No image");
+        if (request.checkNotModified(rendition.etag())) return null;
 
-        var img = userService.getUserImageById(id)
+        AvatarService.Image img = avatarService.load(rendition)
             .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No image"));
-        return buildImageResponse(img.data(), img.contentType());
+        CacheControl cache = requestedVersion != null && requestedVersion.equals(AvatarService.version(view))
+            ? CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable()
+            : CacheControl.noCache();
+        return ResponseEntity.ok()
+                .cacheControl(cache)
+                .eTag(rendition.etag())
+                .contentType(MediaType.parseMediaType(img.contentType()))
+                .body(img.data());
     }
 
     private static boolean notEmpty(MultipartFile f) {
         return f != null && !f.isEmpty();
     }
 
-    private static ResponseEntity<byte[]> buildImageResponse(byte[] bytes, String contentType) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType(
-            contentType != null ? contentType : "image/jpeg"));
-        headers.setCacheControl(CacheControl.noCache());
-        return new ResponseEntity<>(bytes, headers, HttpStatus.OK);
-    }
-
     /** Remove the current user's profile image (sets fields to null). */
     @DeleteMapping("/me/profile-image")
     public ResponseEntity<Void> deleteMyProfileImage() {
@@ -0,0 +1,74 @@
+package com.habesha.community.controller;
+
+import com.habesha.community.dto.RealtimeEvent;
+import com.habesha.community.service.RealtimeConnectionRegistry;
+import com.habesha.community.security.AuthPrincipal;
+import com.habesha.community.security.JwtAuthenticationFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Server-Sent Events stream replacing unread-count / threads / counts
+ * polling.  Authenticated with the usual JWT; browsers using EventSource
+ * (which can't set headers) first {@code POST /api/realtime/ticket} with the
+ * JWT and open the stream with the returned single-use {@code ?ticket=}.
+ *
+ * Events: message.new, message.read, counter.delta, friend.request,
+ * friend.request.cancelled, friend.response.  A {@code ready} event is
+ * sent on connect; clients should refetch counters once on every (re)connect
+ * and then apply deltas.  The stream is closed when its session is signed
+ * out or the account is suspended or banned.
+ */
+@RestController
+@RequestMapping("/api/realtime")
+@RequiredArgsConstructor
+public class RealtimeController {
+
+    private final RealtimeConnectionRegistry registry;
+
+    /** A short-lived, single-use ticket for opening the stream from EventSource. */
+    @PostMapping("/ticket")
+    public Map<String, Object> ticket(HttpServletRequest request) {
+        AuthPrincipal me = currentPrincipal();
+        String ticket = registry.issueTicket(me, tokenHash(request));
+        return Map.of("ticket", ticket, "expiresInSeconds", registry.ticketTtlSeconds());
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(HttpServletRequest request) throws IOException {
+        AuthPrincipal me = currentPrincipal();
+        SseEmitter emitter = registry.open(me.id(), tokenHash(request));
+        emitter.send(SseEmitter.event()
+                .name("ready")
+                .data(RealtimeEvent.builder()
+                        .type("ready")
+                        .data(Map.of("userId", me.id()))
+                        .at(Instant.now())
+                        .build(), MediaType.APPLICATION_JSON));
+        return emitter;
+    }
+
+    private static AuthPrincipal currentPrincipal() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !(auth.getPrincipal() instanceof AuthPrincipal me)) {
+            throw new IllegalStateException("Not authenticated");
+        }
+        return me;
+    }
+
+    private static String tokenHash(HttpServletRequest request) {
+        return (String) request.getAttribute(JwtAuthenticationFilter.TOKEN_HASH_ATTRIBUTE);
+    }
+}
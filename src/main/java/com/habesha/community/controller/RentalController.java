@@ -8,16 +8,22 @@ import com.habesha.community.model.RentalPhoto;
 import com.habesha.community.repository.RentalPhotoRepository;
 import com.habesha.community.repository.RentalRepository;
 import com.habesha.community.service.FileStorageService;
+import com.habesha.community.service.MediaBlobService;
+import com.habesha.community.service.PhotoProcessingService;
 import com.habesha.community.service.RentalService;
 import com.habesha.community.service.SupabaseStorageService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -32,6 +38,9 @@ public class RentalController {
     private final RentalPhotoRepository rentalPhotoRepository;
     private final FileStorageService storage;
     private final SupabaseStorageService supabaseStorage;
+    private final MediaBlobService mediaBlobService;
+    private final PhotoProcessingService photoProcessing;
+    private final TransactionTemplate transactionTemplate;
 
     // -------------------------------------------------------------------------
     // CREATE
@@ -91,29 +100,59 @@ public class RentalController {
     // PHOTOS: upload multiple images for a rental
     // POST /rentals/{id}/photos   multipart/form-data
     // -------------------------------------------------------------------------
+    // Supabase uploads run first, in parallel and before any database access,
+    // so no JDBC connection is held while they are on the network. The rows
+    // are then written in one short transaction; if that fails (or the rental
+    // does not exist) the uploaded objects are deleted again.
     @PostMapping("/{id}/photos")
-    @Transactional
     public ResponseEntity<Map<String, Object>> uploadPhotos(
             @PathVariable Long id,
             @RequestParam("files") List<MultipartFile> files
     ) throws Exception {
 
-        Rental rental = rentalRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Rental not found"));
-
         if (CollectionUtils.isEmpty(files)) {
             return ResponseEntity.badRequest()
                     .body(Map.of("error", "No files provided"));
         }
 
+        List<MultipartFile> nonEmpty = files.stream().filter(mf -> !mf.isEmpty()).collect(Collectors.toList());
+        // Preferred: store bytes in Supabase Storage (keeps Postgres small),
+        // persist only the public URL. No DB blob, no local disk.
+        List<String> publicUrls = supabaseStorage.isEnabled() && !nonEmpty.isEmpty()
+                ? supabaseStorage.uploadAll("rental/" + id, nonEmpty)
+                : null;
+
+        List<Map<String, Object>> saved;
+        try {
+            saved = transactionTemplate.execute(status -> {
+                try {
+                    return savePhotos(id, nonEmpty, publicUrls);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            if (publicUrls != null) supabaseStorage.deleteAll(publicUrls);
+            throw e;
+        }
+
+        return ResponseEntity.ok(Map.of(
+                "count", saved.size(),
+                "photos", saved
+        ));
+    }
+
+    private List<Map<String, Object>> savePhotos(Long id, List<MultipartFile> files, List<String> publicUrls) throws IOException {
+        Rental rental = rentalRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Rental not found"));
+
         Path base = Path.of("uploads", "rental", String.valueOf(id)).toAbsolutePath();
         int nextIndex = (rental.getPhotos() == null) ? 0 : rental.getPhotos().size();
 
         List<Map<String, Object>> saved = new ArrayList<>();
 
-        for (MultipartFile mf : files) {
-            if (mf.isEmpty()) continue;
-
+        for (int i = 0; i < files.size(); i++) {
+            MultipartFile mf = files.get(i);
             String original = Objects.requireNonNullElse(mf.getOriginalFilename(), "image.jpg");
             String safe = storage.safeFilename(original);
             String contentType = mf.getContentType() != null ? mf.getContentType() : "image/jpeg";
@@ -124,20 +163,19 @@ public class RentalController {
                     .rental(rental)
                     .contentType(contentType);
 
-            if (supabaseStorage.isEnabled()) {
-                // Preferred: store bytes in Supabase Storage (keeps Postgres small),
-                // persist only the public URL. No DB blob, no local disk.
-                String publicUrl = supabaseStorage.upload("rental/" + id, safe, mf.getBytes(), contentType);
-                pb.filePath(publicUrl);
+            if (publicUrls != null) {
+                pb.filePath(publicUrls.get(i));
             } else {
                 // Legacy fallback: local disk + DB blob.
-                Path savedPath = storage.saveStream(base, safe, mf.getInputStream());
-                pb.filePath(savedPath.toString()).imageData(mf.getBytes());
+                byte[] imageBytes = mf.getBytes(); // read once; used for storage and the DB copy
+                Path savedPath = storage.saveStream(base, safe, new ByteArrayInputStream(imageBytes));
+                pb.filePath(savedPath.toString()).imageBlobId(mediaBlobService.store(imageBytes, contentType));
             }
 
             RentalPhoto photo = pb.build();
             rental.addPhoto(photo);
             rentalPhotoRepository.save(photo);
+            photoProcessing.submit(PhotoProcessingService.Kind.RENTAL, photo.getId(), photo.getFilePath());
 
             saved.add(Map.of(
                     "id", photo.getId(),
@@ -147,11 +185,7 @@ public class RentalController {
         }
 
         rentalRepository.save(rental);
-
-        return ResponseEntity.ok(Map.of(
-                "count", saved.size(),
-                "photos", saved
-        ));
+        return saved;
     }
 
     // -------------------------------------------------------------------------
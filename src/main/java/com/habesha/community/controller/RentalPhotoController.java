@@ -4,20 +4,12 @@ import com.habesha.community.model.Rental;
 import com.habesha.community.model.RentalPhoto;
 import com.habesha.community.repository.RentalPhotoRepository;
 import com.habesha.community.repository.RentalRepository;
+import com.habesha.community.service.MediaBlobService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.CacheControl;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
-import java.net.URI;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.time.Duration;
-
 @RestController
 @RequestMapping
 @RequiredArgsConstructor
@@ -25,61 +17,39 @@ public class RentalPhotoController {
 
     private final RentalRepository rentalRepository;
     private final RentalPhotoRepository photoRepository;
+    private final MediaBlobService mediaBlobService;
 
     @GetMapping("/rentals/photos/{photoId}")
     @Transactional(readOnly = true)
-    public ResponseEntity<?> photoById(@PathVariable Long photoId) {
+    public ResponseEntity<?> photoById(@PathVariable Long photoId,
+                                       @RequestParam(defaultValue = "false") boolean thumb) {
         RentalPhoto p = photoRepository.findById(photoId).orElse(null);
         if (p == null) return ResponseEntity.notFound().build();
-        return stream(p);
+        return stream(p, thumb);
     }
 
     @GetMapping("/rentals/{id}/photos/first")
     @Transactional(readOnly = true)
-    public ResponseEntity<?> firstPhoto(@PathVariable Long id) {
+    public ResponseEntity<?> firstPhoto(@PathVariable Long id,
+                                        @RequestParam(defaultValue = "false") boolean thumb) {
         Rental r = rentalRepository.findById(id).orElse(null);
         if (r == null || r.getPhotos() == null || r.getPhotos().isEmpty()) {
             return ResponseEntity.notFound().build();
         }
-        return stream(r.getPhotos().get(0));
+        return stream(r.getPhotos().get(0), thumb);
     }
 
-    private ResponseEntity<?> stream(RentalPhoto p) {
-        // Preferred path: image is in external object storage (Supabase). Redirect
-        // the browser straight to the CDN URL so bytes never flow through this service.
+    private ResponseEntity<?> stream(RentalPhoto p, boolean thumb) {
+        // Supabase-stored photos: send the browser straight to the CDN URL
         String fp = p.getFilePath();
-        if (fp != null && (fp.startsWith("http://") || fp.startsWith("https://"))) {
-            return ResponseEntity.status(HttpStatus.FOUND)
-                    .location(URI.create(fp))
-                    .cacheControl(CacheControl.maxAge(Duration.ofDays(30)).cachePublic())
-                    .build();
-        }
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setCacheControl(CacheControl.maxAge(Duration.ofDays(30)).cachePublic());
+        if (LocalPhotoResponses.isRemote(fp)) return LocalPhotoResponses.redirect(fp);
 
-        // Try disk first
-        try {
-            Path path = Path.of(p.getFilePath());
-            if (Files.exists(path)) {
-                String mime = Files.probeContentType(path);
-                if (mime == null) mime = "image/jpeg";
-                return ResponseEntity.ok()
-                        .headers(headers)
-                        .contentType(MediaType.parseMediaType(mime))
-                        .body(Files.readAllBytes(path));
-            }
-        } catch (Exception ignored) {}
-
-        // Fallback to database blob
-        if (p.getImageData() != null && p.getImageData().length > 0) {
-            String mime = p.getContentType() != null ? p.getContentType() : "image/jpeg";
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .contentType(MediaType.parseMediaType(mime))
-                    .body(p.getImageData());
+        // Disk first, streamed (the thumbnail when asked for and made); then the database blob
+        ResponseEntity<?> res = thumb ? LocalPhotoResponses.file(p.getThumbPath(), "image/jpeg") : null;
+        if (res == null) res = LocalPhotoResponses.file(fp, p.getContentType());
+        if (res == null && p.getImageBlobId() != null) {
+            res = LocalPhotoResponses.blob(mediaBlobService.find(p.getImageBlobId()).orElse(null), p.getContentType());
         }
-
-        return ResponseEntity.notFound().build();
+        return res != null ? res : ResponseEntity.notFound().build();
     }
 }
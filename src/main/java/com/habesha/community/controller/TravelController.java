@@ -10,15 +10,15 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
-import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 
 @RestController
 @RequestMapping
 @RequiredArgsConstructor
 public class TravelController {
 
+    private static final int DEFAULT_PAGE_SIZE = 36;
+
     private final TravelService travelService;
 
     /* -------------------- CREATE -------------------- */
@@ -32,11 +32,13 @@ public class TravelController {
 
     /* -------------------- LIST / SEARCH -------------------- */
     /**
-     * List or search travel posts.
+     * List or search travel posts, soonest travel date first.
      *
-     * Supports optional pagination parameters (page/size or pageNumber/pageSize).
-     * If none are provided, returns the full list of results sorted newest-first.
-     * Unrecognized query params are ignored.
+     * Paged in SQL: page/size (or pageNumber/pageSize) for offset paging,
+     * or afterDate + afterId (the last trip already shown) for keyset
+     * paging.  size defaults to 36 and is capped at 100.  Trips dated
+     * before {@code from} (default: today) are left out; an exact
+     * {@code date} overrides it.  Unrecognized query params are ignored.
      *
      * Used by:
      *  - Travel list page
@@ -49,47 +51,34 @@ public class TravelController {
             @RequestParam(required = false)
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
             LocalDate date,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate from,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate afterDate,
+            @RequestParam(required = false) Long afterId,
             @RequestParam(required = false) Integer page,
             @RequestParam(required = false) Integer size,
             @RequestParam(required = false, name = "pageNumber") Integer pageNumber,
             @RequestParam(required = false, name = "pageSize") Integer pageSize
     ) {
-        // Backend search by origin/destination/date
-        List<TravelPostResponse> all = travelService.search(
-                Optional.ofNullable(origin),
-                Optional.ofNullable(destination),
-                Optional.ofNullable(date)
-        );
-
-        if (all.isEmpty()) {
-            return ResponseEntity.ok(Collections.emptyList());
-        }
-
-        // Default: full list when no pagination params are given
         int p = 0;
-        int s = all.size();
         if (page != null) {
             p = Math.max(0, page);
         } else if (pageNumber != null) {
             p = Math.max(0, pageNumber);
         }
+        int s = DEFAULT_PAGE_SIZE;
         if (size != null) {
             s = Math.max(1, size);
         } else if (pageSize != null) {
             s = Math.max(1, pageSize);
         }
-
         // Hard cap to avoid huge pages (defensive)
         s = Math.min(s, 100);
 
-        int fromIndex = p * s;
-        if (fromIndex >= all.size()) {
-            return ResponseEntity.ok(Collections.emptyList());
-        }
-        int toIndex = Math.min(all.size(), fromIndex + s);
-        List<TravelPostResponse> paged = all.subList(fromIndex, toIndex);
-
-        return ResponseEntity.ok(paged);
+        return ResponseEntity.ok(travelService.search(origin, destination, date, from, afterDate, afterId, p, s));
     }
 
     /* -------------------- GET ONE -------------------- */
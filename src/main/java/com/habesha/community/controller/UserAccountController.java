@@ -2,6 +2,7 @@ package com.habesha.community.controller;
 
 import com.habesha.community.model.User;
 import com.habesha.community.repository.UserRepository;
+import com.habesha.community.security.AuthPrincipalCache;
 import com.habesha.community.service.UserSessionService;
 import com.habesha.community.service.AccountDeletionService;
 import lombok.RequiredArgsConstructor;
@@ -24,6 +25,7 @@ public class UserAccountController {
     private final UserRepository userRepository;
     private final UserSessionService userSessionService;
     private final AccountDeletionService accountDeletionService;
+    private final AuthPrincipalCache principalCache;
 
     private User getCurrentUserOrThrow() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -43,6 +45,7 @@ public class UserAccountController {
         user.setFrozen(true);
         user.setFrozenAt(LocalDateTime.now());
         userRepository.save(user);
+        principalCache.invalidateUser(user.getId());
         
         // Optionally revoke all other sessions
         try {
@@ -68,6 +71,7 @@ public class UserAccountController {
         user.setFrozen(false);
         user.setFrozenAt(null);
         userRepository.save(user);
+        principalCache.invalidateUser(user.getId());
         
         return ResponseEntity.ok(Map.of(
             "ok", true,
@@ -4,8 +4,8 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.habesha.community.dto.UserSettingsDto;
 import com.habesha.community.dto.UserSettingsUpdateRequest;
-import com.habesha.community.model.User;
 import com.habesha.community.repository.UserRepository;
+import com.habesha.community.security.AuthPrincipal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -21,20 +21,20 @@ public class UserSettingsController {
     private final UserRepository userRepository;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    private User me() {
-        // In this codebase, SecurityContext stores com.habesha.community.model.User as principal
+    private Long myId() {
+        // The SecurityContext holds an AuthPrincipal; callers below load the row they need
         var auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
         Object p = auth != null ? auth.getPrincipal() : null;
-        if (p instanceof User u) return u;
+        if (p instanceof AuthPrincipal u) return u.id();
         if (p instanceof org.springframework.security.core.userdetails.User du) {
-            return userRepository.findByUsername(du.getUsername()).orElseThrow();
+            return userRepository.findByUsername(du.getUsername()).orElseThrow().getId();
         }
         throw new IllegalStateException("Unauthenticated");
     }
 
     @GetMapping
     public ResponseEntity<UserSettingsDto> get() {
-        var u = userRepository.findById(me().getId()).orElseThrow();
+        var u = userRepository.findById(myId()).orElseThrow();
         Map<String,Object> notifications = parseJson(u.getNotificationsJson());
         var dto = UserSettingsDto.builder()
                 .theme(nullToDefault(u.getTheme(), "SYSTEM"))
@@ -58,7 +58,7 @@ public class UserSettingsController {
 
     @PutMapping
     public ResponseEntity<UserSettingsDto> update(@RequestBody UserSettingsUpdateRequest r) {
-        var u = userRepository.findById(me().getId()).orElseThrow();
+        var u = userRepository.findById(myId()).orElseThrow();
 
         if (r.getTheme() != null) u.setTheme(r.getTheme());
         if (r.getDensity() != null) u.setDensity(r.getDensity());
@@ -0,0 +1,28 @@
+package com.habesha.community.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row from an activity-feed source query (events, services, messages,
+ * ad likes, ...).  Projected directly by JPQL constructor expressions so a
+ * feed page never hydrates the underlying entities or their associations.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivitySourceRow {
+    private Long rowId;          // primary key of the source row
+    private Long entityId;       // entity the feed item links to
+    private String text;         // title / preview
+    private LocalDateTime createdAt;
+    private Long actorId;
+    private String detail;       // secondary text (e.g. ad title for a comment)
+
+    public ActivitySourceRow(Long rowId, Long entityId, String text, LocalDateTime createdAt, Long actorId) {
+        this(rowId, entityId, text, createdAt, actorId, null);
+    }
+}
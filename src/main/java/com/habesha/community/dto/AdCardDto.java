@@ -0,0 +1,39 @@
+package com.habesha.community.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One ad in the feed / search results.  Just what a card renders; the
+ * description and photo list come from the details endpoint.
+ * Field names match {@link AdDetailsDto}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdCardDto {
+    private Long id;
+    private String title;
+    private BigDecimal price;
+    private String category;
+    private boolean featured;
+    private LocalDateTime createdAt;
+
+    /** First photo by sort order, else the ad's legacy imageUrl; null when neither exists. */
+    private String firstPhotoUrl;
+
+    private Long posterId;
+    private String posterName;
+    private String posterAvatar;
+
+    private long likeCount;
+
+    /** Whether the viewer has liked the ad; false for anonymous viewers. */
+    private boolean likedByMe;
+}
@@ -0,0 +1,24 @@
+package com.habesha.community.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One row of the XP leaderboard.  Field names match
+ * {@link UserProfileDto} so existing leaderboard views keep working;
+ * {@code rank} is 1-based.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardEntryDto {
+    private long rank;
+    private Long id;
+    private String displayName;
+    private String username;
+    private String avatarUrl;
+    private Integer xp;
+}
@@ -0,0 +1,29 @@
+package com.habesha.community.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat view of a single direct message.  Carries the participant ids
+ * instead of the {@code User} entities so conversation reads never
+ * hydrate (or serialize) user graphs.  Field names match the JSON the
+ * frontend already receives for {@code Message}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageDto {
+    private Long id;
+    private Long senderId;
+    private Long recipientId;
+    private String content;
+    private Boolean readByRecipient;
+    private LocalDateTime readAt;
+    private Boolean viaSms;
+    private LocalDateTime sentAt;
+}
@@ -0,0 +1,26 @@
+package com.habesha.community.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One cursor page of a conversation.  Messages are always in ascending
+ * send order; use {@code oldestId} as the next {@code before} cursor to
+ * scroll back and {@code newestId} as the {@code after} cursor to poll
+ * for newer messages.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessagePageDto {
+    private List<MessageDto> messages;
+    private Long oldestId;
+    private Long newestId;
+    /** True when more messages exist beyond this page in the requested direction. */
+    private boolean hasMore;
+}
@@ -0,0 +1,24 @@
+package com.habesha.community.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * One server-push event for a single user.  {@code type} is also used as
+ * the SSE event name, e.g. {@code message.new}, {@code message.read},
+ * {@code counter.delta}, {@code friend.request}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RealtimeEvent {
+    private String type;
+    private Map<String, Object> data;
+    private Instant at;
+}
@@ -49,4 +49,9 @@ public class UserProfileDto {
     private Long eventsCount;
     private Long servicesCount;
     private Long rentalsCount;
+    private Long adsCount;
+    private Long travelPostsCount;
+    /** Service reviews received as a provider, and their average rating (null with none). */
+    private Long reviewsCount;
+    private Double averageRating;
 }
\ No newline at end of file
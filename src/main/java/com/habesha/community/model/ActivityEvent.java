@@ -0,0 +1,57 @@
+package com.habesha.community.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry in a user's activity feed, appended when the underlying
+ * domain write happens (listing created, ad liked/commented, friendship
+ * accepted, message received).  {@code sourceId} is the id of the row that
+ * caused it (like, comment, message, friend request, listing) and
+ * {@code entityId} the thing the feed item links to.  Users are referenced
+ * by id only so a feed page never hydrates user entities.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "activity_event",
+        uniqueConstraints = @UniqueConstraint(name = "uq_activity_event_source",
+                columnNames = {"user_id", "type", "source_id"}))
+public class ActivityEvent {
+
+    /** Longest raw text kept per entry; titles are rendered from a prefix of it. */
+    public static final int MAX_TEXT = 500;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** Whose feed this entry belongs to. */
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private ActivityType type;
+
+    @Column(name = "source_id", nullable = false)
+    private Long sourceId;
+
+    private Long entityId;
+
+    private Long actorId;
+
+    @Column(length = MAX_TEXT)
+    private String text;
+
+    @Column(length = MAX_TEXT)
+    private String detail;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,59 @@
+package com.habesha.community.model;
+
+/**
+ * Kinds of entry in a user's activity feed.  Each knows the synthetic id
+ * prefix and entity type the frontend expects, and how to render its title
+ * from the raw text (listing title, message body, comment, ...) and detail
+ * (ad title for comments) captured when the activity happened.
+ */
+public enum ActivityType {
+    EVENT_CREATED("evt_", "event"),
+    SERVICE_CREATED("svc_", "service"),
+    RENTAL_CREATED("rent_", "rental"),
+    TRAVEL_POSTED("trav_", "travel"),
+    FRIEND_ACCEPTED("friend_", "friend"),
+    MESSAGE_RECEIVED("msg_", "message"),
+    AD_LIKED("adlike_", "ad"),
+    AD_COMMENTED("adcomment_", "ad");
+
+    private final String idPrefix;
+    private final String entityType;
+
+    ActivityType(String idPrefix, String entityType) {
+        this.idPrefix = idPrefix;
+        this.entityType = entityType;
+    }
+
+    public String getIdPrefix() {
+        return idPrefix;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public String title(String text, String detail) {
+        switch (this) {
+            case FRIEND_ACCEPTED:
+                return "Friendship with " + (text != null ? text : "someone");
+            case MESSAGE_RECEIVED:
+                if (text != null && text.length() > 50) {
+                    text = text.substring(0, 47) + "…";
+                }
+                return text != null ? text : "New message";
+            case AD_LIKED:
+                return text != null ? "liked your ad: " + text : "liked your ad";
+            case AD_COMMENTED: {
+                String preview = text;
+                if (preview != null && preview.length() > 70) {
+                    preview = preview.substring(0, 67) + "…";
+                }
+                return preview != null && !preview.isBlank()
+                        ? preview
+                        : (detail != null ? "commented on your ad: " + detail : "commented on your ad");
+            }
+            default:
+                return text;
+        }
+    }
+}
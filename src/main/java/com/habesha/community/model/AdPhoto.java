@@ -32,15 +32,23 @@ public class AdPhoto {
     @Column(nullable = false)
     private Integer sortIndex;
 
+    /** Bytes in media_blob when there is no object storage; loaded only when served. */
     @JsonIgnore
-    @Lob
-    @org.hibernate.annotations.JdbcTypeCode(org.hibernate.type.SqlTypes.BINARY)
-    @Column(name = "image_data", columnDefinition = "bytea")
-    private byte[] imageData;
+    @Column(name = "image_blob_id")
+    private Long imageBlobId;
 
     @Column(name = "content_type", length = 100)
     private String contentType;
 
+    // Filled in by the background photo pipeline after upload
+    private Integer width;
+    private Integer height;
+
+    /** Server-side path of the generated thumbnail (never expose). */
+    @JsonIgnore
+    @Column(name = "thumb_path", length = 2048)
+    private String thumbPath;
+
     @Column(nullable = false)
     private LocalDateTime createdAt;
 
@@ -49,6 +49,13 @@ public class ClassifiedAd {
 
     private LocalDateTime createdAt;
 
+    /**
+     * Number of likes, kept by AdService with atomic SQL updates.  Read-only
+     * here so saving an edited ad can never write back a stale count.
+     */
+    @Column(name = "like_count", nullable = false, insertable = false, updatable = false)
+    private long likeCount;
+
     @JsonIgnore
     @OneToMany(mappedBy = "ad", cascade = CascadeType.ALL, orphanRemoval = true)
     @OrderBy("sortIndex ASC")
@@ -0,0 +1,61 @@
+package com.habesha.community.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Denormalized summary of a 1:1 conversation, keyed by the ordered user
+ * pair ({@code userLoId < userHiId}).  Holds the last message preview and
+ * how many messages each side has not read yet, so the inbox sidebar never
+ * has to scan {@code messages}.  Users are referenced by id only so a
+ * thread listing doesn't hydrate user entities.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "conversation",
+        uniqueConstraints = @UniqueConstraint(name = "uq_conversation_pair", columnNames = {"user_lo_id", "user_hi_id"}))
+public class Conversation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_lo_id", nullable = false)
+    private Long userLoId;
+
+    @Column(name = "user_hi_id", nullable = false)
+    private Long userHiId;
+
+    private Long lastMessageId;
+
+    @Column(length = 4000)
+    private String lastMessageText;
+
+    private LocalDateTime lastMessageAt;
+
+    private Long lastSenderId;
+
+    /** Messages sent to the lo user that they haven't read. */
+    @Builder.Default
+    @Column(nullable = false)
+    private int unreadForLo = 0;
+
+    /** Messages sent to the hi user that they haven't read. */
+    @Builder.Default
+    @Column(nullable = false)
+    private int unreadForHi = 0;
+
+    public Long otherUserId(Long me) {
+        return userLoId.equals(me) ? userHiId : userLoId;
+    }
+
+    public int unreadFor(Long me) {
+        return userLoId.equals(me) ? unreadForLo : unreadForHi;
+    }
+}
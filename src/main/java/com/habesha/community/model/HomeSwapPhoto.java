@@ -43,17 +43,21 @@ public class HomeSwapPhoto {
     @Column(length = 100)
     private String contentType;
 
+    /** Bytes in media_blob when there is no object storage; loaded only when served. */
     @JsonIgnore
-    @Lob
-    @org.hibernate.annotations.JdbcTypeCode(org.hibernate.type.SqlTypes.BINARY)
-    @Column(name = "image_data", columnDefinition = "bytea")
-    private byte[] imageData;
+    @Column(name = "image_blob_id")
+    private Long imageBlobId;
 
     private Long sizeBytes; // use Long to allow null until set
 
     private Integer width;
     private Integer height;
 
+    /** Server-side path of the generated thumbnail (never expose). */
+    @JsonIgnore
+    @Column(name = "thumb_path", length = 2048)
+    private String thumbPath;
+
     /**
      * Optional ordering within a post (0..n).
      * Keep it Integer (nullable) so we can assign later if needed.
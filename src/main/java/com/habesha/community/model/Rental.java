@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -67,6 +68,7 @@ public class Rental {
     /** Legacy list of external image URLs. Keep for backward compatibility. */
     @Builder.Default
     @ElementCollection
+    @BatchSize(size = 50)
     @CollectionTable(name = "rental_images", joinColumns = @JoinColumn(name = "rental_id"))
     @Column(name = "image_url")
     private List<String> images = new ArrayList<>();
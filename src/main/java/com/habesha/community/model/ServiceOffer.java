@@ -57,11 +57,10 @@ public class ServiceOffer {
 
     private LocalDateTime createdAt;
 
-    /** Cover image bytes, stored in the DB so they survive ephemeral disks. */
+    /** Cover image bytes in media_blob, for when Supabase is not configured. */
     @JsonIgnore
-    @org.hibernate.annotations.JdbcTypeCode(org.hibernate.type.SqlTypes.BINARY)
-    @Column(name = "image_data", columnDefinition = "bytea")
-    private byte[] imageData;
+    @Column(name = "image_blob_id")
+    private Long imageBlobId;
 
     @JsonIgnore
     @Column(name = "image_content_type", length = 100)
@@ -80,7 +79,7 @@ public class ServiceOffer {
     @JsonProperty("hasImage")
     public boolean hasImage() {
         return (imagePath != null && !imagePath.isBlank())
-                || (imageData != null && imageData.length > 0);
+                || imageBlobId != null;
     }
 
     /**
@@ -90,7 +89,7 @@ public class ServiceOffer {
     @JsonProperty("imageUrl")
     public String getImageUrl() {
         if (imagePath != null && !imagePath.isBlank()) return imagePath;
-        return (id != null && imageData != null && imageData.length > 0)
+        return (id != null && imageBlobId != null)
                 ? "/api/services/" + id + "/image" : null;
     }
 
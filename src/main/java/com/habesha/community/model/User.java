@@ -6,8 +6,6 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.JdbcTypeCode;
-import org.hibernate.type.SqlTypes;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -113,16 +111,32 @@ public class User implements UserDetails {
      */
     private LocalDateTime lastActiveAt;
 
-    // ===== Profile image blob (optional) =====
+    // ===== Profile image blob (optional, bytes in media_blob) =====
     @JsonIgnore
-    @Lob
-    @JdbcTypeCode(SqlTypes.BINARY)
-    @Column(name = "profile_image", columnDefinition = "bytea")
-    private byte[] profileImage;
+    @Column(name = "profile_image_blob_id")
+    private Long profileImageBlobId;
 
     @Column(name = "profile_image_type", length = 100)
     private String profileImageType;
 
+    /** Content hash of the stored avatar; versions its URL and ETag. */
+    @JsonIgnore
+    @Column(name = "profile_image_hash", length = 64)
+    private String profileImageHash;
+
+    /** Resized renditions of the stored avatar (48, 128, 512 px), see AvatarService. */
+    @JsonIgnore
+    @Column(name = "avatar_sm_blob_id")
+    private Long avatarSmBlobId;
+
+    @JsonIgnore
+    @Column(name = "avatar_md_blob_id")
+    private Long avatarMdBlobId;
+
+    @JsonIgnore
+    @Column(name = "avatar_lg_blob_id")
+    private Long avatarLgBlobId;
+
     // ===== JPA lifecycle =====
     @PrePersist
     protected void onCreate() {
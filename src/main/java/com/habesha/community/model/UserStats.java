@@ -0,0 +1,54 @@
+package com.habesha.community.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Denormalized per-user content counters shown on profiles and
+ * leaderboards.  Maintained by the domain services in the same transaction
+ * as the write they count, via {@code UserStatsService}; a nightly
+ * reconcile corrects any drift.  A user with no row has nothing to count.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "user_stats")
+public class UserStats {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    private long friends;
+
+    private long events;
+
+    private long services;
+
+    private long rentals;
+
+    private long ads;
+
+    @Column(name = "travel_posts")
+    private long travelPosts;
+
+    @Column(name = "reviews_received")
+    private long reviewsReceived;
+
+    /** Sum of the ratings received; the average is derived so it can be maintained by deltas. */
+    @Column(name = "rating_sum")
+    private long ratingSum;
+
+    private LocalDateTime updatedAt;
+
+    /** Average rating to one decimal place, or null with no reviews. */
+    public Double averageRating() {
+        if (reviewsReceived <= 0) return null;
+        return Math.round(ratingSum * 10.0 / reviewsReceived) / 10.0;
+    }
+}
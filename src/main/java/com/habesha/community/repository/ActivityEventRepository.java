@@ -0,0 +1,86 @@
+package com.habesha.community.repository;
+
+import com.habesha.community.model.ActivityEvent;
+import com.habesha.community.model.ActivityType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ActivityEventRepository extends JpaRepository<ActivityEvent, Long> {
+
+    /**
+     * A page of the user's feed, newest first, strictly before the cursor.
+     * One range scan on idx_activity_event_user_created.
+     */
+    @Query("""
+        select e from ActivityEvent e
+         where e.userId = :userId and e.createdAt < :before
+         order by e.createdAt desc, e.id desc
+    """)
+    List<ActivityEvent> findFeed(Long userId, LocalDateTime before, Pageable pageable);
+
+    @Query("""
+        select count(e) from ActivityEvent e
+         where e.userId = :userId and e.type in :types and e.createdAt > :since
+    """)
+    long countSince(Long userId, Collection<ActivityType> types, LocalDateTime since);
+
+    /**
+     * Append an entry unless the same (user, type, source) is already logged,
+     * so retries and a concurrent rebuild never duplicate it.
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO activity_event (user_id, type, source_id, entity_id, actor_id, text, detail, created_at)
+        VALUES (:userId, :type, :sourceId, :entityId, :actorId, :text, :detail, :createdAt)
+        ON CONFLICT (user_id, type, source_id) DO NOTHING
+        """, nativeQuery = true)
+    int append(Long userId, String type, Long sourceId, Long entityId, Long actorId,
+               String text, String detail, LocalDateTime createdAt);
+
+    @Modifying
+    @Query("delete from ActivityEvent e where e.type = :type and e.sourceId = :sourceId")
+    int deleteBySource(ActivityType type, Long sourceId);
+
+    @Modifying
+    @Query("delete from ActivityEvent e where e.type in :types and e.entityId = :entityId")
+    int deleteByEntity(Collection<ActivityType> types, Long entityId);
+
+    @Modifying
+    @Query("""
+        delete from ActivityEvent e
+         where e.type = :type and e.entityId = :entityId and e.actorId = :actorId
+    """)
+    int deleteByEntityAndActor(ActivityType type, Long entityId, Long actorId);
+
+    @Modifying
+    @Query("""
+        update ActivityEvent e set e.text = :text
+         where e.type = :type and e.sourceId = :sourceId
+    """)
+    int updateText(ActivityType type, Long sourceId, String text);
+
+    @Modifying
+    @Query("delete from ActivityEvent e where e.createdAt < :cutoff")
+    int deleteOlderThan(LocalDateTime cutoff);
+
+    /**
+     * Keep only each user's newest {@code maxPerUser} entries.
+     */
+    @Modifying
+    @Query(value = """
+        DELETE FROM activity_event
+         WHERE id IN (SELECT id FROM (
+                   SELECT id, ROW_NUMBER() OVER (PARTITION BY user_id ORDER BY created_at DESC, id DESC) AS rn
+                     FROM activity_event) ranked
+                WHERE ranked.rn > :maxPerUser)
+        """, nativeQuery = true)
+    int trimPerUser(int maxPerUser);
+}
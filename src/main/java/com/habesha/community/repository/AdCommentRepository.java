@@ -1,7 +1,10 @@
 package com.habesha.community.repository;
 
+import com.habesha.community.dto.ActivitySourceRow;
 import com.habesha.community.model.AdComment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -21,4 +24,13 @@ public interface AdCommentRepository extends JpaRepository<AdComment, Long> {
     List<AdComment> findTop50ByAd_Poster_IdOrderByCreatedAtDesc(Long posterId);
 
     long countByAd_Poster_IdAndCreatedAtAfter(Long posterId, LocalDateTime after);
+
+    /** Activity feed: newest comments on the poster's ads before the cursor. */
+    @Query("""
+        select new com.habesha.community.dto.ActivitySourceRow(c.id, a.id, c.text, c.createdAt, c.author.id, a.title)
+          from AdComment c join c.ad a
+         where a.poster.id = :posterId and c.createdAt < :before
+         order by c.createdAt desc, c.id desc
+        """)
+    List<ActivitySourceRow> findActivityRows(Long posterId, LocalDateTime before, Pageable pageable);
 }
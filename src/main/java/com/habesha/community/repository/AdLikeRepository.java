@@ -1,9 +1,14 @@
 package com.habesha.community.repository;
 
+import com.habesha.community.dto.ActivitySourceRow;
 import com.habesha.community.model.AdLike;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface AdLikeRepository extends JpaRepository<AdLike, Long> {
@@ -14,8 +19,14 @@ public interface AdLikeRepository extends JpaRepository<AdLike, Long> {
     // has this user already liked this ad?
     boolean existsByAd_IdAndUser_Id(Long adId, Long userId);
 
-    // unlike
-    void deleteByAd_IdAndUser_Id(Long adId, Long userId);
+    // unlike; returns the number of rows removed (0 or 1)
+    @Modifying
+    @Query("delete from AdLike l where l.ad.id = :adId and l.user.id = :userId")
+    int deleteLike(Long adId, Long userId);
+
+    /** Which of the given ads the user has liked (served by the (ad_id, user_id) unique index). */
+    @Query("select l.ad.id from AdLike l where l.user.id = :userId and l.ad.id in :adIds")
+    List<Long> findLikedAdIds(Long userId, Collection<Long> adIds);
 
     // delete all likes for an ad (used when deleting the ad)
     void deleteByAd_Id(Long adId);
@@ -24,4 +35,13 @@ public interface AdLikeRepository extends JpaRepository<AdLike, Long> {
     List<AdLike> findTop50ByAd_Poster_IdOrderByCreatedAtDesc(Long posterId);
 
     long countByAd_Poster_IdAndCreatedAtAfter(Long posterId, LocalDateTime after);
+
+    /** Activity feed: newest likes on the poster's ads before the cursor. */
+    @Query("""
+        select new com.habesha.community.dto.ActivitySourceRow(l.id, a.id, a.title, l.createdAt, l.user.id)
+          from AdLike l join l.ad a
+         where a.poster.id = :posterId and l.createdAt < :before
+         order by l.createdAt desc, l.id desc
+        """)
+    List<ActivitySourceRow> findActivityRows(Long posterId, LocalDateTime before, Pageable pageable);
 }
@@ -28,6 +28,10 @@ public interface ClassifiedAdRepository extends JpaRepository<ClassifiedAd, Long
     /**
      * Find an ad by ID with photos eagerly loaded.
      */
-    @Query("SELECT a FROM ClassifiedAd a LEFT JOIN FETCH a.photos WHERE a.id = :id")
+    @Query("SELECT a FROM ClassifiedAd a LEFT JOIN FETCH a.poster LEFT JOIN FETCH a.photos WHERE a.id = :id")
     Optional<ClassifiedAd> findByIdWithPhotos(@Param("id") Long id);
-}
\ No newline at end of file
+
+    /** An ad and its poster in one select (details view). */
+    @Query("SELECT a FROM ClassifiedAd a LEFT JOIN FETCH a.poster WHERE a.id = :id")
+    Optional<ClassifiedAd> findWithPosterById(@Param("id") Long id);
+}
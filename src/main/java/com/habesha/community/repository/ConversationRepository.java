@@ -0,0 +1,63 @@
+package com.habesha.community.repository;
+
+import com.habesha.community.model.Conversation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ConversationRepository extends JpaRepository<Conversation, Long> {
+
+    /**
+     * A user's conversations, most recently active first.
+     */
+    @Query("""
+        select c from Conversation c
+         where c.userLoId = :userId or c.userHiId = :userId
+         order by c.lastMessageAt desc
+    """)
+    List<Conversation> findRecentForUser(Long userId, Pageable pageable);
+
+    /**
+     * Create or advance the conversation row for a newly sent message and
+     * bump the recipient's unread counter.  Atomic under concurrent sends
+     * thanks to ON CONFLICT on the pair.
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO conversation (user_lo_id, user_hi_id, last_message_id, last_message_text,
+                                  last_message_at, last_sender_id, unread_for_lo, unread_for_hi)
+        VALUES (:lo, :hi, :messageId, :text, :sentAt, :senderId,
+                CASE WHEN :recipientId = :lo THEN 1 ELSE 0 END,
+                CASE WHEN :recipientId = :hi THEN 1 ELSE 0 END)
+        ON CONFLICT (user_lo_id, user_hi_id) DO UPDATE SET
+            last_message_id   = CASE WHEN conversation.last_message_at IS NULL OR EXCLUDED.last_message_at >= conversation.last_message_at
+                                     THEN EXCLUDED.last_message_id ELSE conversation.last_message_id END,
+            last_message_text = CASE WHEN conversation.last_message_at IS NULL OR EXCLUDED.last_message_at >= conversation.last_message_at
+                                     THEN EXCLUDED.last_message_text ELSE conversation.last_message_text END,
+            last_sender_id    = CASE WHEN conversation.last_message_at IS NULL OR EXCLUDED.last_message_at >= conversation.last_message_at
+                                     THEN EXCLUDED.last_sender_id ELSE conversation.last_sender_id END,
+            last_message_at   = GREATEST(conversation.last_message_at, EXCLUDED.last_message_at),
+            unread_for_lo     = conversation.unread_for_lo + EXCLUDED.unread_for_lo,
+            unread_for_hi     = conversation.unread_for_hi + EXCLUDED.unread_for_hi
+        """, nativeQuery = true)
+    int recordMessage(Long lo, Long hi, Long messageId, String text, LocalDateTime sentAt,
+                      Long senderId, Long recipientId);
+
+    /**
+     * Reset the reader's unread counter on the (lo, hi) conversation.
+     */
+    @Modifying
+    @Query("""
+        update Conversation c
+           set c.unreadForLo = case when c.userLoId = :readerId then 0 else c.unreadForLo end,
+               c.unreadForHi = case when c.userHiId = :readerId then 0 else c.unreadForHi end
+         where c.userLoId = :lo and c.userHiId = :hi
+    """)
+    int clearUnread(Long lo, Long hi, Long readerId);
+}
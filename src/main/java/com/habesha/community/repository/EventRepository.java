@@ -1,9 +1,13 @@
 package com.habesha.community.repository;
 
+import com.habesha.community.dto.ActivitySourceRow;
 import com.habesha.community.model.Event;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -14,4 +18,13 @@ public interface EventRepository extends JpaRepository<Event, Long> {
      * Count how many events have been organised by a particular user.  Use nested property reference (`organizer.id`).
      */
     long countByOrganizer_Id(Long organizerId);
-}
\ No newline at end of file
+
+    /** Activity feed: the organiser's newest events before the cursor. */
+    @Query("""
+        select new com.habesha.community.dto.ActivitySourceRow(e.id, e.id, e.title, e.createdAt, e.organizer.id)
+          from Event e
+         where e.organizer.id = :ownerId and e.createdAt < :before
+         order by e.createdAt desc, e.id desc
+        """)
+    List<ActivitySourceRow> findActivityRows(Long ownerId, LocalDateTime before, Pageable pageable);
+}
@@ -1,10 +1,15 @@
 package com.habesha.community.repository;
 
+import com.habesha.community.dto.ActivitySourceRow;
 import com.habesha.community.model.FriendRequest;
 import com.habesha.community.model.FriendRequestStatus;
 import com.habesha.community.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +23,81 @@ public interface FriendRequestRepository extends JpaRepository<FriendRequest, Lo
 
     List<FriendRequest> findBySenderOrReceiverAndStatus(User sender, User receiver, FriendRequestStatus status);
 
+    /**
+     * True when any request row links the two users, in either direction and
+     * whatever its status.  Two probes of the sender/receiver indexes.
+     */
+    @Query(value = """
+        SELECT EXISTS (SELECT 1 FROM friend_requests
+                        WHERE (sender_id = :a AND receiver_id = :b)
+                           OR (sender_id = :b AND receiver_id = :a))
+        """, nativeQuery = true)
+    boolean existsBetween(Long a, Long b);
+
     // ✅ Counts incoming (receiver-side) pending requests for a given user id
     long countByReceiver_IdAndStatus(Long receiverId, FriendRequestStatus status);
+
+    /**
+     * Activity feed: newest friendships involving the user before the
+     * cursor.  The actor is the other side; the text is their username.
+     */
+    @Query("""
+        select new com.habesha.community.dto.ActivitySourceRow(
+                   f.id, f.id,
+                   case when s.id = :userId then r.username else s.username end,
+                   f.createdAt,
+                   case when s.id = :userId then r.id else s.id end)
+          from FriendRequest f join f.sender s join f.receiver r
+         where (s.id = :userId or r.id = :userId)
+           and f.status = :status and f.createdAt < :before
+         order by f.createdAt desc, f.id desc
+        """)
+    List<ActivitySourceRow> findActivityRows(Long userId, FriendRequestStatus status,
+                                             LocalDateTime before, Pageable pageable);
+
+    /**
+     * Accepted-friend counts for a batch of users, one row per user that has
+     * at least one friend.  Counts both directions of each friendship.
+     */
+    @Query(value = """
+        SELECT x.user_id AS "userId", COUNT(*) AS "count"
+          FROM (SELECT sender_id AS user_id FROM friend_requests
+                 WHERE status = 'ACCEPTED' AND sender_id IN (:ids)
+                UNION ALL
+                SELECT receiver_id AS user_id FROM friend_requests
+                 WHERE status = 'ACCEPTED' AND receiver_id IN (:ids)) x
+         GROUP BY x.user_id
+        """, nativeQuery = true)
+    List<IdCountView> countAcceptedByUserIds(Collection<Long> ids);
+
+    interface IdCountView {
+        Long getUserId();
+        Long getCount();
+    }
+
+    /**
+     * Every request row touching the user, as bare ids and status, for the
+     * in-memory friend graph.  Served by the sender/receiver indexes.
+     */
+    @Query(value = """
+        SELECT id AS "id", sender_id AS "senderId", receiver_id AS "receiverId", status AS "status"
+          FROM friend_requests
+         WHERE sender_id = :userId OR receiver_id = :userId
+        """, nativeQuery = true)
+    List<EdgeView> findEdgesOf(Long userId);
+
+    /** {@link #findEdgesOf} for a batch of users. */
+    @Query(value = """
+        SELECT id AS "id", sender_id AS "senderId", receiver_id AS "receiverId", status AS "status"
+          FROM friend_requests
+         WHERE sender_id IN (:userIds) OR receiver_id IN (:userIds)
+        """, nativeQuery = true)
+    List<EdgeView> findEdgesOfAny(Collection<Long> userIds);
+
+    interface EdgeView {
+        Long getId();
+        Long getSenderId();
+        Long getReceiverId();
+        String getStatus();
+    }
 }
@@ -2,7 +2,9 @@ package com.habesha.community.repository;
 
 import com.habesha.community.model.HomeSwapPhoto;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,4 +18,24 @@ public interface HomeSwapPhotoRepository extends JpaRepository<HomeSwapPhoto, Lo
     void deleteByHomeSwap_Id(Long homeSwapId);
 
     boolean existsByHomeSwap_Id(Long homeSwapId);
+
+    /** Photo fields the listing renders; never the image bytes. */
+    interface PhotoMetaView {
+        Long getId();
+        Long getHomeSwapId();
+        String getUrl();
+        Integer getWidth();
+        Integer getHeight();
+        Integer getSortOrder();
+    }
+
+    /** Photo metadata for a page of posts, in display order per post. */
+    @Query("""
+        select p.id as id, p.homeSwap.id as homeSwapId, p.url as url,
+               p.width as width, p.height as height, p.sortOrder as sortOrder
+          from HomeSwapPhoto p
+         where p.homeSwap.id in :homeSwapIds
+         order by p.homeSwap.id, p.sortOrder, p.id
+        """)
+    List<PhotoMetaView> findMetaByHomeSwapIds(Collection<Long> homeSwapIds);
 }
@@ -2,5 +2,18 @@ package com.habesha.community.repository;
 
 import com.habesha.community.model.HomeSwap;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 
-public interface HomeSwapRepository extends JpaRepository<HomeSwap, Long> {}
+import java.util.Optional;
+
+/**
+ * Listing pages are built with {@link ListingSpecifications#homeSwaps}, so
+ * only the filters a request supplies reach the SQL.
+ */
+public interface HomeSwapRepository extends JpaRepository<HomeSwap, Long>, JpaSpecificationExecutor<HomeSwap> {
+
+    /** Owner of a post, without loading it; empty when the post does not exist. */
+    @Query("select h.user.id from HomeSwap h where h.id = :id")
+    Optional<Long> findOwnerId(Long id);
+}
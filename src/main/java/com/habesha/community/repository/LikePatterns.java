@@ -0,0 +1,24 @@
+package com.habesha.community.repository;
+
+import java.util.Locale;
+
+/**
+ * LIKE/ILIKE patterns built from user input.  Metacharacters are escaped
+ * with a backslash, so every query using these patterns must match with
+ * {@code ESCAPE '\'} (PostgreSQL's default for LIKE and ILIKE).
+ */
+public final class LikePatterns {
+
+    private LikePatterns() {}
+
+    /** Escape {@code \}, {@code %} and {@code _} so the input matches literally. */
+    public static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /** Lower-cased {@code %s%} pattern of the trimmed input; null for null or blank input. */
+    public static String contains(String s) {
+        if (s == null || s.isBlank()) return null;
+        return "%" + escape(s.trim().toLowerCase(Locale.ROOT)) + "%";
+    }
+}
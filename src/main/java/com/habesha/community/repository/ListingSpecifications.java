@@ -0,0 +1,164 @@
+package com.habesha.community.repository;
+
+import com.habesha.community.model.HomeSwap;
+import com.habesha.community.model.Rental;
+import com.habesha.community.model.ServiceOffer;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Filters and sorting for the public listing endpoints
+ * (/api/rentals, /api/services, /homeswap).  Every filter is optional;
+ * blank values are ignored and add no predicate, so each request's SQL
+ * carries only the conditions it actually uses.  Text filters are case-insensitive substring matches on
+ * {@code lower(column)}, which the trigram indexes of V26 serve; category
+ * and room type are exact, case-insensitive matches served by the
+ * {@code (lower(col), created_at)} indexes.
+ */
+public final class ListingSpecifications {
+
+    private ListingSpecifications() {}
+
+    /** Client sort keys → entity properties.  Anything else falls back to newest first. */
+    private static final Map<String, String> RENTAL_SORTS = Map.of(
+            "createdAt", "createdAt",
+            "price", "price",
+            "title", "title");
+
+    private static final Map<String, String> SERVICE_SORTS = Map.of(
+            "createdAt", "createdAt",
+            "price", "basePrice",
+            "basePrice", "basePrice",
+            "title", "title");
+
+    public static Specification<Rental> rentals(String search, String roomType, String location,
+                                                BigDecimal minPrice, BigDecimal maxPrice) {
+        return (root, query, cb) -> {
+            fetchForPage(root, query, "owner");
+            List<Predicate> where = new ArrayList<>();
+            if (hasText(search)) {
+                String pattern = LikePatterns.contains(search);
+                where.add(cb.or(
+                        like(cb, root, "title", pattern),
+                        like(cb, root, "description", pattern),
+                        like(cb, root, "location", pattern)));
+            }
+            if (hasText(roomType)) where.add(equalsIgnoreCase(cb, root, "roomType", roomType));
+            if (hasText(location)) where.add(like(cb, root, "location", LikePatterns.contains(location)));
+            addPriceRange(where, cb, root.get("price"), minPrice, maxPrice);
+            return cb.and(where.toArray(Predicate[]::new));
+        };
+    }
+
+    public static Specification<ServiceOffer> services(String search, String category,
+                                                       BigDecimal minPrice, BigDecimal maxPrice) {
+        return (root, query, cb) -> {
+            fetchForPage(root, query, "provider");
+            List<Predicate> where = new ArrayList<>();
+            if (hasText(search)) {
+                String pattern = LikePatterns.contains(search);
+                where.add(cb.or(
+                        like(cb, root, "title", pattern),
+                        like(cb, root, "description", pattern)));
+            }
+            if (hasText(category)) where.add(equalsIgnoreCase(cb, root, "category", category));
+            addPriceRange(where, cb, root.get("basePrice"), minPrice, maxPrice);
+            return cb.and(where.toArray(Predicate[]::new));
+        };
+    }
+
+    /**
+     * Home swap posts: location and swap window are substrings, home type is
+     * exact, bedrooms is a minimum.  Newest first is served by
+     * idx_homeswap_created (V28).
+     */
+    public static Specification<HomeSwap> homeSwaps(String location, String homeType,
+                                                    Integer minBedrooms, String swapWindow) {
+        return (root, query, cb) -> {
+            fetchForPage(root, query, "user");
+            List<Predicate> where = new ArrayList<>();
+            if (hasText(location)) where.add(like(cb, root, "location", LikePatterns.contains(location)));
+            if (hasText(homeType)) where.add(equalsIgnoreCase(cb, root, "homeType", homeType));
+            if (minBedrooms != null) where.add(cb.greaterThanOrEqualTo(root.get("bedrooms"), minBedrooms));
+            if (hasText(swapWindow)) where.add(like(cb, root, "swapWindow", LikePatterns.contains(swapWindow)));
+            return cb.and(where.toArray(Predicate[]::new));
+        };
+    }
+
+    /** Newest first, id as the tie-break; the order of every created_at index above. */
+    public static Sort newestFirst() {
+        return Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id"));
+    }
+
+    /** {@code "prop,DIR"} for rentals, restricted to {@link #RENTAL_SORTS}. */
+    public static Sort rentalSort(String raw) {
+        return sort(raw, RENTAL_SORTS);
+    }
+
+    /** {@code "prop,DIR"} for services, restricted to {@link #SERVICE_SORTS}. */
+    public static Sort serviceSort(String raw) {
+        return sort(raw, SERVICE_SORTS);
+    }
+
+    /**
+     * Parse a client sort string against a whitelist.  The id is always the
+     * last key so pages stay stable when the sort column has ties.
+     */
+    private static Sort sort(String raw, Map<String, String> allowed) {
+        String prop = "createdAt";
+        Sort.Direction dir = Sort.Direction.DESC;
+        if (raw != null && !raw.isBlank()) {
+            String[] parts = raw.split(",");
+            String mapped = allowed.get(parts[0].trim());
+            if (mapped != null) {
+                prop = mapped;
+                dir = parts.length > 1 && parts[1].trim().equalsIgnoreCase("ASC")
+                        ? Sort.Direction.ASC : Sort.Direction.DESC;
+            }
+        }
+        return Sort.by(dir, prop).and(Sort.by(dir, "id"));
+    }
+
+    /* ---------------------------------------------------------------------- */
+
+    /**
+     * Join-fetch the author on the page query, so the page and its authors
+     * are one select; skipped on the count query, where a fetch is illegal.
+     */
+    private static void fetchForPage(Root<?> root, CriteriaQuery<?> query, String association) {
+        Class<?> type = query.getResultType();
+        if (type != Long.class && type != long.class) {
+            root.fetch(association, JoinType.LEFT);
+        }
+    }
+
+    private static boolean hasText(String s) {
+        return s != null && !s.isBlank();
+    }
+
+    private static Predicate like(CriteriaBuilder cb, Root<?> root, String property, String pattern) {
+        return cb.like(cb.lower(root.get(property)), pattern, '\\');
+    }
+
+    private static Predicate equalsIgnoreCase(CriteriaBuilder cb, Root<?> root, String property, String value) {
+        return cb.equal(cb.lower(root.get(property)), value.trim().toLowerCase(Locale.ROOT));
+    }
+
+    private static void addPriceRange(List<Predicate> where, CriteriaBuilder cb, Expression<BigDecimal> price,
+                                      BigDecimal min, BigDecimal max) {
+        if (min != null) where.add(cb.greaterThanOrEqualTo(price, min));
+        if (max != null) where.add(cb.lessThanOrEqualTo(price, max));
+    }
+}
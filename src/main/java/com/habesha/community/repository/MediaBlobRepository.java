@@ -0,0 +1,29 @@
+package com.habesha.community.repository;
+
+import com.habesha.community.model.MediaBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+public interface MediaBlobRepository extends JpaRepository<MediaBlob, Long> {
+
+    /** Delete by id without loading the bytes first (unlike {@code deleteById}). */
+    @Modifying
+    @Query("delete from MediaBlob b where b.id = :id")
+    int deleteBlob(Long id);
+
+    /** Blobs no owner points at any more, e.g. after a cascading photo delete. */
+    @Modifying
+    @Query(value = """
+        DELETE FROM media_blob m
+         WHERE NOT EXISTS (SELECT 1 FROM ad_photo p WHERE p.image_blob_id = m.id)
+           AND NOT EXISTS (SELECT 1 FROM rental_photo p WHERE p.image_blob_id = m.id)
+           AND NOT EXISTS (SELECT 1 FROM home_swap_photo p WHERE p.image_blob_id = m.id)
+           AND NOT EXISTS (SELECT 1 FROM service_offers s WHERE s.image_blob_id = m.id)
+           AND NOT EXISTS (SELECT 1 FROM users u WHERE u.profile_image_blob_id = m.id)
+           AND NOT EXISTS (SELECT 1 FROM users u WHERE u.avatar_sm_blob_id = m.id)
+           AND NOT EXISTS (SELECT 1 FROM users u WHERE u.avatar_md_blob_id = m.id)
+           AND NOT EXISTS (SELECT 1 FROM users u WHERE u.avatar_lg_blob_id = m.id)
+        """, nativeQuery = true)
+    int deleteOrphans();
+}
@@ -1,24 +1,68 @@
 package com.habesha.community.repository;
 
+import com.habesha.community.dto.ActivitySourceRow;
+import com.habesha.community.dto.MessageDto;
 import com.habesha.community.model.Message;
-import com.habesha.community.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long> {
 
+    /*
+     * Keyset pages of a conversation.  Both directions of a 1:1 chat share
+     * the ordered pair (lo, hi) = (least, greatest) of the two user ids,
+     * which matches idx_messages_pair_sent_at.  Cursors are (sentAt, id).
+     */
+
+    @Query("""
+        select new com.habesha.community.dto.MessageDto(
+                   m.id, m.sender.id, m.recipient.id, m.content,
+                   m.readByRecipient, m.readAt, m.viaSms, m.sentAt)
+          from Message m
+         where least(m.sender.id, m.recipient.id) = :lo
+           and greatest(m.sender.id, m.recipient.id) = :hi
+         order by m.sentAt desc, m.id desc
+    """)
+    List<MessageDto> findLatestInConversation(Long lo, Long hi, Pageable pageable);
+
+    @Query("""
+        select new com.habesha.community.dto.MessageDto(
+                   m.id, m.sender.id, m.recipient.id, m.content,
+                   m.readByRecipient, m.readAt, m.viaSms, m.sentAt)
+          from Message m
+         where least(m.sender.id, m.recipient.id) = :lo
+           and greatest(m.sender.id, m.recipient.id) = :hi
+           and (m.sentAt < :sentAt or (m.sentAt = :sentAt and m.id < :id))
+         order by m.sentAt desc, m.id desc
+    """)
+    List<MessageDto> findBeforeInConversation(Long lo, Long hi, LocalDateTime sentAt, Long id, Pageable pageable);
+
+    @Query("""
+        select new com.habesha.community.dto.MessageDto(
+                   m.id, m.sender.id, m.recipient.id, m.content,
+                   m.readByRecipient, m.readAt, m.viaSms, m.sentAt)
+          from Message m
+         where least(m.sender.id, m.recipient.id) = :lo
+           and greatest(m.sender.id, m.recipient.id) = :hi
+           and (m.sentAt > :sentAt or (m.sentAt = :sentAt and m.id > :id))
+         order by m.sentAt asc, m.id asc
+    """)
+    List<MessageDto> findAfterInConversation(Long lo, Long hi, LocalDateTime sentAt, Long id, Pageable pageable);
+
     /**
-     * Returns all messages exchanged between two users, ordered by send time ascending.
+     * Send time of a message, used to turn a message-id cursor into a keyset.
      */
-    List<Message> findBySenderAndRecipientOrRecipientAndSenderOrderBySentAtAsc(
-            User sender1, User recipient1, User sender2, User recipient2
-    );
+    @Query("select m.sentAt from Message m where m.id = :id")
+    Optional<LocalDateTime> findSentAtById(Long id);
 
     /**
      * Total unread messages for a given recipient.
@@ -57,9 +101,9 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     /**
      * Return all messages involving the given user sorted by send time
      * descending. A message is considered to involve the user if
-     * either the sender or the recipient is the specified user. This
-     * method is used to build thread summaries for dashboard inbox
-     * previews.
+     * either the sender or the recipient is the specified user.  Thread
+     * summaries now come from the conversation table; avoid this on hot
+     * paths.
      *
      * @param userId the id of the user
      * @return list of messages sorted descending by sentAt
@@ -82,4 +126,13 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
          group by m.sender.id
     """)
     List<UnreadCountView> findUnreadCountsByRecipient(Long recipientId);
+
+    /** Activity feed: newest messages received by the user before the cursor. */
+    @Query("""
+        select new com.habesha.community.dto.ActivitySourceRow(m.id, m.id, m.content, m.sentAt, m.sender.id)
+          from Message m
+         where m.recipient.id = :recipientId and m.sentAt < :before
+         order by m.sentAt desc, m.id desc
+        """)
+    List<ActivitySourceRow> findActivityRows(Long recipientId, LocalDateTime before, Pageable pageable);
 }
@@ -1,13 +1,18 @@
 package com.habesha.community.repository;
 
+import com.habesha.community.dto.ActivitySourceRow;
 import com.habesha.community.model.Rental;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface RentalRepository extends JpaRepository<Rental, Long> {
+public interface RentalRepository extends JpaRepository<Rental, Long>, JpaSpecificationExecutor<Rental> {
     List<Rental> findByLocationIgnoreCase(String location);
     
     // Ordered methods for recent posts first
@@ -24,4 +29,13 @@ public interface RentalRepository extends JpaRepository<Rental, Long> {
      */
     List<Rental> findByOwner_Id(Long ownerId);
     List<Rental> findByOwner_IdOrderByCreatedAtDesc(Long ownerId);
-}
\ No newline at end of file
+
+    /** Activity feed: the owner's newest rentals before the cursor. */
+    @Query("""
+        select new com.habesha.community.dto.ActivitySourceRow(r.id, r.id, r.title, r.createdAt, r.owner.id)
+          from Rental r
+         where r.owner.id = :ownerId and r.createdAt < :before
+         order by r.createdAt desc, r.id desc
+        """)
+    List<ActivitySourceRow> findActivityRows(Long ownerId, LocalDateTime before, Pageable pageable);
+}
@@ -1,14 +1,19 @@
 package com.habesha.community.repository;
 
+import com.habesha.community.dto.ActivitySourceRow;
 import com.habesha.community.model.ServiceOffer;
 import com.habesha.community.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface ServiceOfferRepository extends JpaRepository<ServiceOffer, Long> {
+public interface ServiceOfferRepository extends JpaRepository<ServiceOffer, Long>, JpaSpecificationExecutor<ServiceOffer> {
     List<ServiceOffer> findByCategoryIgnoreCase(String category);
     
     // Ordered methods for recent posts first
@@ -27,4 +32,13 @@ public interface ServiceOfferRepository extends JpaRepository<ServiceOffer, Long
      * Use nested property reference (`provider.id`) in the method name.
      */
     long countByProvider_Id(Long providerId);
+
+    /** Activity feed: the provider's newest services before the cursor. */
+    @Query("""
+        select new com.habesha.community.dto.ActivitySourceRow(s.id, s.id, s.title, s.createdAt, s.provider.id)
+          from ServiceOffer s
+         where s.provider.id = :ownerId and s.createdAt < :before
+         order by s.createdAt desc, s.id desc
+        """)
+    List<ActivitySourceRow> findActivityRows(Long ownerId, LocalDateTime before, Pageable pageable);
 }
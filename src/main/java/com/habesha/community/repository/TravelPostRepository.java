@@ -1,11 +1,14 @@
 package com.habesha.community.repository;
 
+import com.habesha.community.dto.ActivitySourceRow;
 import com.habesha.community.model.TravelPost;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface TravelPostRepository extends JpaRepository<TravelPost, Long> {
@@ -14,15 +17,96 @@ public interface TravelPostRepository extends JpaRepository<TravelPost, Long> {
 
     List<TravelPost> findByOriginCityIgnoreCaseAndDestinationCityIgnoreCase(String originCity, String destinationCity);
 
+    /*
+     * One page of trips, soonest first: one fixed query per route filter, so
+     * every statement has only non-null parameters and a stable plan on its
+     * V27 index.  Origin/destination are compared lower-cased (pass them
+     * lower-cased).  Trips run from {@code from} to {@code to} inclusive;
+     * pass {@code from} no earlier than {@code afterDate}.  The page starts
+     * after ({@code afterDate}, {@code afterId}): for the first page pass
+     * the day before {@code from}, which admits every trip.  No count query
+     * is run.
+     */
+
+    /** Origin and destination: idx_travel_posts_route_date. */
+    @Query("""
+        SELECT t
+        FROM TravelPost t
+        JOIN FETCH t.user u
+        WHERE LOWER(t.originCity) = :origin
+          AND LOWER(t.destinationCity) = :destination
+          AND t.travelDate BETWEEN :from AND :to
+          AND (t.travelDate > :afterDate OR t.id > :afterId)
+        ORDER BY t.travelDate ASC, t.id ASC
+        """)
+    List<TravelPost> findPageByRoute(@Param("origin") String origin,
+                                     @Param("destination") String destination,
+                                     @Param("from") LocalDate from,
+                                     @Param("to") LocalDate to,
+                                     @Param("afterDate") LocalDate afterDate,
+                                     @Param("afterId") Long afterId,
+                                     Pageable pageable);
+
+    /** Origin only: idx_travel_posts_origin_date. */
+    @Query("""
+        SELECT t
+        FROM TravelPost t
+        JOIN FETCH t.user u
+        WHERE LOWER(t.originCity) = :origin
+          AND t.travelDate BETWEEN :from AND :to
+          AND (t.travelDate > :afterDate OR t.id > :afterId)
+        ORDER BY t.travelDate ASC, t.id ASC
+        """)
+    List<TravelPost> findPageByOrigin(@Param("origin") String origin,
+                                      @Param("from") LocalDate from,
+                                      @Param("to") LocalDate to,
+                                      @Param("afterDate") LocalDate afterDate,
+                                      @Param("afterId") Long afterId,
+                                      Pageable pageable);
+
+    /** Destination only: idx_travel_posts_destination_date. */
     @Query("""
         SELECT t
         FROM TravelPost t
         JOIN FETCH t.user u
-        WHERE (:origin IS NULL OR LOWER(t.originCity) = LOWER(:origin))
-          AND (:destination IS NULL OR LOWER(t.destinationCity) = LOWER(:destination))
-          AND (:date IS NULL OR t.travelDate = :date)
+        WHERE LOWER(t.destinationCity) = :destination
+          AND t.travelDate BETWEEN :from AND :to
+          AND (t.travelDate > :afterDate OR t.id > :afterId)
+        ORDER BY t.travelDate ASC, t.id ASC
+        """)
+    List<TravelPost> findPageByDestination(@Param("destination") String destination,
+                                           @Param("from") LocalDate from,
+                                           @Param("to") LocalDate to,
+                                           @Param("afterDate") LocalDate afterDate,
+                                           @Param("afterId") Long afterId,
+                                           Pageable pageable);
+
+    /** Any route: idx_travel_posts_date_id. */
+    @Query("""
+        SELECT t
+        FROM TravelPost t
+        JOIN FETCH t.user u
+        WHERE t.travelDate BETWEEN :from AND :to
+          AND (t.travelDate > :afterDate OR t.id > :afterId)
+        ORDER BY t.travelDate ASC, t.id ASC
+        """)
+    List<TravelPost> findPage(@Param("from") LocalDate from,
+                              @Param("to") LocalDate to,
+                              @Param("afterDate") LocalDate afterDate,
+                              @Param("afterId") Long afterId,
+                              Pageable pageable);
+
+    /** Activity feed: the poster's newest trips before the cursor. */
+    @Query("""
+        select new com.habesha.community.dto.ActivitySourceRow(
+                   t.id, t.id,
+                   concat(coalesce(t.originCity, 'From'), ' → ', coalesce(t.destinationCity, 'To')),
+                   t.createdAt, t.user.id)
+          from TravelPost t
+         where t.user.id = :ownerId and t.createdAt < :before
+         order by t.createdAt desc, t.id desc
         """)
-    List<TravelPost> search(@Param("origin") String origin,
-                            @Param("destination") String destination,
-                            @Param("date") LocalDate date);
+    List<ActivitySourceRow> findActivityRows(@Param("ownerId") Long ownerId,
+                                             @Param("before") LocalDateTime before,
+                                             Pageable pageable);
 }
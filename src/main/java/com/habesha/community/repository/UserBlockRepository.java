@@ -17,4 +17,11 @@ public interface UserBlockRepository extends JpaRepository<UserBlock, Long> {
     )
     boolean existsBidirectionalBlock(@org.springframework.data.repository.query.Param("userAId") Long userAId, 
                                      @org.springframework.data.repository.query.Param("userBId") Long userBId);
+
+    /** Ids of everyone the user has blocked or been blocked by. */
+    @org.springframework.data.jpa.repository.Query(value =
+        "SELECT blocked_id FROM user_block WHERE blocker_id = :userId " +
+        "UNION SELECT blocker_id FROM user_block WHERE blocked_id = :userId",
+        nativeQuery = true)
+    List<Long> findBlockedEitherWay(@org.springframework.data.repository.query.Param("userId") Long userId);
 }
@@ -2,9 +2,13 @@ package com.habesha.community.repository;
 
 import com.habesha.community.model.Role;
 import com.habesha.community.model.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,6 +34,129 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     Optional<User> findByResetPasswordToken(String resetPasswordToken);
 
-    // ✅ Add this line
-    List<User> findByNameContainingIgnoreCaseOrUsernameContainingIgnoreCase(String name, String username);
+    /**
+     * Just enough of a user to render a name next to something they did,
+     * without loading the entity (badges, avatar blob, settings).
+     */
+    interface UserNameView {
+        Long getId();
+        String getName();
+        String getUsername();
+        String getEmail();
+        String getProfileImageUrl();
+    }
+
+    @Query("select u.id as id, u.name as name, u.username as username, u.email as email, "
+            + "u.profileImageUrl as profileImageUrl from User u where u.id in :ids")
+    List<UserNameView> findNameViewsByIdIn(Collection<Long> ids);
+
+    /** What the avatar endpoint needs to answer, without loading the user. */
+    interface AvatarView {
+        String getProfileImageUrl();
+        String getProfileImageType();
+        String getProfileImageHash();
+        Long getProfileImageBlobId();
+        Long getAvatarSmBlobId();
+        Long getAvatarMdBlobId();
+        Long getAvatarLgBlobId();
+    }
+
+    @Query("select u.profileImageUrl as profileImageUrl, u.profileImageType as profileImageType, "
+            + "u.profileImageHash as profileImageHash, u.profileImageBlobId as profileImageBlobId, "
+            + "u.avatarSmBlobId as avatarSmBlobId, u.avatarMdBlobId as avatarMdBlobId, "
+            + "u.avatarLgBlobId as avatarLgBlobId from User u where u.id = :id")
+    Optional<AvatarView> findAvatarViewById(Long id);
+
+    /** Newest active accounts first (backward scan of the primary key). */
+    @Query("select u.id from User u where u.active = true order by u.id desc")
+    List<Long> findNewestActiveIds(Pageable pageable);
+
+    /* ---------------------------- XP leaderboard ---------------------------- */
+    // All three queries use the expression of idx_users_xp_rank (V23) verbatim.
+
+    /** A leaderboard row: no badges, avatar blob or settings. */
+    interface XpRankView {
+        Long getId();
+        String getName();
+        String getUsername();
+        String getProfileImageUrl();
+        Integer getXp();
+    }
+
+    /** One leaderboard page, highest XP first, ties by oldest account. */
+    @Query(value = """
+        SELECT id AS "id", name AS "name", username AS "username",
+               profile_image_url AS "profileImageUrl", COALESCE(xp, 0) AS "xp"
+          FROM users
+         ORDER BY COALESCE(xp, 0) DESC, id
+         LIMIT :limit OFFSET :offset
+        """, nativeQuery = true)
+    List<XpRankView> findXpRankPage(int limit, long offset);
+
+    /** {@link #findXpRankPage} for one user (their current XP and display fields). */
+    @Query(value = """
+        SELECT id AS "id", name AS "name", username AS "username",
+               profile_image_url AS "profileImageUrl", COALESCE(xp, 0) AS "xp"
+          FROM users
+         WHERE id = :id
+        """, nativeQuery = true)
+    Optional<XpRankView> findXpRankView(Long id);
+
+    /**
+     * Users ranked ahead of (xp, id): strictly more XP, or the same XP and an
+     * older account.  Two index range counts rather than one OR so each half
+     * is a plain range scan of idx_users_xp_rank.  Each scan visits every
+     * row it counts, so the cost is O(rank); only ranks below the cached
+     * top-N reach it.
+     */
+    @Query(value = """
+        SELECT (SELECT COUNT(*) FROM users WHERE COALESCE(xp, 0) > :xp)
+             + (SELECT COUNT(*) FROM users WHERE COALESCE(xp, 0) = :xp AND id < :id)
+        """, nativeQuery = true)
+    long countRankedAhead(int xp, Long id);
+
+    /* ----------------------------- People search ----------------------------- */
+    // :pattern is an ILIKE pattern ('%q%', metacharacters escaped) and :prefix
+    // its 'q%' form.  ILIKE on the bare columns is what the pg_trgm indexes of
+    // V24 serve.
+
+    /** One search hit; {@code total} is the size of the whole match set. */
+    interface SearchHitView {
+        Long getId();
+        Long getTotal();
+    }
+
+    /**
+     * Searchable users matching the pattern, best first: name or username
+     * starting with the query, then the rest, each alphabetically.  Skips
+     * the given ids (the viewer and everyone blocked either way); pass a
+     * non-empty list.
+     */
+    @Query(value = """
+        SELECT u.id AS "id", COUNT(*) OVER () AS "total"
+          FROM users u
+         WHERE (u.name ILIKE :pattern OR u.username ILIKE :pattern)
+           AND COALESCE(u.searchable, TRUE)
+           AND u.id NOT IN (:excludeIds)
+         ORDER BY CASE WHEN u.username ILIKE :prefix OR u.name ILIKE :prefix THEN 0 ELSE 1 END,
+                  LOWER(COALESCE(NULLIF(u.name, ''), u.username)), u.id
+         LIMIT :limit OFFSET :offset
+        """, nativeQuery = true)
+    List<SearchHitView> searchPeople(String pattern, String prefix, Collection<Long> excludeIds,
+                                     int limit, long offset);
+
+    /** How many of the given users are in {@link #searchPeople}'s match set. */
+    @Query(value = """
+        SELECT COUNT(*) FROM users u
+         WHERE u.id IN (:ids)
+           AND (u.name ILIKE :pattern OR u.username ILIKE :pattern)
+           AND COALESCE(u.searchable, TRUE)
+        """, nativeQuery = true)
+    long countPeopleMatchesAmong(String pattern, Collection<Long> ids);
+
+    /** Admin user search: every account, searchable or not, oldest first. */
+    @Query(value = "SELECT * FROM users WHERE name ILIKE :pattern OR username ILIKE :pattern ORDER BY id",
+            countQuery = "SELECT COUNT(*) FROM users WHERE name ILIKE :pattern OR username ILIKE :pattern",
+            nativeQuery = true)
+    Page<User> searchAllByNameOrUsername(String pattern, Pageable pageable);
 }
@@ -0,0 +1,7 @@
+package com.habesha.community.repository;
+
+import com.habesha.community.model.UserStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface UserStatsRepository extends JpaRepository<UserStats, Long> {
+}
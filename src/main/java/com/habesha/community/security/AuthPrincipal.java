@@ -0,0 +1,39 @@
+package com.habesha.community.security;
+
+import com.habesha.community.model.Role;
+import com.habesha.community.model.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The signed-in user as held in the security context: only what the filter
+ * and authorization checks need, copied out of the {@link User} row.
+ *
+ * It is immutable, so {@link AuthPrincipalCache} can share one instance
+ * between requests.  Code that needs profile fields loads the entity by
+ * {@link #id()}; {@link #getUsername()} is the email, as for {@link User}.
+ */
+public record AuthPrincipal(Long id, String email, Role role, boolean active, boolean frozen)
+        implements UserDetails {
+
+    public static AuthPrincipal of(User user) {
+        return new AuthPrincipal(user.getId(), user.getEmail(), user.getRole(),
+                user.isActive(), Boolean.TRUE.equals(user.getFrozen()));
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return role != null ? List.of(new SimpleGrantedAuthority("ROLE_" + role.name())) : List.of();
+    }
+
+    @Override public String getPassword() { return null; }
+    @Override public String getUsername() { return email; }
+    @Override public boolean isAccountNonExpired() { return active; }
+    @Override public boolean isAccountNonLocked() { return active; }
+    @Override public boolean isCredentialsNonExpired() { return active; }
+    @Override public boolean isEnabled() { return active; }
+}
@@ -0,0 +1,194 @@
+package com.habesha.community.security;
+
+import com.habesha.community.model.User;
+import com.habesha.community.model.UserSession;
+import com.habesha.community.service.RealtimeConnectionRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, TTL-based in-process cache of the principal and session state
+ * resolved by {@link JwtAuthenticationFilter}.  Entries are keyed by a
+ * SHA-256 hash of the bearer token so raw tokens are never held as map keys.
+ *
+ * A hit lets the filter authenticate a request without touching the
+ * database.  Anything that changes what the filter would decide (logout,
+ * session revocation, suspension, freezing, role changes, deletion) must
+ * call {@link #invalidateToken} or {@link #invalidateUser}.  Those also
+ * close the affected realtime streams, which outlive the request that
+ * authenticated them.
+ *
+ * The cached principal is an immutable {@link AuthPrincipal} (id, email,
+ * role and account status), never the {@link User} entity, so it can be
+ * shared between requests without anyone mutating or reading stale profile
+ * fields through it.
+ */
+@Component
+@RequiredArgsConstructor
+public class AuthPrincipalCache {
+
+    @Value("${app.auth.principal-cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${app.auth.principal-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    private final RealtimeConnectionRegistry realtime;
+
+    private final Map<String, CachedPrincipal> byTokenHash = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> tokenHashesByUser = new ConcurrentHashMap<>();
+
+    /**
+     * Bumped on every invalidation.  A loader captures it before reading
+     * from the database and {@link #put} drops the result if it changed in
+     * between, so a concurrent revocation can't be overwritten by stale data.
+     */
+    private final AtomicLong epoch = new AtomicLong();
+
+    /** Immutable snapshot of everything the filter needs for one token. */
+    public record CachedPrincipal(AuthPrincipal user,
+                                  String tokenHash,
+                                  Long sessionId,
+                                  LocalDateTime sessionExpiresAt,
+                                  long tokenExpiresAtMillis,
+                                  long cachedAtMillis) {
+
+        public boolean isSessionExpired() {
+            return sessionExpiresAt != null && LocalDateTime.now().isAfter(sessionExpiresAt);
+        }
+    }
+
+    public long currentEpoch() {
+        return epoch.get();
+    }
+
+    /** Returns the cached entry for this token, or {@code null} when absent or stale. */
+    public CachedPrincipal get(String token) {
+        String key = hash(token);
+        CachedPrincipal entry = byTokenHash.get(key);
+        if (entry == null) return null;
+        long now = System.currentTimeMillis();
+        if (now - entry.cachedAtMillis() > ttlSeconds * 1000L || now >= entry.tokenExpiresAtMillis()) {
+            remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Caches the resolved principal unless an invalidation happened after
+     * {@code loadEpoch} was read.  Returns the entry either way so the caller
+     * can use it for the current request.
+     */
+    public CachedPrincipal put(String token, User user, UserSession session,
+                               long tokenExpiresAtMillis, long loadEpoch) {
+        String key = hash(token);
+        CachedPrincipal entry = new CachedPrincipal(
+                AuthPrincipal.of(user), key, session.getId(), session.getExpiresAt(),
+                tokenExpiresAtMillis, System.currentTimeMillis());
+        if (user.getId() == null || epoch.get() != loadEpoch) return entry;
+
+        if (byTokenHash.size() >= maxEntries) evict();
+        byTokenHash.put(key, entry);
+        tokenHashesByUser.computeIfAbsent(user.getId(), k -> ConcurrentHashMap.newKeySet()).add(key);
+        // Re-check: an invalidation may have raced with the insert above.
+        if (epoch.get() != loadEpoch) remove(key, entry);
+        return entry;
+    }
+
+    public void invalidateToken(String token) {
+        if (token == null) return;
+        evictToken(token);
+        realtime.closeToken(hash(token));
+        afterCompletion(() -> evictToken(token));
+    }
+
+    public void invalidateUser(Long userId) {
+        if (userId == null) return;
+        evictUser(userId);
+        realtime.closeUser(userId);
+        afterCompletion(() -> evictUser(userId));
+    }
+
+    public void invalidateAll() {
+        epoch.incrementAndGet();
+        byTokenHash.clear();
+        tokenHashesByUser.clear();
+        realtime.closeAll();
+    }
+
+    public int size() {
+        return byTokenHash.size();
+    }
+
+    private void evictToken(String token) {
+        epoch.incrementAndGet();
+        String key = hash(token);
+        CachedPrincipal entry = byTokenHash.get(key);
+        if (entry != null) remove(key, entry);
+    }
+
+    private void evictUser(Long userId) {
+        epoch.incrementAndGet();
+        Set<String> keys = tokenHashesByUser.remove(userId);
+        if (keys != null) keys.forEach(byTokenHash::remove);
+    }
+
+    /**
+     * When called inside a transaction, evict again once it finishes so a
+     * request that reloaded the pre-commit row in between doesn't keep it.
+     */
+    private void afterCompletion(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                eviction.run();
+            }
+        });
+    }
+
+    private void remove(String key, CachedPrincipal entry) {
+        if (byTokenHash.remove(key, entry)) {
+            Set<String> keys = tokenHashesByUser.get(entry.user().id());
+            if (keys != null) keys.remove(key);
+        }
+    }
+
+    /** Drop expired entries first; if still full, drop the oldest tenth. */
+    private void evict() {
+        long cutoff = System.currentTimeMillis() - ttlSeconds * 1000L;
+        byTokenHash.forEach((k, v) -> {
+            if (v.cachedAtMillis() < cutoff) remove(k, v);
+        });
+        if (byTokenHash.size() < maxEntries) return;
+        byTokenHash.entrySet().stream()
+                .sorted(Comparator.comparingLong(e -> e.getValue().cachedAtMillis()))
+                .limit(Math.max(1, maxEntries / 10))
+                .toList()
+                .forEach(e -> remove(e.getKey(), e.getValue()));
+    }
+
+    static String hash(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
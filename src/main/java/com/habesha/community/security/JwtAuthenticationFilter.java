@@ -28,84 +28,137 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
 
-    // Inject the UserRepository so we can update the lastActiveAt
-    // timestamp on each authenticated request.  This allows the
-    // platform to track online users and recent activity.
-    private final com.habesha.community.repository.UserRepository userRepository;
     private final com.habesha.community.repository.UserSessionRepository sessionRepository;
 
+    // Buffers lastActiveAt / session lastSeen so the platform can track
+    // online users without writing to the database on every request.
+    private final com.habesha.community.service.ActivityWriteBuffer activityWriteBuffer;
+
+    /**
+     * EventSource can't send headers, so the realtime stream (and only it)
+     * also accepts a single-use ticket from {@code POST /api/realtime/ticket}
+     * as a query parameter.  The bearer token is never accepted in the URL,
+     * where it would end up in access logs.
+     */
+    private static final String REALTIME_STREAM_PATH = "/api/realtime/stream";
+
+    /** Request attribute holding the SHA-256 of the session token the request was authenticated with. */
+    public static final String TOKEN_HASH_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".tokenHash";
+
+    private final com.habesha.community.service.RealtimeConnectionRegistry realtime;
+
+    // Resolved principal + session per token, so repeat requests skip the DB.
+    private final AuthPrincipalCache principalCache;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String username;
         // Check if header is present and starts with Bearer
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            jwt = authHeader.substring(7);
+        } else if (REALTIME_STREAM_PATH.equals(request.getRequestURI())
+                && request.getParameter("ticket") != null) {
+            authenticateWithTicket(request);
+            filterChain.doFilter(request, response);
+            return;
+        } else {
             filterChain.doFilter(request, response);
             return;
         }
-        jwt = authHeader.substring(7);
-        try {
-            username = jwtService.extractUsername(jwt);
-        } catch (Exception e) {
-            // Invalid token
+        if (SecurityContextHolder.getContext().getAuthentication() != null) {
             filterChain.doFilter(request, response);
             return;
         }
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-            if (jwtService.isTokenValid(jwt, userDetails)) {
-                
-                // Validate session exists and is not expired
-                var sessionOpt = sessionRepository.findByToken(jwt);
-                if (sessionOpt.isEmpty() || sessionOpt.get().isExpired()) {
-                    // Session revoked or expired - reject the token
-                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                    response.setContentType("application/json");
-                    response.getWriter().write("{\"error\":\"SESSION_REVOKED_OR_EXPIRED\"}");
-                    return;
-                }
-                
-                // Check if user account is frozen
-                com.habesha.community.model.User user = (com.habesha.community.model.User) userDetails;
-                if (Boolean.TRUE.equals(user.getFrozen())) {
-                    // Allow only reactivation endpoint for frozen accounts
-                    String requestURI = request.getRequestURI();
-                    if (!"/api/users/me/reactivate".equals(requestURI) && 
-                        !"/api/auth/logout".equals(requestURI) &&
-                        !"/api/auth/me".equals(requestURI)) {
-                        response.setStatus(423); // HTTP 423 LOCKED
-                        response.setContentType("application/json");
-                        response.getWriter().write("{\"error\":\"ACCOUNT_FROZEN\",\"message\":\"Account is frozen. Reactivate to continue.\"}");
-                        return;
-                    }
-                }
-                
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-                
-                // Update the lastActiveAt timestamp and touch the session
-                try {
-                    user.setLastActiveAt(java.time.LocalDateTime.now());
-                    userRepository.save(user);
-                    
-                    // Update session lastSeen
-                    var session = sessionOpt.get();
-                    session.setLastSeen(java.time.LocalDateTime.now());
-                    session.setIp(getClientIp(request));
-                    session.setUserAgent(getUserAgent(request));
-                    sessionRepository.save(session);
-                } catch (Exception ignore) {
-                    // Not our custom user type, ignore updating last active timestamp
-                }
+
+        AuthPrincipalCache.CachedPrincipal principal = principalCache.get(jwt);
+        if (principal == null) {
+            long loadEpoch = principalCache.currentEpoch();
+            final JwtService.ParsedToken parsed;
+            try {
+                // Signature is verified exactly once per token here
+                parsed = jwtService.parse(jwt);
+            } catch (Exception e) {
+                // Invalid token
+                filterChain.doFilter(request, response);
+                return;
+            }
+            if (parsed.subject() == null) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+            UserDetails userDetails = this.userDetailsService.loadUserByUsername(parsed.subject());
+            if (!jwtService.isTokenValid(parsed, userDetails)) {
+                filterChain.doFilter(request, response);
+                return;
             }
+
+            // Validate session exists and is not expired
+            var sessionOpt = sessionRepository.findByToken(jwt);
+            if (sessionOpt.isEmpty() || sessionOpt.get().isExpired()) {
+                writeSessionRevoked(response);
+                return;
+            }
+            principal = principalCache.put(jwt, (com.habesha.community.model.User) userDetails, sessionOpt.get(),
+                    parsed.expiration() != null ? parsed.expiration().getTime() : Long.MAX_VALUE, loadEpoch);
+        } else if (principal.isSessionExpired()) {
+            principalCache.invalidateToken(jwt);
+            writeSessionRevoked(response);
+            return;
         }
+
+        // Check if user account is frozen
+        AuthPrincipal user = principal.user();
+        if (user.frozen()) {
+            // Allow only reactivation endpoint for frozen accounts
+            String requestURI = request.getRequestURI();
+            if (!"/api/users/me/reactivate".equals(requestURI) &&
+                !"/api/auth/logout".equals(requestURI) &&
+                !"/auth/logout".equals(requestURI) &&
+                !"/api/auth/me".equals(requestURI)) {
+                response.setStatus(423); // HTTP 423 LOCKED
+                response.setContentType("application/json");
+                response.getWriter().write("{\"error\":\"ACCOUNT_FROZEN\",\"message\":\"Account is frozen. Reactivate to continue.\"}");
+                return;
+            }
+        }
+
+        authenticate(request, user, principal.tokenHash());
+
+        // Record the lastActiveAt timestamp and touch the session.  The
+        // buffer flushes column-level updates by id.
+        java.time.LocalDateTime now = java.time.LocalDateTime.now();
+        activityWriteBuffer.touchUser(user.id(), now);
+        activityWriteBuffer.touchSession(principal.sessionId(), now, getClientIp(request), getUserAgent(request));
         filterChain.doFilter(request, response);
     }
-    
+
+    /**
+     * Redeem a stream ticket.  Tickets of a revoked session or user are
+     * dropped when it is invalidated, so a live ticket is still good.
+     */
+    private void authenticateWithTicket(HttpServletRequest request) {
+        var ticket = realtime.redeemTicket(request.getParameter("ticket"));
+        if (ticket == null || SecurityContextHolder.getContext().getAuthentication() != null) return;
+        authenticate(request, ticket.principal(), ticket.tokenHash());
+    }
+
+    private void authenticate(HttpServletRequest request, AuthPrincipal user, String tokenHash) {
+        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                user, null, user.getAuthorities());
+        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+        request.setAttribute(TOKEN_HASH_ATTRIBUTE, tokenHash);
+    }
+
+    private void writeSessionRevoked(HttpServletResponse response) throws IOException {
+        // Session revoked or expired - reject the token
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\":\"SESSION_REVOKED_OR_EXPIRED\"}");
+    }
+
     private String getClientIp(HttpServletRequest request) {
         String xForwardedFor = request.getHeader("X-Forwarded-For");
         if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
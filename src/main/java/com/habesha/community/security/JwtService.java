@@ -1,6 +1,8 @@
 package com.habesha.community.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
@@ -11,6 +13,7 @@ import org.springframework.stereotype.Service;
 import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -32,6 +35,35 @@ public class JwtService {
     @Value("${jwt.secret}")
     private String secret;
 
+    /** Capacity of the recently-verified token LRU. */
+    private static final int VERIFIED_CACHE_SIZE = 1024;
+
+    /** Decoded once at startup; the secret never changes at runtime. */
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    /**
+     * Recently verified tokens (by SHA-256 of the compact form) mapped to
+     * their claims, so hot tokens skip Base64/JSON decoding and HMAC
+     * verification.  Only tokens that passed signature checks get in.
+     */
+    private final Map<String, ParsedToken> verifiedTokens =
+            new LinkedHashMap<>(VERIFIED_CACHE_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ParsedToken> eldest) {
+                    return size() > VERIFIED_CACHE_SIZE;
+                }
+            };
+
+    /**
+     * Immutable view of the claims the application actually uses.
+     */
+    public record ParsedToken(String subject, Date expiration, Date issuedAt) {
+        public boolean isExpired() {
+            return expiration != null && expiration.before(new Date());
+        }
+    }
+
     @jakarta.annotation.PostConstruct
     public void validateSecret() {
         if (secret == null || secret.isBlank()) {
@@ -45,13 +77,40 @@ public class JwtService {
         } catch (IllegalArgumentException e) {
             throw new IllegalStateException("JWT_SECRET is not valid Base64. Please provide a valid Base64-encoded secret key.", e);
         }
+        signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        parser = Jwts.parser().verifyWith(signingKey).build();
+    }
+
+    /**
+     * Verifies the token signature (once) and returns its claims.  Throws
+     * the usual {@code JwtException} subtypes for malformed, tampered or
+     * expired tokens.
+     */
+    public ParsedToken parse(String token) {
+        String key = AuthPrincipalCache.hash(token);
+        ParsedToken cached;
+        synchronized (verifiedTokens) {
+            cached = verifiedTokens.get(key);
+        }
+        if (cached != null) {
+            if (!cached.isExpired()) return cached;
+            synchronized (verifiedTokens) {
+                verifiedTokens.remove(key);
+            }
+        }
+        Claims claims = extractAllClaims(token);
+        ParsedToken parsed = new ParsedToken(claims.getSubject(), claims.getExpiration(), claims.getIssuedAt());
+        synchronized (verifiedTokens) {
+            verifiedTokens.put(key, parsed);
+        }
+        return parsed;
     }
 
     /**
      * Extracts the user name (in our case email) from the token.
      */
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return parse(token).subject();
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
@@ -75,33 +134,29 @@ public class JwtService {
                 .subject(userDetails.getUsername())
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        try {
+            return isTokenValid(parse(token), userDetails);
+        } catch (ExpiredJwtException e) {
+            return false;
+        }
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public boolean isTokenValid(ParsedToken token, UserDetails userDetails) {
+        return token.subject() != null
+                && token.subject().equals(userDetails.getUsername())
+                && !token.isExpired();
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    public Date extractExpiration(String token) {
+        return parse(token).expiration();
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-    }
-
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return parser.parseSignedClaims(token).getPayload();
     }
 }
\ No newline at end of file
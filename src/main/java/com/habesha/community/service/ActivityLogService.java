@@ -0,0 +1,197 @@
+package com.habesha.community.service;
+
+import com.habesha.community.model.*;
+import com.habesha.community.repository.ActivityEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Append-only fan-out log behind the activity feed and the "new
+ * interactions" badge.  Domain services call the hooks below inside their
+ * own transaction, so an entry exists exactly when the row that caused it
+ * does; deletes of that row remove the entry.  Reads are a single
+ * {@code (user_id, created_at desc)} range scan.
+ *
+ * Entries older than the retention window, and anything beyond each
+ * user's newest {@code max-per-user}, are compacted nightly.  If the log
+ * drifts (or after changing retention), {@link #rebuildAll()} re-derives it
+ * from the source tables.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ActivityLogService {
+
+    /** Types counted by the "new interactions on my ads" badge. */
+    public static final List<ActivityType> AD_INTERACTIONS =
+            List.of(ActivityType.AD_LIKED, ActivityType.AD_COMMENTED);
+
+    private final ActivityEventRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final CountsService countsService;
+
+    @Value("${app.activity.log.retention-days:180}")
+    private int retentionDays = 180;
+
+    @Value("${app.activity.log.max-per-user:1000}")
+    private int maxPerUser = 1000;
+
+    /* ------------------------------- reads -------------------------------- */
+
+    /** The user's newest entries strictly before {@code before}. */
+    @Transactional(readOnly = true)
+    public List<ActivityEvent> feed(Long userId, LocalDateTime before, int limit) {
+        return repository.findFeed(userId, before, PageRequest.of(0, Math.max(limit, 1)));
+    }
+
+    @Transactional(readOnly = true)
+    public long countSince(Long userId, Collection<ActivityType> types, LocalDateTime since) {
+        return repository.countSince(userId, types, since);
+    }
+
+    /* ------------------------------- writes ------------------------------- */
+
+    @Transactional
+    public void append(Long userId, ActivityType type, Long sourceId, Long entityId, Long actorId,
+                       String text, String detail, LocalDateTime at) {
+        if (userId == null || sourceId == null) return;
+        int inserted = repository.append(userId, type.name(), sourceId, entityId, actorId,
+                clip(text), clip(detail), at != null ? at : LocalDateTime.now());
+        if (inserted > 0 && AD_INTERACTIONS.contains(type)) {
+            countsService.adjust(userId, CountsService.NEW_INTERACTIONS, 1);
+        }
+    }
+
+    /** An event, service, rental or travel post was created by its owner. */
+    @Transactional
+    public void listingCreated(ActivityType type, Long ownerId, Long listingId, String title, LocalDateTime at) {
+        append(ownerId, type, listingId, listingId, ownerId, title, null, at);
+    }
+
+    @Transactional
+    public void listingRetitled(ActivityType type, Long listingId, String title) {
+        if (listingId == null) return;
+        repository.updateText(type, listingId, clip(title));
+    }
+
+    @Transactional
+    public void listingRemoved(ActivityType type, Long listingId) {
+        if (listingId == null) return;
+        repository.deleteBySource(type, listingId);
+    }
+
+    @Transactional
+    public void adLiked(AdLike like) {
+        ClassifiedAd ad = like.getAd();
+        if (ad == null || ad.getPoster() == null) return;
+        append(ad.getPoster().getId(), ActivityType.AD_LIKED, like.getId(), ad.getId(),
+                like.getUser() != null ? like.getUser().getId() : null,
+                ad.getTitle(), null, like.getCreatedAt());
+    }
+
+    @Transactional
+    public void adUnliked(ClassifiedAd ad, Long userId) {
+        if (repository.deleteByEntityAndActor(ActivityType.AD_LIKED, ad.getId(), userId) > 0
+                && ad.getPoster() != null) {
+            countsService.invalidate(ad.getPoster().getId());
+        }
+    }
+
+    @Transactional
+    public void adCommented(AdComment comment) {
+        ClassifiedAd ad = comment.getAd();
+        if (ad == null || ad.getPoster() == null) return;
+        append(ad.getPoster().getId(), ActivityType.AD_COMMENTED, comment.getId(), ad.getId(),
+                comment.getAuthor() != null ? comment.getAuthor().getId() : null,
+                comment.getText(), ad.getTitle(), comment.getCreatedAt());
+    }
+
+    @Transactional
+    public void adCommentEdited(Long commentId, String text) {
+        repository.updateText(ActivityType.AD_COMMENTED, commentId, clip(text));
+    }
+
+    @Transactional
+    public void adCommentRemoved(AdComment comment) {
+        if (repository.deleteBySource(ActivityType.AD_COMMENTED, comment.getId()) > 0
+                && comment.getAd() != null && comment.getAd().getPoster() != null) {
+            countsService.invalidate(comment.getAd().getPoster().getId());
+        }
+    }
+
+    /** The ad is gone, and with it every like and comment on it.  {@code posterId} may be null if unknown. */
+    @Transactional
+    public void adRemoved(Long adId, Long posterId) {
+        if (adId == null) return;
+        if (repository.deleteByEntity(AD_INTERACTIONS, adId) > 0 && posterId != null) {
+            countsService.invalidate(posterId);
+        }
+    }
+
+    /** Both sides of an accepted request get an entry naming the other. */
+    @Transactional
+    public void friendAccepted(FriendRequest request) {
+        User sender = request.getSender();
+        User receiver = request.getReceiver();
+        append(sender.getId(), ActivityType.FRIEND_ACCEPTED, request.getId(), request.getId(),
+                receiver.getId(), receiver.getUsername(), null, request.getCreatedAt());
+        append(receiver.getId(), ActivityType.FRIEND_ACCEPTED, request.getId(), request.getId(),
+                sender.getId(), sender.getUsername(), null, request.getCreatedAt());
+    }
+
+    @Transactional
+    public void friendRemoved(Long requestId) {
+        repository.deleteBySource(ActivityType.FRIEND_ACCEPTED, requestId);
+    }
+
+    @Transactional
+    public void messageReceived(Message message) {
+        append(message.getRecipient().getId(), ActivityType.MESSAGE_RECEIVED, message.getId(), message.getId(),
+                message.getSender().getId(), message.getContent(), null, message.getSentAt());
+    }
+
+    /* ---------------------------- maintenance ----------------------------- */
+
+    /** Drop entries past the retention window and each user's overflow. */
+    @Scheduled(cron = "${app.activity.log.compaction-cron:0 30 3 * * *}")
+    @Transactional
+    public void compact() {
+        int expired = repository.deleteOlderThan(LocalDateTime.now().minusDays(retentionDays));
+        int trimmed = repository.trimPerUser(maxPerUser);
+        log.info("Activity log compaction removed {} expired and {} overflow entries", expired, trimmed);
+    }
+
+    /** Re-derive the whole log from the source tables, then compact it. */
+    @Transactional
+    public int rebuildAll() {
+        jdbcTemplate.update("DELETE FROM activity_event");
+        // rebuild_activity_event (V20) holds the derivation, shared with the backfill
+        Integer rows = jdbcTemplate.queryForObject("SELECT rebuild_activity_event(?)", Integer.class,
+                Timestamp.valueOf(LocalDateTime.now().minusDays(retentionDays)));
+        int trimmed = repository.trimPerUser(maxPerUser);
+        log.info("Rebuilt activity log: {} entries ({} trimmed over the per-user cap)", rows, trimmed);
+        return (rows != null ? rows : 0) - trimmed;
+    }
+
+    /** Travel posts are titled by their route. */
+    public static String travelTitle(String originCity, String destinationCity) {
+        return (originCity != null ? originCity : "From")
+                + " → "
+                + (destinationCity != null ? destinationCity : "To");
+    }
+
+    private static String clip(String s) {
+        return s != null && s.length() > ActivityEvent.MAX_TEXT ? s.substring(0, ActivityEvent.MAX_TEXT) : s;
+    }
+}
@@ -1,18 +1,22 @@
 package com.habesha.community.service;
 
 import com.habesha.community.dto.ActivityItemDto;
+import com.habesha.community.dto.ActivitySourceRow;
+import com.habesha.community.dto.UserSummaryDto;
 import com.habesha.community.model.*;
 import com.habesha.community.repository.*;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Supplier;
 
 /**
  * Service responsible for assembling a recent activity feed for the
@@ -21,12 +25,28 @@ import java.util.Optional;
  * requests, incoming messages, and inbound interactions on the user's ads
  * (likes & comments). Results are ordered by descending timestamp and
  * filtered by an optional cutoff.
+ *
+ * By default a page is one range scan over the user's entries in the
+ * activity log ({@link ActivityLogService}).  With
+ * {@code app.activity.feed.source=merge} the feed is instead derived live:
+ * each source returns at most {@code limit} rows older than the cursor
+ * through an owner-scoped query on a (owner, created_at) index, and the
+ * already-sorted lists are merged with a bounded k-way heap merge.  Sources
+ * run outside a shared transaction so one failing source is simply skipped.
+ * Either way, actor summaries are resolved in one batch.
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ActivityService {
 
+    public static final int MAX_LIMIT = 100;
+
+    /** Cursor used when the caller does not pass {@code before}; avoids nullable query parameters. */
+    private static final LocalDateTime NO_CURSOR = LocalDateTime.of(9999, 12, 31, 0, 0);
+
     private final UserService userService;
+    private final ActivityLogService activityLogService;
 
     private final EventRepository eventRepository;
     private final ServiceOfferRepository serviceOfferRepository;
@@ -35,10 +55,25 @@ public class ActivityService {
     private final FriendRequestRepository friendRequestRepository;
     private final MessageRepository messageRepository;
 
-    // NEW: inbound interactions on my ads
+    // inbound interactions on my ads
     private final AdLikeRepository adLikeRepository;
     private final AdCommentRepository adCommentRepository;
 
+    /** "log" (default) reads the activity log; "merge" rebuilds the page from the source tables. */
+    @Value("${app.activity.feed.source:log}")
+    private String feedSource = "log";
+
+    /** Head-of-list cursor for the merge heap. */
+    private record Cursor(ActivityType source, List<ActivitySourceRow> rows, int index) {
+        ActivitySourceRow head() {
+            return rows.get(index);
+        }
+    }
+
+    private static final Comparator<Cursor> NEWEST_FIRST = Comparator
+            .comparing((Cursor c) -> c.head().getCreatedAt(), Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(c -> c.head().getRowId(), Comparator.nullsLast(Comparator.reverseOrder()));
+
     /**
      * Returns a list of recent activity items for the current user.
      *
@@ -47,217 +82,93 @@ public class ActivityService {
      */
     public List<ActivityItemDto> getRecentActivity(int limit, Instant before) {
         Optional<User> maybeUser = userService.getCurrentUser();
-        if (maybeUser.isEmpty()) {
+        if (maybeUser.isEmpty() || limit <= 0) {
             return List.of();
         }
-        User me = maybeUser.get();
-        Long myId = me.getId();
-        List<ActivityItemDto> items = new ArrayList<>();
-
-        // Events created by me
-        try {
-            List<Event> myEvents = eventRepository.findAll(); // if you have findByOrganizer_Id(myId), prefer that
-            for (Event e : myEvents) {
-                if (e.getOrganizer() != null && e.getOrganizer().getId().equals(myId)) {
-                    ActivityItemDto dto = new ActivityItemDto();
-                    dto.setId("evt_" + e.getId());
-                    dto.setType("EVENT_CREATED");
-                    dto.setActor(userService.toSummary(me));
-                    dto.setEntityType("event");
-                    dto.setEntityId(e.getId());
-                    dto.setTitle(e.getTitle());
-                    LocalDateTime created = e.getCreatedAt();
-                    dto.setCreatedAt(created != null ? created.atZone(ZoneId.systemDefault()).toInstant() : null);
-                    items.add(dto);
-                }
-            }
-        } catch (Exception ignored) {}
-
-        // Services created by me
-        try {
-            List<ServiceOffer> offers = serviceOfferRepository.findByProvider_Id(myId);
-            for (ServiceOffer o : offers) {
-                ActivityItemDto dto = new ActivityItemDto();
-                dto.setId("svc_" + o.getId());
-                dto.setType("SERVICE_CREATED");
-                dto.setActor(userService.toSummary(me));
-                dto.setEntityType("service");
-                dto.setEntityId(o.getId());
-                dto.setTitle(o.getTitle());
-                LocalDateTime created = o.getCreatedAt();
-                dto.setCreatedAt(created != null ? created.atZone(ZoneId.systemDefault()).toInstant() : null);
-                items.add(dto);
-            }
-        } catch (Exception ignored) {}
-
-        // Rentals created by me
-        try {
-            List<Rental> rentals = rentalRepository.findByOwner_Id(myId);
-            for (Rental r : rentals) {
-                ActivityItemDto dto = new ActivityItemDto();
-                dto.setId("rent_" + r.getId());
-                dto.setType("RENTAL_CREATED");
-                dto.setActor(userService.toSummary(me));
-                dto.setEntityType("rental");
-                dto.setEntityId(r.getId());
-                dto.setTitle(r.getTitle());
-                LocalDateTime created = r.getCreatedAt();
-                dto.setCreatedAt(created != null ? created.atZone(ZoneId.systemDefault()).toInstant() : null);
-                items.add(dto);
-            }
-        } catch (Exception ignored) {}
-
-        // Travel posts created by me
-        try {
-            List<TravelPost> travels = travelPostRepository.findAll(); // if you have findByUser_Id(myId), prefer that
-            for (TravelPost t : travels) {
-                if (t.getUser() != null && t.getUser().getId().equals(myId)) {
-                    ActivityItemDto dto = new ActivityItemDto();
-                    dto.setId("trav_" + t.getId());
-                    dto.setType("TRAVEL_POSTED");
-                    dto.setActor(userService.toSummary(me));
-                    dto.setEntityType("travel");
-                    dto.setEntityId(t.getId());
-                    String title = (t.getOriginCity() != null ? t.getOriginCity() : "From")
-                            + " → "
-                            + (t.getDestinationCity() != null ? t.getDestinationCity() : "To");
-                    dto.setTitle(title);
-                    LocalDateTime created = t.getCreatedAt();
-                    dto.setCreatedAt(created != null ? created.atZone(ZoneId.systemDefault()).toInstant() : null);
-                    items.add(dto);
-                }
-            }
-        } catch (Exception ignored) {}
-
-        // Friend acceptances involving me
-        try {
-            List<FriendRequest> frs = friendRequestRepository
-                    .findBySenderOrReceiverAndStatus(me, me, FriendRequestStatus.ACCEPTED);
-            for (FriendRequest fr : frs) {
-                User other = fr.getSender().getId().equals(myId) ? fr.getReceiver() : fr.getSender();
-                ActivityItemDto dto = new ActivityItemDto();
-                dto.setId("friend_" + fr.getId());
-                dto.setType("FRIEND_ACCEPTED");
-                dto.setActor(userService.toSummary(other));
-                dto.setEntityType("friend");
-                dto.setEntityId(fr.getId());
-                dto.setTitle("Friendship with " + (other != null ? other.getUsername() : "someone"));
-                LocalDateTime created = fr.getCreatedAt();
-                dto.setCreatedAt(created != null ? created.atZone(ZoneId.systemDefault()).toInstant() : null);
-                items.add(dto);
-            }
-        } catch (Exception ignored) {}
-
-        // Messages received by me (show recent inbound)
-        try {
-            List<Message> msgs = messageRepository.findRecentMessagesForUser(myId);
-            for (Message m : msgs) {
-                if (m.getRecipient() != null && m.getRecipient().getId().equals(myId)) {
-                    ActivityItemDto dto = new ActivityItemDto();
-                    dto.setId("msg_" + m.getId());
-                    dto.setType("MESSAGE_RECEIVED");
-                    dto.setActor(userService.toSummary(m.getSender()));
-                    dto.setEntityType("message");
-                    dto.setEntityId(m.getId());
-                    String text = m.getContent();
-                    if (text != null && text.length() > 50) {
-                        text = text.substring(0, 47) + "…";
-                    }
-                    dto.setTitle(text != null ? text : "New message");
-                    LocalDateTime sent = m.getSentAt();
-                    dto.setCreatedAt(sent != null ? sent.atZone(ZoneId.systemDefault()).toInstant() : null);
-                    items.add(dto);
-                }
-            }
-        } catch (Exception ignored) {}
-
-        // =====================================================================
-        // NEW: inbound interactions on *my* ads (likes & comments)
-        // =====================================================================
-
-        // Likes on my ads
-        try {
-            List<AdLike> likes = adLikeRepository
-                    .findTop50ByAd_Poster_IdOrderByCreatedAtDesc(myId);
-
-            for (AdLike like : likes) {
-                if (like == null || like.getAd() == null) continue;
-
-                ActivityItemDto dto = new ActivityItemDto();
-                dto.setId("adlike_" + like.getId());
-                dto.setType("AD_LIKED");
-                // actor: the user who liked
-                User liker = like.getUser(); // adjust to like.getLiker() if your model uses that name
-                dto.setActor(liker != null ? userService.toSummary(liker) : null);
-
-                dto.setEntityType("ad");
-                dto.setEntityId(like.getAd().getId());
+        Long myId = maybeUser.get().getId();
+        int size = Math.min(limit, MAX_LIMIT);
+        LocalDateTime cursor = before != null
+                ? LocalDateTime.ofInstant(before, ZoneId.systemDefault())
+                : NO_CURSOR;
+        List<Map.Entry<ActivityType, ActivitySourceRow>> page = "merge".equalsIgnoreCase(feedSource)
+                ? mergeSources(myId, cursor, size)
+                : readLog(myId, cursor, size);
+
+        // actors for the page, resolved in one batch
+        Set<Long> actorIds = new HashSet<>();
+        for (Map.Entry<ActivityType, ActivitySourceRow> e : page) {
+            if (e.getValue().getActorId() != null) actorIds.add(e.getValue().getActorId());
+        }
+        Map<Long, UserSummaryDto> actors = actorIds.isEmpty()
+                ? Map.of()
+                : userService.toSummariesByIds(actorIds);
 
-                String adTitle = like.getAd().getTitle();
-                dto.setTitle(adTitle != null ? "liked your ad: " + adTitle : "liked your ad");
+        List<ActivityItemDto> items = new ArrayList<>(page.size());
+        for (Map.Entry<ActivityType, ActivitySourceRow> e : page) {
+            items.add(toItem(e.getKey(), e.getValue(), actors));
+        }
+        return items;
+    }
 
-                LocalDateTime created = like.getCreatedAt();
-                dto.setCreatedAt(created != null
-                        ? created.atZone(ZoneId.systemDefault()).toInstant()
-                        : null);
+    private List<Map.Entry<ActivityType, ActivitySourceRow>> readLog(Long myId, LocalDateTime cursor, int size) {
+        List<Map.Entry<ActivityType, ActivitySourceRow>> page = new ArrayList<>(size);
+        for (ActivityEvent e : activityLogService.feed(myId, cursor, size)) {
+            page.add(Map.entry(e.getType(), new ActivitySourceRow(
+                    e.getSourceId(), e.getEntityId(), e.getText(), e.getCreatedAt(), e.getActorId(), e.getDetail())));
+        }
+        return page;
+    }
 
-                items.add(dto);
+    private List<Map.Entry<ActivityType, ActivitySourceRow>> mergeSources(Long myId, LocalDateTime cursor, int size) {
+        Pageable top = PageRequest.of(0, size);
+
+        Map<ActivityType, List<ActivitySourceRow>> sources = new EnumMap<>(ActivityType.class);
+        sources.put(ActivityType.EVENT_CREATED, fetch(ActivityType.EVENT_CREATED, () -> eventRepository.findActivityRows(myId, cursor, top)));
+        sources.put(ActivityType.SERVICE_CREATED, fetch(ActivityType.SERVICE_CREATED, () -> serviceOfferRepository.findActivityRows(myId, cursor, top)));
+        sources.put(ActivityType.RENTAL_CREATED, fetch(ActivityType.RENTAL_CREATED, () -> rentalRepository.findActivityRows(myId, cursor, top)));
+        sources.put(ActivityType.TRAVEL_POSTED, fetch(ActivityType.TRAVEL_POSTED, () -> travelPostRepository.findActivityRows(myId, cursor, top)));
+        sources.put(ActivityType.FRIEND_ACCEPTED, fetch(ActivityType.FRIEND_ACCEPTED, () -> friendRequestRepository
+                .findActivityRows(myId, FriendRequestStatus.ACCEPTED, cursor, top)));
+        sources.put(ActivityType.MESSAGE_RECEIVED, fetch(ActivityType.MESSAGE_RECEIVED, () -> messageRepository.findActivityRows(myId, cursor, top)));
+        sources.put(ActivityType.AD_LIKED, fetch(ActivityType.AD_LIKED, () -> adLikeRepository.findActivityRows(myId, cursor, top)));
+        sources.put(ActivityType.AD_COMMENTED, fetch(ActivityType.AD_COMMENTED, () -> adCommentRepository.findActivityRows(myId, cursor, top)));
+
+        // k-way merge of the per-source lists (each already newest-first)
+        PriorityQueue<Cursor> heap = new PriorityQueue<>(ActivityType.values().length, NEWEST_FIRST);
+        sources.forEach((source, rows) -> {
+            if (!rows.isEmpty()) heap.add(new Cursor(source, rows, 0));
+        });
+        List<Map.Entry<ActivityType, ActivitySourceRow>> merged = new ArrayList<>(size);
+        while (!heap.isEmpty() && merged.size() < size) {
+            Cursor c = heap.poll();
+            merged.add(Map.entry(c.source(), c.head()));
+            if (c.index() + 1 < c.rows().size()) {
+                heap.add(new Cursor(c.source(), c.rows(), c.index() + 1));
             }
-        } catch (Exception ignored) {}
+        }
+        return merged;
+    }
 
-        // Comments on my ads
+    private List<ActivitySourceRow> fetch(ActivityType source, Supplier<List<ActivitySourceRow>> query) {
         try {
-            List<AdComment> comments = adCommentRepository
-                    .findTop50ByAd_Poster_IdOrderByCreatedAtDesc(myId);
-
-            for (AdComment c : comments) {
-                if (c == null || c.getAd() == null) continue;
-
-                ActivityItemDto dto = new ActivityItemDto();
-                dto.setId("adcomment_" + c.getId());
-                dto.setType("AD_COMMENTED");
-
-                // actor: the user who commented
-                User author = c.getAuthor(); // adjust to c.getUser() if your model uses that name
-                dto.setActor(author != null ? userService.toSummary(author) : null);
-
-                dto.setEntityType("ad");
-                dto.setEntityId(c.getAd().getId());
-
-                String preview = c.getText();
-                if (preview != null && preview.length() > 70) {
-                    preview = preview.substring(0, 67) + "…";
-                }
-                String adTitle = c.getAd().getTitle();
-                dto.setTitle(preview != null && !preview.isBlank()
-                        ? preview
-                        : (adTitle != null ? "commented on your ad: " + adTitle : "commented on your ad"));
-
-                LocalDateTime created = c.getCreatedAt();
-                dto.setCreatedAt(created != null
-                        ? created.atZone(ZoneId.systemDefault()).toInstant()
-                        : null);
-
-                items.add(dto);
-            }
-        } catch (Exception ignored) {}
-
-        // ---------------------------------------------------------------------
-
-        // Apply 'before' filter
-        if (before != null) {
-            items.removeIf(i -> i.getCreatedAt() != null && !i.getCreatedAt().isBefore(before));
+            List<ActivitySourceRow> rows = query.get();
+            return rows != null ? rows : List.of();
+        } catch (Exception e) {
+            log.debug("Activity source {} failed: {}", source, e.getMessage());
+            return List.of();
         }
+    }
 
-        // Sort descending by createdAt (nulls last)
-        items.sort(Comparator
-                .comparing(ActivityItemDto::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder()))
-                .reversed());
-
-        // Trim to limit
-        if (items.size() > limit) {
-            return new ArrayList<>(items.subList(0, limit));
-        }
-        return items;
+    private ActivityItemDto toItem(ActivityType type, ActivitySourceRow row, Map<Long, UserSummaryDto> actors) {
+        ActivityItemDto dto = new ActivityItemDto();
+        dto.setId(type.getIdPrefix() + row.getRowId());
+        dto.setType(type.name());
+        dto.setActor(row.getActorId() != null ? actors.get(row.getActorId()) : null);
+        dto.setEntityType(type.getEntityType());
+        dto.setEntityId(row.getEntityId());
+        dto.setTitle(type.title(row.getText(), row.getDetail()));
+        LocalDateTime created = row.getCreatedAt();
+        dto.setCreatedAt(created != null ? created.atZone(ZoneId.systemDefault()).toInstant() : null);
+        return dto;
     }
 }
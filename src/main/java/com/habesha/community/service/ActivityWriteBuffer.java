@@ -0,0 +1,136 @@
+package com.habesha.community.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coalescing write-behind buffer for the "last activity" columns that the
+ * JWT filter bumps on every authenticated request.
+ *
+ * Touches are held in memory (latest value per user / per session wins) and
+ * flushed every few seconds as one {@code UPDATE ... FROM (VALUES ...)} per
+ * table that only writes those columns.  Losing a buffered touch on a crash
+ * costs at most one flush interval of "last seen" precision.
+ */
+@Slf4j
+@Service
+public class ActivityWriteBuffer {
+
+    /** Rows per UPDATE statement; keeps bind-parameter counts well under driver limits. */
+    private static final int CHUNK_SIZE = 500;
+
+    private record SessionTouch(LocalDateTime lastSeen, String ip, String userAgent) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, LocalDateTime> userTouches = new ConcurrentHashMap<>();
+    private final Map<Long, SessionTouch> sessionTouches = new ConcurrentHashMap<>();
+
+    @Value("${app.activity.write-behind.enabled:true}")
+    private boolean enabled = true;
+
+    public ActivityWriteBuffer(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        Gauge.builder("habesha.activity.buffer.depth", this, ActivityWriteBuffer::depth)
+                .description("Pending lastActiveAt/lastSeen touches awaiting flush")
+                .register(meterRegistry);
+    }
+
+    public void touchUser(Long userId, LocalDateTime at) {
+        if (userId == null || at == null) return;
+        userTouches.merge(userId, at, (a, b) -> a.isAfter(b) ? a : b);
+        if (!enabled) flush();
+    }
+
+    public void touchSession(Long sessionId, LocalDateTime lastSeen, String ip, String userAgent) {
+        if (sessionId == null || lastSeen == null) return;
+        sessionTouches.put(sessionId, new SessionTouch(lastSeen, ip, userAgent));
+        if (!enabled) flush();
+    }
+
+    public int depth() {
+        return userTouches.size() + sessionTouches.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.activity.write-behind.flush-interval-ms:5000}")
+    public void flush() {
+        try {
+            flushUsers();
+        } catch (Exception e) {
+            log.warn("Failed to flush user activity touches: {}", e.getMessage());
+        }
+        try {
+            flushSessions();
+        } catch (Exception e) {
+            log.warn("Failed to flush session touches: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("Flushing {} pending activity touches before shutdown", depth());
+        flush();
+    }
+
+    private void flushUsers() {
+        List<Object[]> rows = new ArrayList<>();
+        for (Long id : userTouches.keySet()) {
+            LocalDateTime at = userTouches.remove(id);
+            if (at != null) rows.add(new Object[]{id, Timestamp.valueOf(at)});
+        }
+        for (int from = 0; from < rows.size(); from += CHUNK_SIZE) {
+            List<Object[]> chunk = rows.subList(from, Math.min(from + CHUNK_SIZE, rows.size()));
+            String sql = "UPDATE users u SET last_active_at = v.at"
+                    + " FROM (VALUES " + placeholders(chunk.size(), "(CAST(? AS bigint), CAST(? AS timestamp))")
+                    + ") AS v(id, at)"
+                    + " WHERE u.id = v.id AND (u.last_active_at IS NULL OR u.last_active_at < v.at)";
+            jdbcTemplate.update(sql, flatten(chunk));
+        }
+    }
+
+    private void flushSessions() {
+        List<Object[]> rows = new ArrayList<>();
+        for (Long id : sessionTouches.keySet()) {
+            SessionTouch t = sessionTouches.remove(id);
+            if (t != null) rows.add(new Object[]{id, Timestamp.valueOf(t.lastSeen()), t.ip(), t.userAgent()});
+        }
+        for (int from = 0; from < rows.size(); from += CHUNK_SIZE) {
+            List<Object[]> chunk = rows.subList(from, Math.min(from + CHUNK_SIZE, rows.size()));
+            String sql = "UPDATE user_sessions s SET last_seen = v.seen, ip = v.ip, user_agent = v.ua"
+                    + " FROM (VALUES " + placeholders(chunk.size(),
+                            "(CAST(? AS bigint), CAST(? AS timestamp), CAST(? AS varchar), CAST(? AS varchar))")
+                    + ") AS v(id, seen, ip, ua)"
+                    + " WHERE s.id = v.id AND s.last_seen < v.seen";
+            jdbcTemplate.update(sql, flatten(chunk));
+        }
+    }
+
+    private static String placeholders(int rows, String tuple) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(tuple);
+        }
+        return sb.toString();
+    }
+
+    private static Object[] flatten(List<Object[]> rows) {
+        List<Object> args = new ArrayList<>();
+        for (Object[] row : rows) {
+            for (Object o : row) args.add(o);
+        }
+        return args.toArray();
+    }
+}
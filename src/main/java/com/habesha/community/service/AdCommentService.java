@@ -27,6 +27,7 @@ public class AdCommentService {
     private final AdCommentRepository adCommentRepo;
     private final ClassifiedAdRepository adRepo;
     private final UserRepository userRepo;
+    private final ActivityLogService activityLogService;
 
     /** helper: current logged-in user */
     private User getCurrentUserOrThrow() {
@@ -51,6 +52,7 @@ public class AdCommentService {
                 .build();
 
         adCommentRepo.save(entity);
+        activityLogService.adCommented(entity);
         return toDto(entity, author);
     }
 
@@ -74,6 +76,7 @@ public class AdCommentService {
                 .build();
 
         adCommentRepo.save(reply);
+        activityLogService.adCommented(reply);
         return toDto(reply, author);
     }
 
@@ -91,6 +94,7 @@ public class AdCommentService {
         }
 
         c.setText(req.getText());
+        activityLogService.adCommentEdited(c.getId(), c.getText());
         // @PreUpdate will set updatedAt
         return toDto(c, me);
     }
@@ -109,6 +113,7 @@ public class AdCommentService {
         }
 
         adCommentRepo.delete(c);
+        activityLogService.adCommentRemoved(c);
     }
 
     /** READ thread (top-level comments + nested replies) */
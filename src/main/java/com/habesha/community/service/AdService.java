@@ -1,5 +1,6 @@
 package com.habesha.community.service;
 
+import com.habesha.community.dto.AdCardDto;
 import com.habesha.community.dto.AdDetailsDto;
 import com.habesha.community.dto.ClassifiedAdRequest;
 import com.habesha.community.model.AdLike;
@@ -9,15 +10,24 @@ import com.habesha.community.model.User;
 import com.habesha.community.repository.AdCommentRepository;
 import com.habesha.community.repository.AdLikeRepository;
 import com.habesha.community.repository.ClassifiedAdRepository;
+import com.habesha.community.repository.LikePatterns;
 import com.habesha.community.repository.UserRepository;
+import com.habesha.community.security.AuthPrincipal;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
 
 /**
  * Service for creating, reading, updating, deleting and reacting to
@@ -31,12 +41,15 @@ public class AdService {
     private final UserRepository userRepository;
     private final AdLikeRepository adLikeRepository;
     private final AdCommentRepository adCommentRepository;
+    private final ActivityLogService activityLogService;
+    private final UserStatsService userStatsService;
+    private final JdbcTemplate jdbcTemplate;
 
     /* ==========================================================
        AUTH HELPERS
        ----------------------------------------------------------
        getCurrentUser()        -> throws if not logged in
-       getCurrentUserOrNull()  -> returns null if anonymous
+       currentUserIdOrNull()   -> viewer id, null if anonymous
        We use email as principal (UserDetails#getUsername() = email)
        ========================================================== */
 
@@ -54,14 +67,12 @@ public class AdService {
     }
 
     /**
-     * Same as getCurrentUser() but returns null if not logged in.
-     * Useful for public GET endpoints where we still want to
-     * know if THIS viewer already liked the ad.
+     * Id of the signed-in viewer from the principal (no query), or null when
+     * the principal is not a user (anonymous, or not authenticated by the JWT filter).
      */
-    private User getCurrentUserOrNull() {
+    private Long currentUserIdOrNull() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth == null || auth.getName() == null) return null;
-        return userRepository.findByEmail(auth.getName()).orElse(null);
+        return auth != null && auth.getPrincipal() instanceof AuthPrincipal me ? me.id() : null;
     }
 
     /* ==========================================================
@@ -85,22 +96,99 @@ public class AdService {
                 .featured(request.isFeatured())
                 .build();
 
-        return adRepository.save(ad);
+        ClassifiedAd saved = adRepository.save(ad);
+        userStatsService.adjust(poster.getId(), UserStatsService.Counter.ADS, 1);
+        return saved;
     }
 
     /* ==========================================================
        READ (LIST / DETAILS)
        ========================================================== */
 
+    /** Columns of one feed card; the first photo is a correlated lookup on indexed ad_id. */
+    private static final String AD_CARDS_SELECT = """
+        SELECT a.id, a.title, a.price, a.category, a.featured, a.created_at, a.image_url,
+               (SELECT p.id FROM ad_photo p WHERE p.ad_id = a.id
+                 ORDER BY p.sort_index, p.id LIMIT 1) AS first_photo_id,
+               a.like_count,
+               u.id AS poster_id, u.name AS poster_name, u.username AS poster_username,
+               u.profile_image_url AS poster_image_url
+          FROM classified_ads a
+          LEFT JOIN users u ON u.id = a.poster_id
+        """;
+
     /**
-     * Public list of ads (optionally filtered by category).
-     * Used for marketplace feed / listings grid.
-     * Returns ads ordered by creation date (newest first).
+     * Public feed of ads, newest first, as slim cards.  Every filter is
+     * optional and applied in SQL, as are LIMIT/OFFSET, so a page costs
+     * one query whatever the table size:
+     * category (case-insensitive, idx_classified_ads_category_created),
+     * text (title substring or description full-text match) and an
+     * inclusive price range.
      */
-    public List<ClassifiedAd> listAds(Optional<String> category) {
-        return category
-                .map(adRepository::findByCategoryIgnoreCaseOrderByCreatedAtDesc)
-                .orElseGet(adRepository::findAllByOrderByCreatedAtDesc);
+    public List<AdCardDto> listAdCards(String category, String text,
+                                       BigDecimal minPrice, BigDecimal maxPrice,
+                                       int page, int size) {
+        StringBuilder sql = new StringBuilder(AD_CARDS_SELECT).append(" WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (category != null && !category.isBlank()) {
+            sql.append(" AND LOWER(a.category) = LOWER(?)");
+            args.add(category.trim());
+        }
+        if (text != null && !text.isBlank()) {
+            String q = text.trim();
+            sql.append(" AND (a.title ILIKE ? OR to_tsvector('english', a.description) @@ plainto_tsquery('english', ?))");
+            args.add("%" + LikePatterns.escape(q) + "%");
+            args.add(q);
+        }
+        if (minPrice != null) {
+            sql.append(" AND a.price >= ?");
+            args.add(minPrice);
+        }
+        if (maxPrice != null) {
+            sql.append(" AND a.price <= ?");
+            args.add(maxPrice);
+        }
+        sql.append(" ORDER BY a.created_at DESC, a.id DESC LIMIT ? OFFSET ?");
+        args.add(size);
+        args.add((long) page * size);
+
+        List<AdCardDto> cards = jdbcTemplate.query(sql.toString(), (rs, i) -> {
+            long posterId = rs.getLong("poster_id");
+            boolean hasPoster = !rs.wasNull();
+            long photoId = rs.getLong("first_photo_id");
+            String firstPhotoUrl = rs.wasNull() ? rs.getString("image_url") : "/ads/photos/" + photoId + "?thumb=true";
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            return AdCardDto.builder()
+                    .id(rs.getLong("id"))
+                    .title(rs.getString("title"))
+                    .price(rs.getBigDecimal("price"))
+                    .category(rs.getString("category"))
+                    .featured(rs.getBoolean("featured"))
+                    .createdAt(createdAt != null ? createdAt.toLocalDateTime() : null)
+                    .firstPhotoUrl(firstPhotoUrl)
+                    .posterId(hasPoster ? posterId : null)
+                    .posterName(hasPoster ? posterName(rs.getString("poster_name"), rs.getString("poster_username")) : null)
+                    .posterAvatar(hasPoster ? posterAvatar(posterId, rs.getString("poster_image_url")) : null)
+                    .likeCount(rs.getLong("like_count"))
+                    .build();
+        }, args.toArray());
+
+        Set<Long> liked = likedByMe(cards.stream().map(AdCardDto::getId).toList());
+        cards.forEach(c -> c.setLikedByMe(liked.contains(c.getId())));
+        return cards;
+    }
+
+    /** Display name for a card; unlike the details view, never falls back to the email. */
+    private static String posterName(String name, String username) {
+        if (name != null && !name.isBlank()) return name;
+        if (username != null && !username.isBlank()) return username;
+        return "Seller";
+    }
+
+    /** Same rule as {@link User#getAvatarUrl()}. */
+    private static String posterAvatar(long posterId, String profileImageUrl) {
+        if (profileImageUrl != null && !profileImageUrl.isBlank()) return profileImageUrl;
+        return "/users/" + posterId + "/profile-image";
     }
 
     /**
@@ -127,19 +215,13 @@ public class AdService {
      * This is what `/ads/{id}` returns to React.
      */
     public AdDetailsDto getAdDetails(Long id) {
-        ClassifiedAd ad = adRepository.findById(id)
+        ClassifiedAd ad = adRepository.findWithPosterById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Ad not found"));
+        return toDetails(ad, likedByMe(List.of(id)).contains(id));
+    }
 
-        // how many likes total?
-        long likeCount = adLikeRepository.countByAd_Id(id);
-
-        // does THIS viewer like it?
-        User me = getCurrentUserOrNull();
-        boolean likedByMe = false;
-        if (me != null) {
-            likedByMe = adLikeRepository.existsByAd_IdAndUser_Id(id, me.getId());
-        }
-
+    /** Details DTO for an ad that is already loaded (poster included). */
+    public AdDetailsDto toDetails(ClassifiedAd ad, boolean likedByMe) {
         // poster info for header UI
         User poster = ad.getPoster();
         Long posterId = poster != null ? poster.getId() : null;
@@ -172,12 +254,27 @@ public class AdService {
         dto.setPosterName(posterName);
         dto.setPosterAvatar(posterAvatar);
 
-        dto.setLikeCount(likeCount);
+        dto.setLikeCount(ad.getLikeCount());
         dto.setLikedByMe(likedByMe);
 
         return dto;
     }
 
+    /**
+     * Which of these ads the current viewer has liked, in one query.
+     * Empty for anonymous viewers.
+     */
+    public Set<Long> likedByMe(Collection<Long> adIds) {
+        Long viewerId = currentUserIdOrNull();
+        if (viewerId == null || adIds == null || adIds.isEmpty()) return Set.of();
+        return new HashSet<>(adLikeRepository.findLikedAdIds(viewerId, adIds));
+    }
+
+    /** Cheap existence check (primary-key probe) for HEAD requests. */
+    public boolean exists(Long id) {
+        return id != null && adRepository.existsById(id);
+    }
+
     /* ==========================================================
        UPDATE
        ========================================================== */
@@ -242,6 +339,10 @@ public class AdService {
 
         // 3. Finally delete the ad itself
         adRepository.delete(ad);
+        activityLogService.adRemoved(id, ad.getPoster() != null ? ad.getPoster().getId() : null);
+        if (ad.getPoster() != null) {
+            userStatsService.adjust(ad.getPoster().getId(), UserStatsService.Counter.ADS, -1);
+        }
     }
 
     /* ==========================================================
@@ -262,15 +363,16 @@ public class AdService {
                 .orElseThrow(() -> new IllegalArgumentException("Ad not found"));
 
         boolean already = adLikeRepository.existsByAd_IdAndUser_Id(adId, me.getId());
-        if (!already) {
-            AdLike like = AdLike.builder()
-                    .ad(ad)
-                    .user(me)
-                    .build(); // createdAt will be set in @PrePersist of AdLike
-            adLikeRepository.save(like);
+        if (already) {
+            return currentLikeCount(adId);
         }
-
-        return adLikeRepository.countByAd_Id(adId);
+        AdLike like = AdLike.builder()
+                .ad(ad)
+                .user(me)
+                .build(); // createdAt will be set in @PrePersist of AdLike
+        adLikeRepository.save(like);
+        activityLogService.adLiked(like);
+        return adjustLikeCount(adId, 1);
     }
 
     /**
@@ -284,12 +386,45 @@ public class AdService {
         User me = getCurrentUser();
 
         // force 404 if ad doesn't exist
-        adRepository.findById(adId)
+        ClassifiedAd ad = adRepository.findById(adId)
                 .orElseThrow(() -> new IllegalArgumentException("Ad not found"));
 
-        adLikeRepository.deleteByAd_IdAndUser_Id(adId, me.getId());
+        if (adLikeRepository.deleteLike(adId, me.getId()) == 0) {
+            return currentLikeCount(adId);
+        }
+        activityLogService.adUnliked(ad, me.getId());
+        return adjustLikeCount(adId, -1);
+    }
+
+    /**
+     * Move classified_ads.like_count in one atomic statement and return the
+     * new value.  The row lock also orders concurrent likes of one ad.
+     */
+    private long adjustLikeCount(Long adId, long delta) {
+        Long count = jdbcTemplate.queryForObject(
+                "UPDATE classified_ads SET like_count = GREATEST(0, like_count + ?) WHERE id = ? RETURNING like_count",
+                Long.class, delta, adId);
+        return count != null ? count : 0L;
+    }
 
-        return adLikeRepository.countByAd_Id(adId);
+    private long currentLikeCount(Long adId) {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT like_count FROM classified_ads WHERE id = ?", Long.class, adId);
+        return count != null ? count : 0L;
+    }
+
+    /**
+     * Re-derive like_count from ad_likes for rows that drifted (likes removed
+     * by cascades, e.g. when a user is deleted).  Returns rows fixed.
+     */
+    @Scheduled(cron = "${app.ads.like-count-reconcile-cron:0 15 4 * * *}")
+    @Transactional
+    public int reconcileLikeCounts() {
+        return jdbcTemplate.update("""
+                UPDATE classified_ads a
+                   SET like_count = (SELECT COUNT(*) FROM ad_likes l WHERE l.ad_id = a.id)
+                 WHERE a.like_count <> (SELECT COUNT(*) FROM ad_likes l WHERE l.ad_id = a.id)
+                """);
     }
 
     /* ==========================================================
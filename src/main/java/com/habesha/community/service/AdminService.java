@@ -7,6 +7,7 @@ import com.habesha.community.model.User;
 import com.habesha.community.repository.PaymentRepository;
 import com.habesha.community.repository.ServiceOfferRepository;
 import com.habesha.community.repository.UserRepository;
+import com.habesha.community.security.AuthPrincipalCache;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -30,6 +31,7 @@ public class AdminService {
     private final UserRepository userRepository;
     private final PaymentRepository paymentRepository;
     private final ServiceOfferRepository offerRepository;
+    private final AuthPrincipalCache principalCache;
 
     /**
      * Updates the commission rate used for service bookings.
@@ -62,6 +64,7 @@ public class AdminService {
         User user = userRepository.findById(userId).orElseThrow(() -> new IllegalArgumentException("User not found"));
         user.setRole(role);
         userRepository.save(user);
+        principalCache.invalidateUser(userId);
     }
 
     @Transactional
@@ -69,6 +72,7 @@ public class AdminService {
         User user = userRepository.findById(userId).orElseThrow(() -> new IllegalArgumentException("User not found"));
         user.setActive(false);
         userRepository.save(user);
+        principalCache.invalidateUser(userId);
     }
 
     public List<Payment> getAllPayments() {
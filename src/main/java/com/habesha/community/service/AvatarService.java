@@ -0,0 +1,208 @@
+package com.habesha.community.service;
+
+import com.habesha.community.model.User;
+import com.habesha.community.repository.UserRepository;
+import com.habesha.community.repository.UserRepository.AvatarView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Avatars stored in Postgres: the original upload plus square JPEG
+ * renditions at {@link #SMALL}, {@link #MEDIUM} and {@link #LARGE} px, all
+ * in media_blob.
+ *
+ * Renditions are made once, at upload.  The original's content hash
+ * versions the public URL ({@code ?v=}) and the ETag, so a versioned
+ * request can be cached as immutable and an unversioned one revalidates
+ * with a 304 that never reads the bytes.  Blob rows are never rewritten,
+ * which lets small renditions sit in an LRU keyed by blob id with no
+ * invalidation.  Avatars uploaded before renditions existed have none, and
+ * their original is served at every size.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AvatarService {
+
+    public static final int SMALL = 48;
+    public static final int MEDIUM = 128;
+    public static final int LARGE = 512;
+
+    private static final String VARIANT_TYPE = "image/jpeg";
+    private static final float JPEG_QUALITY = 0.85f;
+
+    /** The blob to serve for a request and the tag that identifies it. */
+    public record Rendition(Long blobId, String contentType, String etag) {}
+
+    public record Image(byte[] data, String contentType) {}
+
+    private final MediaBlobService mediaBlobService;
+    private final UserRepository userRepository;
+
+    @Value("${app.avatars.cache.max-entries:5000}")
+    private int maxEntries = 5000;
+
+    /** Renditions larger than this are not kept in memory. */
+    @Value("${app.avatars.cache.max-entry-bytes:32768}")
+    private int maxEntryBytes = 32768;
+
+    /** Access-ordered, so the eldest entry is the least recently served. */
+    private final Map<Long, Image> lru = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Image> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    /* ==================== Writes ==================== */
+
+    /**
+     * Make {@code bytes} the user's avatar: store the original and its
+     * renditions, set the user's avatar fields and drop the previous blobs.
+     * The caller saves the user.  JPEG metadata other than the orientation
+     * is stripped first.  An image ImageIO can't decode is kept without
+     * renditions.
+     */
+    @Transactional
+    public void store(User user, byte[] upload, String contentType) {
+        List<Long> previous = blobIds(user);
+        byte[] bytes = ImageCodecs.stripJpegMetadata(upload);
+
+        user.setProfileImageBlobId(mediaBlobService.store(bytes, contentType));
+        user.setProfileImageType(contentType);
+        user.setProfileImageHash(sha256(bytes));
+
+        BufferedImage source = decode(bytes);
+        user.setAvatarSmBlobId(source != null ? mediaBlobService.store(render(source, SMALL), VARIANT_TYPE) : null);
+        user.setAvatarMdBlobId(source != null ? mediaBlobService.store(render(source, MEDIUM), VARIANT_TYPE) : null);
+        user.setAvatarLgBlobId(source != null ? mediaBlobService.store(render(source, LARGE), VARIANT_TYPE) : null);
+
+        previous.forEach(mediaBlobService::delete);
+    }
+
+    /** Remove the stored avatar and its renditions.  The caller saves the user. */
+    @Transactional
+    public void clear(User user) {
+        blobIds(user).forEach(mediaBlobService::delete);
+        user.setProfileImageBlobId(null);
+        user.setProfileImageType(null);
+        user.setProfileImageHash(null);
+        user.setAvatarSmBlobId(null);
+        user.setAvatarMdBlobId(null);
+        user.setAvatarLgBlobId(null);
+    }
+
+    /** Public URL of a stored avatar, versioned by content so it can be cached forever. */
+    public static String url(User user) {
+        String version = version(user.getProfileImageHash(), user.getProfileImageBlobId());
+        return "/users/" + user.getId() + "/profile-image" + (version != null ? "?v=" + version : "");
+    }
+
+    /* ==================== Reads ==================== */
+
+    @Transactional(readOnly = true)
+    public Optional<AvatarView> find(Long userId) {
+        return userId == null ? Optional.empty() : userRepository.findAvatarViewById(userId);
+    }
+
+    /** Current version of the avatar, as used in {@code ?v=}; null when none is stored. */
+    public static String version(AvatarView view) {
+        return version(view.getProfileImageHash(), view.getProfileImageBlobId());
+    }
+
+    /**
+     * The smallest rendition at least {@code size} px (the largest when no
+     * size is asked for), falling back to the original.  Null when the user
+     * has no stored avatar.
+     */
+    public static Rendition rendition(AvatarView view, Integer size) {
+        String version = version(view);
+        if (version == null) return null;
+        int px = size == null ? LARGE : size;
+        Long variant = px <= SMALL ? view.getAvatarSmBlobId()
+                : px <= MEDIUM ? view.getAvatarMdBlobId()
+                : view.getAvatarLgBlobId();
+        if (variant != null) {
+            int label = px <= SMALL ? SMALL : px <= MEDIUM ? MEDIUM : LARGE;
+            return new Rendition(variant, VARIANT_TYPE, "\"" + version + "-" + label + "\"");
+        }
+        String type = view.getProfileImageType() != null ? view.getProfileImageType() : VARIANT_TYPE;
+        return new Rendition(view.getProfileImageBlobId(), type, "\"" + version + "-o\"");
+    }
+
+    /** The rendition's bytes, from the LRU when it is small enough to be kept there. */
+    public Optional<Image> load(Rendition rendition) {
+        Long id = rendition.blobId();
+        synchronized (lru) {
+            Image hit = lru.get(id);
+            if (hit != null) return Optional.of(hit);
+        }
+        Optional<Image> loaded = mediaBlobService.find(id)
+                .map(b -> new Image(b.getData(), rendition.contentType()));
+        loaded.filter(img -> img.data().length <= maxEntryBytes).ifPresent(img -> {
+            synchronized (lru) {
+                lru.put(id, img);
+            }
+        });
+        return loaded;
+    }
+
+    /* ==================== Helpers ==================== */
+
+    private static String version(String hash, Long blobId) {
+        if (hash != null && hash.length() >= 16) return hash.substring(0, 16);
+        return blobId != null ? "b" + Long.toHexString(blobId) : null;
+    }
+
+    private static List<Long> blobIds(User user) {
+        List<Long> ids = new ArrayList<>(4);
+        for (Long id : new Long[] { user.getProfileImageBlobId(), user.getAvatarSmBlobId(),
+                user.getAvatarMdBlobId(), user.getAvatarLgBlobId() }) {
+            if (id != null) ids.add(id);
+        }
+        return ids;
+    }
+
+    /** Decoded subsampled, so a large upload never sits in memory at full resolution. */
+    private static BufferedImage decode(byte[] bytes) {
+        try {
+            BufferedImage image = ImageCodecs.readSubsampled(new ByteArrayInputStream(bytes), LARGE);
+            return image != null ? ImageCodecs.applyOrientation(image, ImageCodecs.jpegOrientation(bytes)) : null;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Avatar could not be decoded, storing without renditions: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /** Centre-crop to a square and scale down to {@code size} px (never up), as JPEG. */
+    private static byte[] render(BufferedImage source, int size) {
+        int side = Math.min(source.getWidth(), source.getHeight());
+        BufferedImage square = source.getSubimage(
+                (source.getWidth() - side) / 2, (source.getHeight() - side) / 2, side, side);
+        int target = Math.min(size, side);
+        return ImageCodecs.jpeg(ImageCodecs.scaleDown(square, target, target), JPEG_QUALITY);
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.habesha.community.model.User;
 import com.habesha.community.model.UserBlock;
 import com.habesha.community.repository.UserBlockRepository;
 import com.habesha.community.repository.UserRepository;
+import com.habesha.community.security.AuthPrincipal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -18,11 +19,12 @@ import java.util.stream.Collectors;
 public class BlockService {
     private final UserBlockRepository blockRepo;
     private final UserRepository userRepo;
+    private final FriendSuggestionService friendSuggestionService;
 
     private User currentUser() {
         var auth = SecurityContextHolder.getContext().getAuthentication();
         Object principal = auth != null ? auth.getPrincipal() : null;
-        if (principal instanceof User u) return u;
+        if (principal instanceof AuthPrincipal p) return userRepo.findById(p.id()).orElseThrow();
         if (principal instanceof org.springframework.security.core.userdetails.User du) {
             return userRepo.findByUsername(du.getUsername()).orElseThrow();
         }
@@ -53,6 +55,7 @@ public class BlockService {
                 .createdAt(LocalDateTime.now())
                 .build();
         blockRepo.save(rec);
+        friendSuggestionService.blockChanged(me.getId(), targetId);
     }
 
     public void unblock(Long blockId) {
@@ -60,6 +63,7 @@ public class BlockService {
         var rec = blockRepo.findByIdAndBlocker_Id(blockId, me.getId())
                 .orElseThrow(() -> new IllegalArgumentException("Block not found"));
         blockRepo.delete(rec);
+        friendSuggestionService.blockChanged(me.getId(), rec.getBlocked().getId());
     }
     
     /**
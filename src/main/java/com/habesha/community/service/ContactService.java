@@ -13,6 +13,9 @@ public class ContactService {
     private final ContactRequestRepository contactRepo;
     private final UserRepository userRepo;
     private final MessageRepository messageRepo;
+    private final ConversationService conversationService;
+    private final ActivityLogService activityLogService;
+    private final CountsService countsService;
 
     private User currentUser() {
         var email = SecurityContextHolder.getContext().getAuthentication().getName();
@@ -161,5 +164,8 @@ public class ContactService {
             .build();
         
         messageRepo.save(message);
+        conversationService.recordMessage(message);
+        activityLogService.messageReceived(message);
+        countsService.adjust(requester.getId(), CountsService.UNREAD_MESSAGES, 1);
     }
 }
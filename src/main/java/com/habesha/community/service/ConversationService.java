@@ -0,0 +1,67 @@
+package com.habesha.community.service;
+
+import com.habesha.community.model.Conversation;
+import com.habesha.community.model.Message;
+import com.habesha.community.repository.ConversationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Maintains the {@link Conversation} summary rows that back the inbox
+ * sidebar.  Every path that inserts a {@link Message} or marks messages as
+ * read must go through here within the same transaction, otherwise the
+ * preview and unread counters drift from {@code messages}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ConversationService {
+
+    private final ConversationRepository conversationRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Update the pair's summary for a message that was just persisted. */
+    @Transactional
+    public void recordMessage(Message message) {
+        Long senderId = message.getSender().getId();
+        Long recipientId = message.getRecipient().getId();
+        if (senderId.equals(recipientId)) return;
+        conversationRepository.recordMessage(
+                Math.min(senderId, recipientId),
+                Math.max(senderId, recipientId),
+                message.getId(),
+                message.getContent(),
+                message.getSentAt(),
+                senderId,
+                recipientId);
+    }
+
+    /** The reader has now read everything the other user sent them. */
+    @Transactional
+    public void markRead(Long readerId, Long otherUserId) {
+        if (readerId.equals(otherUserId)) return;
+        conversationRepository.clearUnread(
+                Math.min(readerId, otherUserId), Math.max(readerId, otherUserId), readerId);
+    }
+
+    /** Most recently active conversations for a user. */
+    @Transactional(readOnly = true)
+    public List<Conversation> recentForUser(Long userId, int limit) {
+        return conversationRepository.findRecentForUser(userId, PageRequest.of(0, Math.max(limit, 1)));
+    }
+
+    /** Re-derive every conversation row from the messages table. */
+    @Transactional
+    public int rebuildAll() {
+        // rebuild_conversations (V18) holds the derivation, shared with the backfill
+        Integer rows = jdbcTemplate.queryForObject("SELECT rebuild_conversations()", Integer.class);
+        log.info("Rebuilt {} conversation rows from messages", rows);
+        return rows != null ? rows : 0;
+    }
+}
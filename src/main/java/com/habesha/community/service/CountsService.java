@@ -1,47 +1,175 @@
 package com.habesha.community.service;
 
-import com.habesha.community.dto.ThreadSummaryDto;
-import com.habesha.community.model.FriendRequestStatus;
-import com.habesha.community.repository.FriendRequestRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.List;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Badge counters behind {@code GET /api/counts}: unread messages, pending
+ * incoming friend requests and new likes/comments on the user's ads since
+ * they last opened the notification panel.
+ *
+ * A miss is one round trip ({@link #COUNTS_SQL}, a handful of indexed
+ * sub-selects).
+ * The result is cached per user; writes that move a counter call
+ * {@link #adjust} (which also pushes the realtime delta) and anything that
+ * can't be expressed as a delta calls {@link #invalidate}.  Both take effect
+ * after the surrounding transaction commits.  The TTL only bounds drift
+ * from writes on other nodes.
+ */
 @Service
 @RequiredArgsConstructor
 public class CountsService {
 
-    private final FriendRequestRepository friendRequestRepository;
-    private final MessageService messageService;
+    /* Counter names, shared with COUNTER_DELTA realtime payloads and the /api/counts body. */
+    public static final String UNREAD_MESSAGES = RealtimeService.UNREAD_MESSAGES;
+    public static final String PENDING_REQUESTS = RealtimeService.PENDING_FRIEND_REQUESTS;
+    public static final String NEW_INTERACTIONS = RealtimeService.NEW_INTERACTIONS;
 
-    public long getUnreadMessagesTotal() {
-        messageService.getRecentThreads(100);
-        List<ThreadSummaryDto> threads = java.util.Collections.emptyList();
-        long sum = 0L;
-        if (threads != null) {
-            for (ThreadSummaryDto t : threads) {
-                Long unread = t.getUnread(); // ThreadSummaryDto has setUnread(...) in MessageService, so getter should exist
-                if (unread != null) sum += unread;
-            }
+    /**
+     * Unread messages come from the conversation summary rows, interactions
+     * from the activity log (nothing is "new" until the user has opened the
+     * panel once, matching the old behaviour for a null seen-at).
+     */
+    private static final String COUNTS_SQL = """
+        SELECT (SELECT COALESCE(SUM(unread_for_lo), 0) FROM conversation WHERE user_lo_id = ?)
+             + (SELECT COALESCE(SUM(unread_for_hi), 0) FROM conversation WHERE user_hi_id = ?) AS unread_messages,
+               (SELECT COUNT(*) FROM friend_requests
+                 WHERE receiver_id = ? AND status = 'PENDING') AS pending_requests,
+               (SELECT COUNT(*) FROM activity_event e JOIN users u ON u.id = e.user_id
+                 WHERE e.user_id = ? AND e.type IN ('AD_LIKED', 'AD_COMMENTED')
+                   AND u.notifications_seen_at IS NOT NULL
+                   AND e.created_at > u.notifications_seen_at) AS new_interactions,
+               (SELECT notifications_seen_at IS NOT NULL FROM users WHERE id = ?) AS tracks_interactions
+        """;
+
+    public record Counts(long unreadMessages, long pendingRequests, long newInteractions) {
+
+        public static final Counts ZERO = new Counts(0, 0, 0);
+
+        public long notifications() {
+            return unreadMessages + pendingRequests;
+        }
+
+        public long unreadNotifications() {
+            return notifications() + newInteractions;
+        }
+
+        Counts plus(String counter, long delta) {
+            return switch (counter) {
+                case UNREAD_MESSAGES -> new Counts(Math.max(0, unreadMessages + delta), pendingRequests, newInteractions);
+                case PENDING_REQUESTS -> new Counts(unreadMessages, Math.max(0, pendingRequests + delta), newInteractions);
+                case NEW_INTERACTIONS -> new Counts(unreadMessages, pendingRequests, Math.max(0, newInteractions + delta));
+                default -> this;
+            };
+        }
+    }
+
+    /** {@code tracksInteractions} is false until the user first opens the panel; deltas to it are ignored. */
+    private record CachedCounts(Counts counts, boolean tracksInteractions, long cachedAtMillis) {
+
+        CachedCounts plus(String counter, long delta) {
+            if (NEW_INTERACTIONS.equals(counter) && !tracksInteractions) return this;
+            return new CachedCounts(counts.plus(counter, delta), tracksInteractions, cachedAtMillis);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RealtimeService realtimeService;
+
+    private final Map<Long, CachedCounts> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Per-user write version.  A loader captures it before querying and
+     * only caches its result if no adjust/invalidate landed in between, so
+     * a delta is never lost to a load that read the pre-commit row.  One
+     * entry per user that has ever had a counter write on this node.
+     */
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+
+    @Value("${app.counts.cache.max-entries:20000}")
+    private int maxEntries = 20000;
+
+    @Value("${app.counts.cache.ttl-seconds:120}")
+    private long ttlSeconds = 120;
+
+    public Counts getCounts(Long userId) {
+        if (userId == null) return Counts.ZERO;
+        CachedCounts hit = cache.get(userId);
+        long now = System.currentTimeMillis();
+        if (hit != null && now - hit.cachedAtMillis() < ttlSeconds * 1000L) {
+            return hit.counts();
+        }
+        long version = versions.getOrDefault(userId, 0L);
+        CachedCounts loaded = jdbcTemplate.queryForObject(COUNTS_SQL,
+                (rs, i) -> new CachedCounts(
+                        new Counts(rs.getLong("unread_messages"),
+                                rs.getLong("pending_requests"),
+                                rs.getLong("new_interactions")),
+                        rs.getBoolean("tracks_interactions"),
+                        now),
+                userId, userId, userId, userId, userId);
+        if (loaded == null) return Counts.ZERO;
+        if (versions.getOrDefault(userId, 0L) == version) {
+            if (cache.size() >= maxEntries) evict();
+            cache.put(userId, loaded);
         }
-        return sum;
+        return loaded.counts();
+    }
+
+    /** A counter moved by {@code delta}; update the cached value and push it to the user's streams. */
+    public void adjust(Long userId, String counter, long delta) {
+        if (userId == null || delta == 0) return;
+        realtimeService.counterDelta(userId, counter, delta);
+        afterCommit(() -> {
+            bump(userId);
+            cache.computeIfPresent(userId, (k, c) -> c.plus(counter, delta));
+        });
     }
 
-    public long getPendingFriendRequests() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth == null) return 0L;
+    /** Recompute on the next read (e.g. after an unlike, or the panel was opened). */
+    public void invalidate(Long userId) {
+        if (userId == null) return;
+        afterCommit(() -> {
+            bump(userId);
+            cache.remove(userId);
+        });
+    }
 
-        Object principal = auth.getPrincipal();
-        Long currentId = null;
-        try {
-            currentId = (Long) principal.getClass().getMethod("getId").invoke(principal);
-        } catch (Exception ignored) {}
-        if (currentId == null) return 0L;
+    private void bump(Long userId) {
+        versions.merge(userId, 1L, Long::sum);
+    }
 
-     return friendRequestRepository.countByReceiver_IdAndStatus(currentId, FriendRequestStatus.PENDING);
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
 
- }
+    /** Drop expired entries first; if still full, drop the oldest tenth. */
+    private void evict() {
+        long cutoff = System.currentTimeMillis() - ttlSeconds * 1000L;
+        cache.entrySet().removeIf(e -> e.getValue().cachedAtMillis() < cutoff);
+        if (cache.size() >= maxEntries) {
+            cache.entrySet().stream()
+                    .sorted(Comparator.comparingLong(e -> e.getValue().cachedAtMillis()))
+                    .limit(Math.max(1, maxEntries / 10))
+                    .toList()
+                    .forEach(e -> cache.remove(e.getKey(), e.getValue()));
+        }
+    }
 }
@@ -9,8 +9,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 import java.io.InputStream;
 import java.nio.file.*;
 import java.time.LocalDateTime;
@@ -120,14 +118,8 @@ public class DiskStorageService {
             Files.move(destTmp, dest, StandardCopyOption.REPLACE_EXISTING);
         }
 
-        // Read image dimensions (best-effort)
-        Integer w = null, h = null;
-        try {
-            BufferedImage img = ImageIO.read(dest.toFile());
-            if (img != null) { w = img.getWidth(); h = img.getHeight(); }
-        } catch (Exception dimEx) {
-            log.debug("Could not read image dimensions for {}", dest, dimEx);
-        }
+        // Dimensions, EXIF stripping and thumbnails happen after commit in
+        // PhotoProcessingService, so the request returns once the file is stored.
 
         StoredImage out = new StoredImage();
         out.setUrl(buildPublicUrlForAd(adId, filename));
@@ -135,8 +127,6 @@ public class DiskStorageService {
         out.setFilename(filename);
         out.setContentType(contentType);
         out.setSizeBytes(file.getSize());
-        out.setWidth(w);
-        out.setHeight(h);
         out.setSavedAt(LocalDateTime.now());
         return out;
     }
@@ -210,14 +200,8 @@ public class DiskStorageService {
             Files.move(destTmp, dest, StandardCopyOption.REPLACE_EXISTING);
         }
 
-        // Read image dimensions (best-effort)
-        Integer w = null, h = null;
-        try {
-            BufferedImage img = ImageIO.read(dest.toFile());
-            if (img != null) { w = img.getWidth(); h = img.getHeight(); }
-        } catch (Exception dimEx) {
-            log.debug("Could not read image dimensions for {}", dest, dimEx);
-        }
+        // Dimensions, EXIF stripping and thumbnails happen after commit in
+        // PhotoProcessingService, so the request returns once the file is stored.
 
         StoredImage out = new StoredImage();
         out.setUrl(buildPublicUrl(homeSwapId, filename));
@@ -225,8 +209,6 @@ public class DiskStorageService {
         out.setFilename(filename);
         out.setContentType(contentType);
         out.setSizeBytes(file.getSize());
-        out.setWidth(w);
-        out.setHeight(h);
         out.setSavedAt(LocalDateTime.now());
         return out;
     }
@@ -311,8 +293,6 @@ public class DiskStorageService {
         private String filename;
         private String contentType;
         private long sizeBytes;
-        private Integer width;
-        private Integer height;
         private LocalDateTime savedAt;
     }
 }
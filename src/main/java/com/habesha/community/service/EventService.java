@@ -1,6 +1,7 @@
 package com.habesha.community.service;
 
 import com.habesha.community.dto.EventRequest;
+import com.habesha.community.model.ActivityType;
 import com.habesha.community.model.Event;
 import com.habesha.community.model.Role;
 import com.habesha.community.model.User;
@@ -24,6 +25,8 @@ public class EventService {
 
     private final EventRepository eventRepository;
     private final UserRepository userRepository;
+    private final ActivityLogService activityLogService;
+    private final UserStatsService userStatsService;
 
     private User getCurrentUser() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -43,7 +46,21 @@ public class EventService {
                 .featured(request.isFeatured())
                 .verified(false)
                 .build();
-        return eventRepository.save(event);
+        return createEvent(event, organizer);
+    }
+
+    /**
+     * Save a new event for {@code organizer}, with its activity-log row and
+     * counter bump in the same transaction.  Every create path goes through here.
+     */
+    @Transactional
+    public Event createEvent(Event event, User organizer) {
+        event.setOrganizer(organizer);
+        Event saved = eventRepository.save(event);
+        activityLogService.listingCreated(ActivityType.EVENT_CREATED, organizer.getId(),
+                saved.getId(), saved.getTitle(), saved.getCreatedAt());
+        userStatsService.adjust(organizer.getId(), UserStatsService.Counter.EVENTS, 1);
+        return saved;
     }
 
     public List<Event> listUpcomingEvents() {
@@ -71,6 +88,8 @@ public class EventService {
             throw new IllegalStateException("Not authorised to delete this event");
         }
         eventRepository.delete(event);
+        activityLogService.listingRemoved(ActivityType.EVENT_CREATED, id);
+        userStatsService.adjust(event.getOrganizer().getId(), UserStatsService.Counter.EVENTS, -1);
     }
 
     @Transactional
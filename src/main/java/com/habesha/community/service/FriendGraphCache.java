@@ -0,0 +1,419 @@
+package com.habesha.community.service;
+
+import com.habesha.community.model.FriendRelationshipStatus;
+import com.habesha.community.model.FriendRequestStatus;
+import com.habesha.community.repository.FriendRequestRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-process adjacency index over {@code friend_requests}.  Each cached user
+ * holds sorted {@code long[]} sets of accepted friends, incoming and outgoing
+ * pending requests and rejected requests (either direction), each paired
+ * with the id of the request row behind the edge.  A user's entry is loaded
+ * lazily with one projection query over their rows; relationship checks,
+ * friend counts and mutual-friend intersections are then answered from
+ * memory.
+ *
+ * {@link FriendService} reports every write ({@link #requestSent},
+ * {@link #requestAccepted}, {@link #requestRejected}, {@link #edgeRemoved})
+ * and the change is applied to both endpoints after the transaction
+ * commits.  Entries are immutable snapshots replaced on write, so readers
+ * never see a half-applied edge.  The TTL only bounds drift from writes on
+ * other nodes.
+ */
+@Component
+@RequiredArgsConstructor
+public class FriendGraphCache {
+
+    /** Relationship of one user to another, seen from the first user. */
+    public record Relation(FriendRelationshipStatus status, Long requestId) {
+
+        static final Relation NONE = new Relation(FriendRelationshipStatus.NONE, null);
+    }
+
+    private static final int PRELOAD_CHUNK = 500;
+
+    private final FriendRequestRepository friendRequestRepository;
+
+    private final Map<Long, Adjacency> cache = new ConcurrentHashMap<>();
+
+    /** Per-user write version; same stale-load guard as {@link CountsService}. */
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+
+    @Value("${app.friends.graph.max-entries:50000}")
+    private int maxEntries = 50000;
+
+    @Value("${app.friends.graph.ttl-seconds:600}")
+    private long ttlSeconds = 600;
+
+    /* ==================== Reads ==================== */
+
+    public Relation relation(long me, long other) {
+        Adjacency a = adjacency(me);
+        long id;
+        if ((id = a.friends().requestId(other)) != 0) return new Relation(FriendRelationshipStatus.FRIENDS, id);
+        if ((id = a.outgoing().requestId(other)) != 0) return new Relation(FriendRelationshipStatus.REQUEST_SENT, id);
+        if ((id = a.incoming().requestId(other)) != 0) return new Relation(FriendRelationshipStatus.REQUEST_RECEIVED, id);
+        return Relation.NONE;
+    }
+
+    public boolean areFriends(long a, long b) {
+        return adjacency(a).friends().contains(b);
+    }
+
+    /** True when any request row links the two users, whatever its status or direction. */
+    public boolean hasAnyRequest(long a, long b) {
+        Adjacency adj = adjacency(a);
+        return adj.friends().contains(b) || adj.outgoing().contains(b)
+                || adj.incoming().contains(b) || adj.rejected().contains(b);
+    }
+
+    /** Friend ids in ascending order.  The array is shared; do not modify it. */
+    public long[] friendIds(long userId) {
+        return adjacency(userId).friends().ids();
+    }
+
+    public int friendCount(long userId) {
+        return adjacency(userId).friends().size();
+    }
+
+    /** Senders of pending requests to the user.  Shared array; do not modify. */
+    public long[] incomingIds(long userId) {
+        return adjacency(userId).incoming().ids();
+    }
+
+    /** Receivers of the user's pending requests.  Shared array; do not modify. */
+    public long[] outgoingIds(long userId) {
+        return adjacency(userId).outgoing().ids();
+    }
+
+    /** Friends the two users have in common, ascending; a linear merge of the two sorted sets. */
+    public long[] mutualFriendIds(long a, long b) {
+        long[] x = friendIds(a);
+        long[] y = friendIds(b);
+        long[] out = new long[Math.min(x.length, y.length)];
+        int n = 0;
+        for (int i = 0, j = 0; i < x.length && j < y.length; ) {
+            if (x[i] < y[j]) i++;
+            else if (x[i] > y[j]) j++;
+            else { out[n++] = x[i]; i++; j++; }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    public int mutualCount(long a, long b) {
+        return mutualFriendIds(a, b).length;
+    }
+
+    /* ==================== Writes (applied after commit) ==================== */
+
+    public void requestSent(long requestId, long senderId, long receiverId) {
+        afterCommit(() -> {
+            apply(senderId, a -> a.withOutgoing(receiverId, requestId));
+            apply(receiverId, a -> a.withIncoming(senderId, requestId));
+        });
+    }
+
+    public void requestAccepted(long requestId, long senderId, long receiverId) {
+        afterCommit(() -> {
+            apply(senderId, a -> a.withFriend(receiverId, requestId));
+            apply(receiverId, a -> a.withFriend(senderId, requestId));
+        });
+    }
+
+    public void requestRejected(long requestId, long senderId, long receiverId) {
+        afterCommit(() -> {
+            apply(senderId, a -> a.withRejected(receiverId, requestId));
+            apply(receiverId, a -> a.withRejected(senderId, requestId));
+        });
+    }
+
+    /** The request row between the two users was deleted (cancelled request or unfriend). */
+    public void edgeRemoved(long a, long b) {
+        afterCommit(() -> {
+            apply(a, adj -> adj.without(b));
+            apply(b, adj -> adj.without(a));
+        });
+    }
+
+    /** Forget a deleted user: their entry and every cached entry that references them. */
+    public void evictUser(long userId) {
+        afterCommit(() -> {
+            bump(userId);
+            cache.remove(userId);
+            cache.entrySet().removeIf(e -> {
+                if (!e.getValue().mentions(userId)) return false;
+                bump(e.getKey());
+                return true;
+            });
+        });
+    }
+
+    private void apply(long userId, UnaryOperator<Adjacency> change) {
+        bump(userId);
+        cache.computeIfPresent(userId, (k, a) -> change.apply(a));
+    }
+
+    private void bump(long userId) {
+        versions.merge(userId, 1L, Long::sum);
+    }
+
+    /* ==================== Loading ==================== */
+
+    private Adjacency adjacency(long userId) {
+        Adjacency hit = cache.get(userId);
+        long now = System.currentTimeMillis();
+        if (hit != null && now - hit.loadedAtMillis() < ttlSeconds * 1000L) return hit;
+
+        long version = versions.getOrDefault(userId, 0L);
+        Adjacency loaded = load(userId, now);
+        if (versions.getOrDefault(userId, 0L) == version) {
+            if (cache.size() >= maxEntries) evict();
+            cache.put(userId, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Make sure these users are cached, loading the missing or expired ones
+     * with one query per {@link #PRELOAD_CHUNK} ids instead of one each.
+     * Used before walking a user's friends-of-friends.
+     */
+    public void preload(long[] userIds) {
+        long now = System.currentTimeMillis();
+        List<Long> missing = new ArrayList<>();
+        for (long id : userIds) {
+            Adjacency hit = cache.get(id);
+            if (hit == null || now - hit.loadedAtMillis() >= ttlSeconds * 1000L) missing.add(id);
+        }
+        for (int from = 0; from < missing.size(); from += PRELOAD_CHUNK) {
+            List<Long> chunk = missing.subList(from, Math.min(from + PRELOAD_CHUNK, missing.size()));
+            Map<Long, Long> before = new HashMap<>();
+            Map<Long, List<FriendRequestRepository.EdgeView>> byUser = new HashMap<>();
+            for (Long id : chunk) {
+                before.put(id, versions.getOrDefault(id, 0L));
+                byUser.put(id, new ArrayList<>());
+            }
+            for (FriendRequestRepository.EdgeView row : friendRequestRepository.findEdgesOfAny(chunk)) {
+                List<FriendRequestRepository.EdgeView> s = byUser.get(row.getSenderId());
+                if (s != null) s.add(row);
+                List<FriendRequestRepository.EdgeView> r = byUser.get(row.getReceiverId());
+                if (r != null && r != s) r.add(row);
+            }
+            for (Map.Entry<Long, List<FriendRequestRepository.EdgeView>> e : byUser.entrySet()) {
+                Long id = e.getKey();
+                if (versions.getOrDefault(id, 0L).equals(before.get(id))) {
+                    if (cache.size() >= maxEntries) evict();
+                    cache.put(id, build(id, e.getValue(), now));
+                }
+            }
+        }
+    }
+
+    private Adjacency load(long userId, long now) {
+        return build(userId, friendRequestRepository.findEdgesOf(userId), now);
+    }
+
+    private Adjacency build(long userId, List<FriendRequestRepository.EdgeView> rows, long now) {
+        EdgeSet.Builder friends = new EdgeSet.Builder();
+        EdgeSet.Builder incoming = new EdgeSet.Builder();
+        EdgeSet.Builder outgoing = new EdgeSet.Builder();
+        EdgeSet.Builder rejected = new EdgeSet.Builder();
+        for (FriendRequestRepository.EdgeView row : rows) {
+            if (row.getSenderId() == null || row.getReceiverId() == null) continue;
+            boolean iAmSender = row.getSenderId() == userId;
+            long other = iAmSender ? row.getReceiverId() : row.getSenderId();
+            if (other == userId) continue;
+            FriendRequestStatus status = row.getStatus() != null
+                    ? FriendRequestStatus.valueOf(row.getStatus())
+                    : FriendRequestStatus.PENDING;
+            switch (status) {
+                case ACCEPTED -> friends.add(other, row.getId());
+                case PENDING -> (iAmSender ? outgoing : incoming).add(other, row.getId());
+                case REJECTED -> rejected.add(other, row.getId());
+            }
+        }
+        return new Adjacency(friends.build(), incoming.build(), outgoing.build(), rejected.build(), now);
+    }
+
+    /** Drop expired entries first; if still full, drop the oldest tenth. */
+    private void evict() {
+        long cutoff = System.currentTimeMillis() - ttlSeconds * 1000L;
+        cache.entrySet().removeIf(e -> e.getValue().loadedAtMillis() < cutoff);
+        if (cache.size() >= maxEntries) {
+            cache.entrySet().stream()
+                    .sorted(Comparator.comparingLong(e -> e.getValue().loadedAtMillis()))
+                    .limit(Math.max(1, maxEntries / 10))
+                    .toList()
+                    .forEach(e -> cache.remove(e.getKey(), e.getValue()));
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /* ==================== Structures ==================== */
+
+    /**
+     * One user's edges.  A pair of users is in at most one set; moving an
+     * edge (e.g. pending to accepted) removes it from the others.
+     */
+    private record Adjacency(EdgeSet friends, EdgeSet incoming, EdgeSet outgoing, EdgeSet rejected,
+                             long loadedAtMillis) {
+
+        boolean mentions(long other) {
+            return friends.contains(other) || incoming.contains(other)
+                    || outgoing.contains(other) || rejected.contains(other);
+        }
+
+        Adjacency without(long other) {
+            return new Adjacency(friends.without(other), incoming.without(other),
+                    outgoing.without(other), rejected.without(other), loadedAtMillis);
+        }
+
+        Adjacency withFriend(long other, long requestId) {
+            Adjacency a = without(other);
+            return new Adjacency(a.friends.with(other, requestId), a.incoming, a.outgoing, a.rejected, loadedAtMillis);
+        }
+
+        Adjacency withIncoming(long other, long requestId) {
+            Adjacency a = without(other);
+            return new Adjacency(a.friends, a.incoming.with(other, requestId), a.outgoing, a.rejected, loadedAtMillis);
+        }
+
+        Adjacency withOutgoing(long other, long requestId) {
+            Adjacency a = without(other);
+            return new Adjacency(a.friends, a.incoming, a.outgoing.with(other, requestId), a.rejected, loadedAtMillis);
+        }
+
+        Adjacency withRejected(long other, long requestId) {
+            Adjacency a = without(other);
+            return new Adjacency(a.friends, a.incoming, a.outgoing, a.rejected.with(other, requestId), loadedAtMillis);
+        }
+    }
+
+    /**
+     * Immutable sorted set of user ids with the request id of each edge in
+     * a parallel array.  Lookups are a binary search; request id 0 means
+     * "absent" (identity ids start at 1).
+     */
+    private static final class EdgeSet {
+
+        static final EdgeSet EMPTY = new EdgeSet(new long[0], new long[0]);
+
+        private final long[] ids;
+        private final long[] requestIds;
+
+        private EdgeSet(long[] ids, long[] requestIds) {
+            this.ids = ids;
+            this.requestIds = requestIds;
+        }
+
+        long[] ids() {
+            return ids;
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, id) >= 0;
+        }
+
+        long requestId(long id) {
+            int i = Arrays.binarySearch(ids, id);
+            return i >= 0 ? requestIds[i] : 0;
+        }
+
+        EdgeSet with(long id, long requestId) {
+            int i = Arrays.binarySearch(ids, id);
+            if (i >= 0) {
+                long[] r = requestIds.clone();
+                r[i] = requestId;
+                return new EdgeSet(ids, r);
+            }
+            int at = -i - 1;
+            long[] n = new long[ids.length + 1];
+            long[] r = new long[ids.length + 1];
+            System.arraycopy(ids, 0, n, 0, at);
+            System.arraycopy(requestIds, 0, r, 0, at);
+            n[at] = id;
+            r[at] = requestId;
+            System.arraycopy(ids, at, n, at + 1, ids.length - at);
+            System.arraycopy(requestIds, at, r, at + 1, ids.length - at);
+            return new EdgeSet(n, r);
+        }
+
+        EdgeSet without(long id) {
+            int i = Arrays.binarySearch(ids, id);
+            if (i < 0) return this;
+            if (ids.length == 1) return EMPTY;
+            long[] n = new long[ids.length - 1];
+            long[] r = new long[ids.length - 1];
+            System.arraycopy(ids, 0, n, 0, i);
+            System.arraycopy(requestIds, 0, r, 0, i);
+            System.arraycopy(ids, i + 1, n, i, ids.length - i - 1);
+            System.arraycopy(requestIds, i + 1, r, i, ids.length - i - 1);
+            return new EdgeSet(n, r);
+        }
+
+        /** Collects unsorted edges; duplicates keep the first request id seen. */
+        static final class Builder {
+            private long[] ids = new long[8];
+            private long[] requestIds = new long[8];
+            private int n;
+
+            void add(long id, Long requestId) {
+                if (n == ids.length) {
+                    ids = Arrays.copyOf(ids, n * 2);
+                    requestIds = Arrays.copyOf(requestIds, n * 2);
+                }
+                ids[n] = id;
+                requestIds[n] = requestId != null ? requestId : 0;
+                n++;
+            }
+
+            EdgeSet build() {
+                if (n == 0) return EMPTY;
+                Integer[] order = new Integer[n];
+                for (int i = 0; i < n; i++) order[i] = i;
+                Arrays.sort(order, Comparator.comparingLong(i -> ids[i]));
+                long[] sortedIds = new long[n];
+                long[] sortedReqs = new long[n];
+                int m = 0;
+                for (int k = 0; k < n; k++) {
+                    int i = order[k];
+                    if (m > 0 && sortedIds[m - 1] == ids[i]) continue;
+                    sortedIds[m] = ids[i];
+                    sortedReqs[m] = requestIds[i];
+                    m++;
+                }
+                return new EdgeSet(Arrays.copyOf(sortedIds, m), Arrays.copyOf(sortedReqs, m));
+            }
+        }
+    }
+}
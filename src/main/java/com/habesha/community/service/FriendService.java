@@ -8,8 +8,10 @@ import com.habesha.community.model.FriendRequestStatus;
 import com.habesha.community.model.User;
 import com.habesha.community.repository.FriendRequestRepository;
 import com.habesha.community.repository.UserRepository;
+import com.habesha.community.security.AuthPrincipal;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -24,6 +26,13 @@ public class FriendService {
     private final FriendRequestRepository friendRequestRepository;
     private final UserRepository userRepository;
     private final UserService userService;
+    private final RealtimeService realtimeService;
+    private final ActivityLogService activityLogService;
+    private final CountsService countsService;
+    private final FriendGraphCache friendGraph;
+    private final FriendSuggestionService friendSuggestionService;
+    private final UserStatsService userStatsService;
+    private final UserSearchService userSearchService;
 
     /* ==================== Core helpers ==================== */
 
@@ -36,18 +45,34 @@ public class FriendService {
                 .orElseThrow(() -> new IllegalStateException("Authenticated user not found"));
     }
 
+    /** The signed-in user's id, straight from the principal when possible. */
+    private Long currentUserId() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getPrincipal() instanceof AuthPrincipal me && me.id() != null) {
+            return me.id();
+        }
+        return getCurrentUserOrThrow().getId();
+    }
+
+    /** Only consulted when the graph has no edge, to keep the "User not found" contract. */
+    private void requireUser(Long userId) {
+        if (userId == null || !userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("User not found");
+        }
+    }
+
     private Set<Long> friendIdsOf(User u) {
-        return friendRequestRepository
-                .findBySenderOrReceiverAndStatus(u, u, FriendRequestStatus.ACCEPTED)
-                .stream()
-                .map(fr -> fr.getSender().getId().equals(u.getId())
-                        ? fr.getReceiver().getId()
-                        : fr.getSender().getId())
-                .collect(Collectors.toSet());
+        long[] ids = friendGraph.friendIds(u.getId());
+        Set<Long> out = new HashSet<>(ids.length * 2);
+        for (long id : ids) out.add(id);
+        return out;
     }
 
-    private UserSummaryDto summarize(User u) {
-        return userService.toSummary(u);
+    /** Summaries for a set of users, built in one batch and sorted by display name. */
+    private List<UserSummaryDto> summarizeSorted(Collection<User> users) {
+        List<UserSummaryDto> out = new ArrayList<>(userService.toSummaries(users).values());
+        out.sort(Comparator.comparing(UserSummaryDto::getDisplayName, String.CASE_INSENSITIVE_ORDER));
+        return out;
     }
 
     private <T> PagedResponse<T> toPage(List<T> all, int page, int size) {
@@ -64,100 +89,61 @@ public class FriendService {
      * Check if the current user and target user are friends.
      */
     public boolean areFriends(Long targetUserId) {
-        User me = getCurrentUserOrThrow();
-        if (me.getId().equals(targetUserId)) return false;
-
-        User target = userRepository.findById(targetUserId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-
-        Optional<FriendRequest> direct = friendRequestRepository.findBySenderAndReceiver(me, target);
-        if (direct.isPresent() && direct.get().getStatus() == FriendRequestStatus.ACCEPTED) {
-            return true;
-        }
-        
-        Optional<FriendRequest> reverse = friendRequestRepository.findBySenderAndReceiver(target, me);
-        return reverse.isPresent() && reverse.get().getStatus() == FriendRequestStatus.ACCEPTED;
+        Long myId = currentUserId();
+        if (myId.equals(targetUserId)) return false;
+        if (friendGraph.areFriends(myId, targetUserId)) return true;
+        requireUser(targetUserId);
+        return false;
     }
 
     public FriendRelationshipStatus getRelationshipStatus(Long targetUserId) {
-        User me = getCurrentUserOrThrow();
-        if (me.getId().equals(targetUserId)) return FriendRelationshipStatus.FRIENDS;
-
-        User target = userRepository.findById(targetUserId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-
-        Optional<FriendRequest> direct = friendRequestRepository.findBySenderAndReceiver(me, target);
-        if (direct.isPresent()) {
-            var fr = direct.get();
-            if (fr.getStatus() == FriendRequestStatus.PENDING) return FriendRelationshipStatus.REQUEST_SENT;
-            if (fr.getStatus() == FriendRequestStatus.ACCEPTED) return FriendRelationshipStatus.FRIENDS;
-        }
-        Optional<FriendRequest> reverse = friendRequestRepository.findBySenderAndReceiver(target, me);
-        if (reverse.isPresent()) {
-            var fr = reverse.get();
-            if (fr.getStatus() == FriendRequestStatus.PENDING) return FriendRelationshipStatus.REQUEST_RECEIVED;
-            if (fr.getStatus() == FriendRequestStatus.ACCEPTED) return FriendRelationshipStatus.FRIENDS;
-        }
-        return FriendRelationshipStatus.NONE;
+        Long myId = currentUserId();
+        if (myId.equals(targetUserId)) return FriendRelationshipStatus.FRIENDS;
+        FriendGraphCache.Relation relation = friendGraph.relation(myId, targetUserId);
+        if (relation.status() == FriendRelationshipStatus.NONE) requireUser(targetUserId);
+        return relation.status();
     }
 
     public RelationshipStatusResponse getRelationshipStatusResponse(Long targetUserId) {
-        User me = getCurrentUserOrThrow();
-        User target = userRepository.findById(targetUserId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-
-        Optional<FriendRequest> direct = friendRequestRepository.findBySenderAndReceiver(me, target);
-        if (direct.isPresent()) {
-            var fr = direct.get();
-            if (fr.getStatus() == FriendRequestStatus.PENDING) {
-                return RelationshipStatusResponse.builder()
-                        .status(FriendRelationshipStatus.REQUEST_SENT)
-                        .pendingRequestId(fr.getId())
-                        .iAmSender(true)
-                        .build();
-            }
-            if (fr.getStatus() == FriendRequestStatus.ACCEPTED) {
-                return RelationshipStatusResponse.builder()
-                        .status(FriendRelationshipStatus.FRIENDS)
-                        .build();
-            }
-        }
-        Optional<FriendRequest> reverse = friendRequestRepository.findBySenderAndReceiver(target, me);
-        if (reverse.isPresent()) {
-            var fr = reverse.get();
-            if (fr.getStatus() == FriendRequestStatus.PENDING) {
-                return RelationshipStatusResponse.builder()
-                        .status(FriendRelationshipStatus.REQUEST_RECEIVED)
-                        .pendingRequestId(fr.getId())
-                        .iAmSender(false)
-                        .build();
-            }
-            if (fr.getStatus() == FriendRequestStatus.ACCEPTED) {
-                return RelationshipStatusResponse.builder()
-                        .status(FriendRelationshipStatus.FRIENDS)
+        Long myId = currentUserId();
+        FriendGraphCache.Relation relation = friendGraph.relation(myId, targetUserId);
+        return switch (relation.status()) {
+            case REQUEST_SENT -> RelationshipStatusResponse.builder()
+                    .status(FriendRelationshipStatus.REQUEST_SENT)
+                    .pendingRequestId(relation.requestId())
+                    .iAmSender(true)
+                    .build();
+            case REQUEST_RECEIVED -> RelationshipStatusResponse.builder()
+                    .status(FriendRelationshipStatus.REQUEST_RECEIVED)
+                    .pendingRequestId(relation.requestId())
+                    .iAmSender(false)
+                    .build();
+            case FRIENDS -> RelationshipStatusResponse.builder()
+                    .status(FriendRelationshipStatus.FRIENDS)
+                    .build();
+            default -> {
+                requireUser(targetUserId);
+                yield RelationshipStatusResponse.builder()
+                        .status(FriendRelationshipStatus.NONE)
                         .build();
             }
-        }
-        return RelationshipStatusResponse.builder()
-                .status(FriendRelationshipStatus.NONE)
-                .build();
+        };
     }
 
     @Transactional
     public void removeFriend(Long targetUserId) {
-        User me = getCurrentUserOrThrow();
-        User target = userRepository.findById(targetUserId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-
-        Optional<FriendRequest> direct = friendRequestRepository.findBySenderAndReceiver(me, target);
-        if (direct.isPresent() && direct.get().getStatus() == FriendRequestStatus.ACCEPTED) {
-            friendRequestRepository.delete(direct.get());
+        Long myId = currentUserId();
+        FriendGraphCache.Relation relation = friendGraph.relation(myId, targetUserId);
+        if (relation.status() != FriendRelationshipStatus.FRIENDS) {
+            requireUser(targetUserId);
             return;
         }
-        Optional<FriendRequest> reverse = friendRequestRepository.findBySenderAndReceiver(target, me);
-        if (reverse.isPresent() && reverse.get().getStatus() == FriendRequestStatus.ACCEPTED) {
-            friendRequestRepository.delete(reverse.get());
-        }
+        friendRequestRepository.deleteById(relation.requestId());
+        activityLogService.friendRemoved(relation.requestId());
+        friendGraph.edgeRemoved(myId, targetUserId);
+        userStatsService.adjust(myId, UserStatsService.Counter.FRIENDS, -1);
+        userStatsService.adjust(targetUserId, UserStatsService.Counter.FRIENDS, -1);
+        friendSuggestionService.friendshipChanged(myId, targetUserId);
     }
 
     /* ==================== Requests ==================== */
@@ -172,9 +158,14 @@ public class FriendService {
             throw new IllegalArgumentException("Cannot send a friend request to yourself");
         }
 
-        boolean exists = friendRequestRepository.findBySenderAndReceiver(sender, receiver).isPresent()
-                || friendRequestRepository.findBySenderAndReceiver(receiver, sender).isPresent();
-        if (exists) throw new IllegalStateException("A friend request already exists");
+        // An edge in the graph is enough to refuse (the graph's TTL bounds a
+        // stale one).  Its absence may be stale too (another node, a send
+        // still committing), so confirm that with the table.
+        // uq_friend_requests_pair (V33) catches a concurrent send that passes both.
+        if (friendGraph.hasAnyRequest(sender.getId(), receiver.getId())
+                || friendRequestRepository.existsBetween(sender.getId(), receiver.getId())) {
+            throw new IllegalStateException("A friend request already exists");
+        }
 
         FriendRequest entity = FriendRequest.builder()
                 .sender(sender)
@@ -182,7 +173,15 @@ public class FriendService {
                 .status(FriendRequestStatus.PENDING)
                 .build();
 
-        friendRequestRepository.save(entity);
+        try {
+            friendRequestRepository.saveAndFlush(entity);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("A friend request already exists");
+        }
+        friendGraph.requestSent(entity.getId(), sender.getId(), receiver.getId());
+        realtimeService.publish(receiver.getId(), RealtimeService.FRIEND_REQUEST,
+                Map.of("requestId", entity.getId(), "senderId", sender.getId()));
+        countsService.adjust(receiver.getId(), CountsService.PENDING_REQUESTS, 1);
     }
 
     @Transactional
@@ -195,8 +194,29 @@ public class FriendService {
             throw new IllegalStateException("You are not authorized to respond to this request");
         }
 
+        boolean wasPending = request.getStatus() == FriendRequestStatus.PENDING;
+        boolean wasAccepted = request.getStatus() == FriendRequestStatus.ACCEPTED;
         request.setStatus(action.isAccept() ? FriendRequestStatus.ACCEPTED : FriendRequestStatus.REJECTED);
         friendRequestRepository.save(request);
+        if (action.isAccept()) {
+            friendGraph.requestAccepted(request.getId(), request.getSender().getId(), current.getId());
+        } else {
+            friendGraph.requestRejected(request.getId(), request.getSender().getId(), current.getId());
+        }
+        if (wasAccepted != action.isAccept()) {
+            long delta = action.isAccept() ? 1 : -1;
+            userStatsService.adjust(request.getSender().getId(), UserStatsService.Counter.FRIENDS, delta);
+            userStatsService.adjust(current.getId(), UserStatsService.Counter.FRIENDS, delta);
+            friendSuggestionService.friendshipChanged(request.getSender().getId(), current.getId());
+        }
+        if (wasPending && action.isAccept()) {
+            activityLogService.friendAccepted(request);
+        }
+        realtimeService.publish(request.getSender().getId(), RealtimeService.FRIEND_RESPONSE,
+                Map.of("requestId", request.getId(), "userId", current.getId(), "accepted", action.isAccept()));
+        if (wasPending) {
+            countsService.adjust(current.getId(), CountsService.PENDING_REQUESTS, -1);
+        }
     }
 
     @Transactional
@@ -211,6 +231,11 @@ public class FriendService {
             throw new IllegalStateException("Only pending requests can be cancelled");
         }
         friendRequestRepository.delete(req);
+        Long receiverId = req.getReceiver().getId();
+        friendGraph.edgeRemoved(me.getId(), receiverId);
+        realtimeService.publish(receiverId, RealtimeService.FRIEND_REQUEST_CANCELLED,
+                Map.of("requestId", requestId, "senderId", me.getId()));
+        countsService.adjust(receiverId, CountsService.PENDING_REQUESTS, -1);
     }
 
     /* ==================== Queries & paging ==================== */
@@ -218,26 +243,17 @@ public class FriendService {
     public PagedResponse<UserSummaryDto> getFriendsPage(int page, int size) {
         User me = getCurrentUserOrThrow();
         Set<Long> ids = friendIdsOf(me);
-        List<UserSummaryDto> all = ids.stream()
-                .map(id -> summarize(userService.getEntityById(id)))
-                .sorted(Comparator.comparing(UserSummaryDto::getDisplayName, String.CASE_INSENSITIVE_ORDER))
-                .collect(Collectors.toList());
+        List<UserSummaryDto> all = summarizeSorted(userRepository.findAllById(ids));
         return toPage(all, page, size);
     }
 
     public List<UserSummaryDto> getMutualFriends(Long targetUserId) {
-        User me = getCurrentUserOrThrow();
-        User target = userRepository.findById(targetUserId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        Long myId = currentUserId();
+        long[] mutualIds = friendGraph.mutualFriendIds(myId, targetUserId);
+        if (mutualIds.length == 0) requireUser(targetUserId);
 
-        Set<Long> myFriends = friendIdsOf(me);
-        Set<Long> theirFriends = friendIdsOf(target);
-
-        List<UserSummaryDto> mutuals = myFriends.stream()
-                .filter(theirFriends::contains)
-                .map(id -> summarize(userService.getEntityById(id)))
-                .sorted(Comparator.comparing(UserSummaryDto::getDisplayName, String.CASE_INSENSITIVE_ORDER))
-                .collect(Collectors.toList());
+        List<UserSummaryDto> mutuals = summarizeSorted(userRepository.findAllById(
+                Arrays.stream(mutualIds).boxed().toList()));
 
         // populate mutualCount= number of mutuals with me (for each item, it's all mutuals except itself)
         for (UserSummaryDto dto : mutuals) {
@@ -292,52 +308,39 @@ public class FriendService {
 
     /* ==================== Discovery ==================== */
 
+    /**
+     * People you may know, ranked by mutual friends.  Served from
+     * {@link FriendSuggestionService}'s precomputed rankings; only the
+     * returned users are loaded.
+     */
     public List<UserSummaryDto> getFriendSuggestions(int limit) {
-        User me = getCurrentUserOrThrow();
-
-        // exclude set: me + friends + pending in/out
-        Set<Long> exclude = new HashSet<>();
-        exclude.add(me.getId());
-        friendIdsOf(me).forEach(exclude::add);
-        getIncomingRequests().forEach(r -> exclude.add(r.getSenderId()));
-        getOutgoingRequests().forEach(r -> exclude.add(r.getReceiverId()));
-
-        Set<Long> myFriendIds = friendIdsOf(me);
-
-        List<UserSummaryDto> ranked = userRepository.findAll().stream()
-                .filter(u -> !exclude.contains(u.getId()))
-                .map(u -> {
-                    // mutuals with me
-                    int mutual = 0;
-                    for (Long id : friendIdsOf(u)) if (myFriendIds.contains(id)) mutual++;
-                    UserSummaryDto dto = summarize(u);
-                    dto.setMutualCount(mutual);
-                    return dto;
-                })
-                .sorted(Comparator
-                        .comparing(UserSummaryDto::getMutualCount, Comparator.nullsFirst(Integer::compareTo)).reversed()
-                        .thenComparing(UserSummaryDto::getDisplayName, String.CASE_INSENSITIVE_ORDER))
-                .limit(Math.max(1, limit))
-                .collect(Collectors.toList());
-
+        Long myId = currentUserId();
+        List<FriendSuggestionService.Suggestion> top = friendSuggestionService.suggestionsFor(myId, limit);
+        if (top.isEmpty()) return List.of();
+
+        List<Long> ids = top.stream().map(FriendSuggestionService.Suggestion::userId).toList();
+        Map<Long, UserSummaryDto> summaries = userService.toSummaries(userRepository.findAllById(ids));
+        List<UserSummaryDto> ranked = new ArrayList<>(top.size());
+        for (FriendSuggestionService.Suggestion suggestion : top) {
+            UserSummaryDto dto = summaries.get(suggestion.userId());
+            if (dto == null) continue; // deleted since the ranking was computed
+            dto.setMutualCount(suggestion.mutualCount());
+            ranked.add(dto);
+        }
+        ranked.sort(Comparator
+                .comparing(UserSummaryDto::getMutualCount, Comparator.nullsFirst(Integer::compareTo)).reversed()
+                .thenComparing(UserSummaryDto::getDisplayName, String.CASE_INSENSITIVE_ORDER));
         return ranked;
     }
 
     public PagedResponse<UserSummaryDto> searchUsers(String query, int page, int size) {
-        if (query == null || query.trim().length() < 2) {
-            return toPage(List.of(), page, size);
-        }
-        List<User> matches = userRepository
-                .findByNameContainingIgnoreCaseOrUsernameContainingIgnoreCase(query, query);
-
-        // Exclude myself
-        Long meId = getCurrentUserOrThrow().getId();
-        List<UserSummaryDto> all = matches.stream()
-                .filter(u -> !Objects.equals(u.getId(), meId))
-                .map(this::summarize)
-                .sorted(Comparator.comparing(UserSummaryDto::getDisplayName, String.CASE_INSENSITIVE_ORDER))
+        UserSearchService.Result result = userSearchService.search(currentUserId(), query, page, size);
+        Map<Long, UserSummaryDto> summaries = userService.toSummaries(userRepository.findAllById(result.ids()));
+        List<UserSummaryDto> content = result.ids().stream()
+                .map(summaries::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
-
-        return toPage(all, page, size);
+        int totalPages = (int) Math.ceil(result.total() / (double) size);
+        return new PagedResponse<>(content, page, size, result.total(), totalPages, page + 1 >= totalPages);
     }
 }
@@ -0,0 +1,200 @@
+package com.habesha.community.service;
+
+import com.habesha.community.repository.UserBlockRepository;
+import com.habesha.community.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * "People you may know", ranked by number of mutual friends.
+ *
+ * Candidates are friends-of-friends only.  The user's friends are pulled
+ * into {@link FriendGraphCache} in batches.  Mutual counts are then
+ * accumulated from their friend sets and a bounded min-heap keeps the best
+ * {@link #MAX_SUGGESTIONS}, so the cost follows the size of the user's
+ * two-hop neighbourhood rather than the users table.  When that yields
+ * fewer than the maximum, the newest active accounts fill the rest with a
+ * mutual count of 0, so someone without friends yet still gets suggestions.
+ *
+ * Rankings are precomputed per user and cached.  A friendship being made or
+ * removed drops the rankings it can affect: both users' and their friends'.
+ * A block drops the two users' rankings.  Pending requests are re-checked
+ * against the graph on every read, so sending or answering a request costs
+ * nothing here.
+ */
+@Service
+@RequiredArgsConstructor
+public class FriendSuggestionService {
+
+    public static final int MAX_SUGGESTIONS = 100;
+
+    /** Upper bound on the ids scanned for cold-start filler. */
+    private static final int MAX_FILLER_SCAN = 500;
+
+    public record Suggestion(long userId, int mutualCount) {}
+
+    /** Best first: most mutuals, then newest account. */
+    private static final Comparator<Suggestion> BEST_FIRST = Comparator
+            .comparingInt(Suggestion::mutualCount).reversed()
+            .thenComparing(Comparator.comparingLong(Suggestion::userId).reversed());
+
+    /** Precomputed candidates for one user, best first, in parallel arrays. */
+    private record Ranking(long[] ids, int[] mutuals, long computedAtMillis) {}
+
+    private final FriendGraphCache friendGraph;
+    private final UserBlockRepository userBlockRepository;
+    private final UserRepository userRepository;
+
+    private final Map<Long, Ranking> cache = new ConcurrentHashMap<>();
+
+    /** Bumped on every invalidation; a ranking computed across a bump is not cached. */
+    private final AtomicLong epoch = new AtomicLong();
+
+    @Value("${app.friends.suggestions.max-entries:20000}")
+    private int maxEntries = 20000;
+
+    @Value("${app.friends.suggestions.ttl-seconds:900}")
+    private long ttlSeconds = 900;
+
+    /** Up to {@code limit} suggestions for the user, best first. */
+    public List<Suggestion> suggestionsFor(long userId, int limit) {
+        Ranking ranking = ranking(userId);
+        int want = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        long[] incoming = friendGraph.incomingIds(userId);
+        long[] outgoing = friendGraph.outgoingIds(userId);
+        List<Suggestion> out = new ArrayList<>(want);
+        for (int i = 0; i < ranking.ids().length && out.size() < want; i++) {
+            long id = ranking.ids()[i];
+            // requests sent or received since the ranking was computed
+            if (Arrays.binarySearch(incoming, id) >= 0 || Arrays.binarySearch(outgoing, id) >= 0) continue;
+            out.add(new Suggestion(id, ranking.mutuals()[i]));
+        }
+        return out;
+    }
+
+    /* ==================== Invalidation (after commit) ==================== */
+
+    /** Two users became friends or stopped being friends. */
+    public void friendshipChanged(long a, long b) {
+        afterCommit(() -> {
+            epoch.incrementAndGet();
+            cache.remove(a);
+            cache.remove(b);
+            for (long f : friendGraph.friendIds(a)) cache.remove(f);
+            for (long f : friendGraph.friendIds(b)) cache.remove(f);
+        });
+    }
+
+    /** One user blocked or unblocked the other. */
+    public void blockChanged(long a, long b) {
+        afterCommit(() -> {
+            epoch.incrementAndGet();
+            cache.remove(a);
+            cache.remove(b);
+        });
+    }
+
+    /* ==================== Ranking ==================== */
+
+    private Ranking ranking(long userId) {
+        Ranking hit = cache.get(userId);
+        long now = System.currentTimeMillis();
+        if (hit != null && now - hit.computedAtMillis() < ttlSeconds * 1000L) return hit;
+
+        long seen = epoch.get();
+        Ranking computed = compute(userId, now);
+        if (epoch.get() == seen) {
+            if (cache.size() >= maxEntries) evict();
+            cache.put(userId, computed);
+        }
+        return computed;
+    }
+
+    private Ranking compute(long userId, long now) {
+        long[] friends = friendGraph.friendIds(userId);
+
+        Set<Long> exclude = new HashSet<>(userBlockRepository.findBlockedEitherWay(userId));
+        exclude.add(userId);
+        for (long id : friends) exclude.add(id);
+        for (long id : friendGraph.incomingIds(userId)) exclude.add(id);
+        for (long id : friendGraph.outgoingIds(userId)) exclude.add(id);
+
+        // mutual counts over friends-of-friends
+        friendGraph.preload(friends);
+        Map<Long, int[]> mutuals = new HashMap<>();
+        for (long friend : friends) {
+            for (long candidate : friendGraph.friendIds(friend)) {
+                if (exclude.contains(candidate)) continue;
+                mutuals.computeIfAbsent(candidate, k -> new int[1])[0]++;
+            }
+        }
+
+        // bounded top-K: the heap head is the weakest kept candidate
+        PriorityQueue<Suggestion> heap = new PriorityQueue<>(MAX_SUGGESTIONS + 1, BEST_FIRST.reversed());
+        for (Map.Entry<Long, int[]> e : mutuals.entrySet()) {
+            heap.offer(new Suggestion(e.getKey(), e.getValue()[0]));
+            if (heap.size() > MAX_SUGGESTIONS) heap.poll();
+        }
+        List<Suggestion> best = new ArrayList<>(heap);
+        best.sort(BEST_FIRST);
+
+        if (best.size() < MAX_SUGGESTIONS) {
+            int scan = Math.min(MAX_FILLER_SCAN, MAX_SUGGESTIONS + exclude.size());
+            for (Long id : userRepository.findNewestActiveIds(PageRequest.of(0, scan))) {
+                if (best.size() >= MAX_SUGGESTIONS) break;
+                if (id == null || exclude.contains(id) || mutuals.containsKey(id)) continue;
+                best.add(new Suggestion(id, 0));
+            }
+        }
+
+        long[] ids = new long[best.size()];
+        int[] counts = new int[best.size()];
+        for (int i = 0; i < best.size(); i++) {
+            ids[i] = best.get(i).userId();
+            counts[i] = best.get(i).mutualCount();
+        }
+        return new Ranking(ids, counts, now);
+    }
+
+    /** Drop expired entries first; if still full, drop the oldest tenth. */
+    private void evict() {
+        long cutoff = System.currentTimeMillis() - ttlSeconds * 1000L;
+        cache.entrySet().removeIf(e -> e.getValue().computedAtMillis() < cutoff);
+        if (cache.size() >= maxEntries) {
+            cache.entrySet().stream()
+                    .sorted(Comparator.comparingLong(e -> e.getValue().computedAtMillis()))
+                    .limit(Math.max(1, maxEntries / 10))
+                    .toList()
+                    .forEach(e -> cache.remove(e.getKey(), e.getValue()));
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -7,22 +7,28 @@ import com.habesha.community.model.HomeSwapPhoto;
 import com.habesha.community.model.User;
 import com.habesha.community.repository.HomeSwapPhotoRepository;
 import com.habesha.community.repository.HomeSwapRepository;
+import com.habesha.community.repository.ListingSpecifications;
 import com.habesha.community.repository.UserRepository;
+import com.habesha.community.security.AuthPrincipal;
 import com.habesha.community.service.SupabaseStorageService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
@@ -37,6 +43,9 @@ public class HomeSwapService {
     private final UserRepository userRepository;
     private final DiskStorageService storage;
     private final SupabaseStorageService supabaseStorage;
+    private final MediaBlobService mediaBlobService;
+    private final PhotoProcessingService photoProcessing;
+    private final TransactionTemplate transactionTemplate;
 
     /* ---------- helpers ---------- */
 
@@ -53,6 +62,12 @@ public class HomeSwapService {
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found"));
     }
 
+    /** The signed-in user's id, from the principal when possible. */
+    private Long myId() {
+        Authentication a = auth();
+        return a != null && a.getPrincipal() instanceof AuthPrincipal p ? p.id() : me().getId();
+    }
+
     private boolean isAdmin(Authentication a) {
         if (a == null) return false;
         for (GrantedAuthority ga : a.getAuthorities()) {
@@ -116,16 +131,35 @@ public class HomeSwapService {
 
     /* ---------- create (multipart with photos) ---------- */
 
-    @Transactional
+    /**
+     * Not transactional itself: photos bound for Supabase are uploaded first,
+     * before any database access, and the post and its photo rows are then
+     * written in one short transaction.  If that fails, the uploads are
+     * deleted again.
+     */
     public HomeSwapResponse create(HomeSwapRequest req, List<MultipartFile> photos) {
         if (req == null) throw bad("Payload is required");
         if (req.getTitle() == null || req.getTitle().isBlank()) throw bad("Title is required");
         if (req.getLocation() == null || req.getLocation().isBlank()) throw bad("Location is required");
+        if (auth() == null || auth().getName() == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
+        }
 
         // Only enforce count here; DiskStorageService will enforce size/MIME/etc.
-        int count = (photos == null) ? 0 : (int) photos.stream().filter(f -> f != null && !f.isEmpty()).count();
-        if (count > MAX_PHOTOS) throw bad("Max " + MAX_PHOTOS + " photos");
+        List<MultipartFile> files = nonEmpty(photos);
+        if (files.size() > MAX_PHOTOS) throw bad("Max " + MAX_PHOTOS + " photos");
+
+        // The post has no id yet, so its objects go under a shared prefix.
+        List<String> cdnUrls = uploadToCdn("homeswap/new", files);
+        try {
+            return transactionTemplate.execute(status -> createWithPhotos(req, files, cdnUrls));
+        } catch (RuntimeException ex) {
+            if (cdnUrls != null) supabaseStorage.deleteAll(cdnUrls);
+            throw ex;
+        }
+    }
 
+    private HomeSwapResponse createWithPhotos(HomeSwapRequest req, List<MultipartFile> files, List<String> cdnUrls) {
         User u = me();
         HomeSwap e = HomeSwap.builder()
                 .user(u)
@@ -146,36 +180,40 @@ public class HomeSwapService {
 
         e = repo.save(e); // get ID
 
-        int sort = 0;
-        if (photos != null) {
-            for (MultipartFile file : photos) {
-                if (file == null || file.isEmpty()) continue;
-                try {
-                    HomeSwapPhoto p = storePhoto(e, file, sort++);
-                    photoRepo.save(p);
-                    e.getPhotos().add(p);
-                } catch (Exception ex) {
-                    throw new ResponseStatusException(
-                            HttpStatus.BAD_REQUEST,
-                            "Failed to store image: " + safeName(file),
-                            ex
-                    );
-                }
-            }
-        }
+        addPhotos(e, files, cdnUrls, 0);
         return toRes(e);
     }
 
     /* ---------- read ---------- */
 
+    /**
+     * One page of posts, newest first.  Two queries whatever the page
+     * size: posts with their owners, then photo metadata for the page
+     * (no image bytes); plus a count when the page is full.  Filters are optional: location and swap window
+     * are case-insensitive substrings, home type is exact
+     * (case-insensitive), bedrooms is a minimum.
+     */
     @Transactional(readOnly = true)
-    public List<HomeSwapResponse> list() {
-        return repo.findAll().stream()
-                .sorted(Comparator.comparing(
-                        HomeSwap::getCreatedAt,
-                        Comparator.nullsLast(Comparator.naturalOrder()))
-                        .reversed())
-                .map(this::toRes)
+    public List<HomeSwapResponse> list(String location, String homeType, Integer minBedrooms,
+                                       String swapWindow, int page, int size) {
+        List<HomeSwap> posts = repo.findAll(
+                ListingSpecifications.homeSwaps(location, homeType, minBedrooms, swapWindow),
+                PageRequest.of(page, size, ListingSpecifications.newestFirst())).getContent();
+        if (posts.isEmpty()) return List.of();
+
+        Map<Long, List<HomeSwapResponse.PhotoDto>> photos = new HashMap<>();
+        for (HomeSwapPhotoRepository.PhotoMetaView p : photoRepo.findMetaByHomeSwapIds(
+                posts.stream().map(HomeSwap::getId).toList())) {
+            HomeSwapResponse.PhotoDto pd = new HomeSwapResponse.PhotoDto();
+            pd.setId(p.getId());
+            pd.setUrl(p.getUrl());
+            pd.setWidth(p.getWidth());
+            pd.setHeight(p.getHeight());
+            pd.setSortOrder(p.getSortOrder());
+            photos.computeIfAbsent(p.getHomeSwapId(), k -> new ArrayList<>()).add(pd);
+        }
+        return posts.stream()
+                .map(e -> toRes(e, photos.getOrDefault(e.getId(), new ArrayList<>())))
                 .collect(Collectors.toList());
     }
 
@@ -214,8 +252,43 @@ public class HomeSwapService {
 
     /* ---------- update with photos ---------- */
 
-    @Transactional
+    /**
+     * Like {@link #create(HomeSwapRequest, List)}: new photos are uploaded
+     * before the transaction, and removed photos are deleted from Supabase
+     * after it commits.  Existence and ownership are checked before the
+     * upload and again inside the transaction.
+     */
     public HomeSwapResponse update(Long id, HomeSwapRequest req, List<MultipartFile> newPhotos, List<Long> removePhotoIds) {
+        if (req == null) throw bad("Payload is required");
+        if (req.getTitle() == null || req.getTitle().isBlank()) throw bad("Title is required");
+        if (req.getLocation() == null || req.getLocation().isBlank()) throw bad("Location is required");
+
+        List<MultipartFile> files = nonEmpty(newPhotos);
+        if (files.size() > MAX_PHOTOS) throw bad("Max " + MAX_PHOTOS + " photos");
+
+        // Refuse missing posts and non-owners before anything reaches the
+        // bucket; updateWithPhotos repeats the check on the locked-in row.
+        Long ownerId = repo.findOwnerId(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Post not found"));
+        if (!ownerId.equals(myId())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not authorised to update");
+        }
+
+        List<String> cdnUrls = uploadToCdn("homeswap/" + id, files);
+        List<String> removedUrls = new ArrayList<>();
+        HomeSwapResponse res;
+        try {
+            res = transactionTemplate.execute(status -> updateWithPhotos(id, req, files, cdnUrls, removePhotoIds, removedUrls));
+        } catch (RuntimeException ex) {
+            if (cdnUrls != null) supabaseStorage.deleteAll(cdnUrls);
+            throw ex;
+        }
+        supabaseStorage.deleteAll(removedUrls); // no-op for non-Supabase
+        return res;
+    }
+
+    private HomeSwapResponse updateWithPhotos(Long id, HomeSwapRequest req, List<MultipartFile> files, List<String> cdnUrls,
+                                              List<Long> removePhotoIds, List<String> removedUrls) {
         HomeSwap e = repo.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Post not found"));
 
@@ -225,10 +298,6 @@ public class HomeSwapService {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not authorised to update");
         }
 
-        if (req == null) throw bad("Payload is required");
-        if (req.getTitle() == null || req.getTitle().isBlank()) throw bad("Title is required");
-        if (req.getLocation() == null || req.getLocation().isBlank()) throw bad("Location is required");
-
         e.setTitle(req.getTitle().trim());
         e.setLocation(req.getLocation().trim());
         e.setDescription(req.getDescription() == null ? null : req.getDescription().trim());
@@ -240,41 +309,27 @@ public class HomeSwapService {
                     .collect(Collectors.toList());
             for (HomeSwapPhoto p : toRemove) {
                 e.removePhoto(p);
-                // Best-effort cleanup from Supabase (no-op if not a Supabase URL)
-                supabaseStorage.deleteByPublicUrl(p.getUrl());
+                // Best-effort cleanup from Supabase once committed (no-op if not a Supabase URL)
+                removedUrls.add(p.getUrl());
                 // Best-effort cleanup from local disk (skip if path is a URL)
                 try {
                     if (p.getPath() != null && !p.getPath().startsWith("http")) {
                         java.nio.file.Files.deleteIfExists(java.nio.file.Paths.get(p.getPath()));
                     }
+                    storage.deletePath(p.getThumbPath());
                 } catch (Exception ignored) { }
             }
         }
 
         // Add new photos
         int currentCount = e.getPhotos().size();
-        int newCount = (newPhotos == null) ? 0 : (int) newPhotos.stream().filter(f -> f != null && !f.isEmpty()).count();
+        int newCount = files.size();
         if (currentCount + newCount > MAX_PHOTOS) {
             throw bad("Max " + MAX_PHOTOS + " photos allowed. You have " + currentCount + " and are adding " + newCount);
         }
 
         int sort = e.getPhotos().stream().mapToInt(p -> p.getSortOrder() != null ? p.getSortOrder() : 0).max().orElse(-1) + 1;
-        if (newPhotos != null) {
-            for (MultipartFile file : newPhotos) {
-                if (file == null || file.isEmpty()) continue;
-                try {
-                    HomeSwapPhoto p = storePhoto(e, file, sort++);
-                    photoRepo.save(p);
-                    e.getPhotos().add(p);
-                } catch (Exception ex) {
-                    throw new ResponseStatusException(
-                            HttpStatus.BAD_REQUEST,
-                            "Failed to store image: " + safeName(file),
-                            ex
-                    );
-                }
-            }
-        }
+        addPhotos(e, files, cdnUrls, sort);
 
         e = repo.save(e);
         return toRes(e);
@@ -305,6 +360,7 @@ public class HomeSwapService {
                 try {
                     if (p.getPath() != null && !p.getPath().startsWith("http")) {
                         storage.deletePath(p.getPath());
+                        storage.deletePath(p.getThumbPath());
                     }
                 } catch (Exception ignore) {}
             });
@@ -312,21 +368,57 @@ public class HomeSwapService {
         repo.delete(e);
     }
 
-    /* ---------- photo storage helper ---------- */
+    /* ---------- photo storage helpers ---------- */
+
+    private static List<MultipartFile> nonEmpty(List<MultipartFile> files) {
+        if (files == null) return List.of();
+        return files.stream().filter(f -> f != null && !f.isEmpty()).collect(Collectors.toList());
+    }
+
+    /**
+     * Upload to Supabase in parallel and return the URLs in file order, or
+     * null when Supabase is not configured (photos then go to disk inside
+     * the transaction).
+     */
+    private List<String> uploadToCdn(String folder, List<MultipartFile> files) {
+        if (!supabaseStorage.isEnabled() || files.isEmpty()) return null;
+        try {
+            return supabaseStorage.uploadAll(folder, files);
+        } catch (IOException | RuntimeException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Failed to store images", ex);
+        }
+    }
+
+    private void addPhotos(HomeSwap e, List<MultipartFile> files, List<String> cdnUrls, int sort) {
+        for (int i = 0; i < files.size(); i++) {
+            MultipartFile file = files.get(i);
+            try {
+                HomeSwapPhoto p = storePhoto(e, file, cdnUrls != null ? cdnUrls.get(i) : null, sort++);
+                photoRepo.save(p);
+                photoProcessing.submit(PhotoProcessingService.Kind.HOME_SWAP, p.getId(), p.getPath());
+                e.getPhotos().add(p);
+            } catch (Exception ex) {
+                throw new ResponseStatusException(
+                        HttpStatus.BAD_REQUEST,
+                        "Failed to store image: " + safeName(file),
+                        ex
+                );
+            }
+        }
+    }
 
-    private HomeSwapPhoto storePhoto(HomeSwap e, MultipartFile file, int sortOrder) throws Exception {
+    /** Photo row for {@code file}; {@code cdnUrl} is its Supabase URL when it was uploaded there. */
+    private HomeSwapPhoto storePhoto(HomeSwap e, MultipartFile file, String cdnUrl, int sortOrder) throws Exception {
         String original = Objects.requireNonNullElse(file.getOriginalFilename(), "image.jpg");
         String ct = file.getContentType() != null ? file.getContentType() : "image/jpeg";
-        if (supabaseStorage.isEnabled()) {
-            byte[] bytes = file.getBytes();
-            String cdnUrl = supabaseStorage.upload("homeswap/" + e.getId(), original, bytes, ct);
+        if (cdnUrl != null) {
             return HomeSwapPhoto.builder()
                     .homeSwap(e)
                     .url(cdnUrl)
                     .path(cdnUrl)        // path is non-null column; store CDN URL as placeholder
                     .filename(original)
                     .contentType(ct)
-                    .sizeBytes((long) bytes.length)
+                    .sizeBytes(file.getSize())
                     .sortOrder(sortOrder)
                     .createdAt(LocalDateTime.now())
                     .build();
@@ -339,9 +431,7 @@ public class HomeSwapService {
                     .filename(s.getFilename())
                     .contentType(s.getContentType())
                     .sizeBytes(s.getSizeBytes())
-                    .width(s.getWidth())
-                    .height(s.getHeight())
-                    .imageData(file.getBytes())
+                    .imageBlobId(mediaBlobService.store(file.getBytes(), s.getContentType()))
                     .sortOrder(sortOrder)
                     .createdAt(s.getSavedAt())
                     .build();
@@ -351,6 +441,22 @@ public class HomeSwapService {
     /* ---------- mapping ---------- */
 
     private HomeSwapResponse toRes(HomeSwap e) {
+        List<HomeSwapResponse.PhotoDto> photos = new ArrayList<>();
+        if (e.getPhotos() != null) {
+            for (HomeSwapPhoto p : e.getPhotos()) {
+                HomeSwapResponse.PhotoDto pd = new HomeSwapResponse.PhotoDto();
+                pd.setId(p.getId());
+                pd.setUrl(p.getUrl());
+                pd.setWidth(p.getWidth());
+                pd.setHeight(p.getHeight());
+                pd.setSortOrder(p.getSortOrder());
+                photos.add(pd);
+            }
+        }
+        return toRes(e, photos);
+    }
+
+    private HomeSwapResponse toRes(HomeSwap e, List<HomeSwapResponse.PhotoDto> photos) {
         HomeSwapResponse dto = new HomeSwapResponse();
         dto.setId(e.getId());
         dto.setTitle(e.getTitle());
@@ -379,18 +485,6 @@ public class HomeSwapService {
             dto.setUserName(display);
         }
 
-        List<HomeSwapResponse.PhotoDto> photos = new ArrayList<>();
-        if (e.getPhotos() != null) {
-            for (HomeSwapPhoto p : e.getPhotos()) {
-                HomeSwapResponse.PhotoDto pd = new HomeSwapResponse.PhotoDto();
-                pd.setId(p.getId());
-                pd.setUrl(p.getUrl());
-                pd.setWidth(p.getWidth());
-                pd.setHeight(p.getHeight());
-                pd.setSortOrder(p.getSortOrder());
-                photos.add(pd);
-            }
-        }
         dto.setPhotos(photos);
 
         return dto;
@@ -0,0 +1,301 @@
+package com.habesha.community.service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * ImageIO helpers shared by the avatar and photo pipelines.  Reads go
+ * through an {@link ImageReader} so dimensions come from the header alone
+ * and large images are decoded subsampled rather than at full size.
+ */
+final class ImageCodecs {
+
+    private static final int SOI = 0xFFD8;
+    private static final int SOS = 0xFFDA;
+    private static final int APP0 = 0xFFE0;
+    private static final int APP1 = 0xFFE1;
+    private static final int APP13 = 0xFFED;
+    private static final int EXIF_ORIENTATION = 0x0112;
+
+    private ImageCodecs() {
+    }
+
+    /** Width and height from the image header, or null for an unknown format. */
+    static int[] dimensions(Path path) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(path.toFile())) {
+            ImageReader reader = readerFor(in);
+            if (reader == null) return null;
+            try {
+                reader.setInput(in, true, true);
+                return new int[] { reader.getWidth(0), reader.getHeight(0) };
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Decode {@code input} (a File or InputStream), skipping pixels so the
+     * shorter edge stays at least {@code minEdge}.  Null for an unknown format.
+     */
+    static BufferedImage readSubsampled(Object input, int minEdge) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(input)) {
+            ImageReader reader = readerFor(in);
+            if (reader == null) return null;
+            try {
+                reader.setInput(in, true, true);
+                int shorter = Math.min(reader.getWidth(0), reader.getHeight(0));
+                int step = Math.max(1, shorter / Math.max(1, minEdge));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scale to {@code width} x {@code height} on a white RGB canvas.  Halves
+     * while more than 2x too big, then one bicubic pass, which keeps edges
+     * clean without a filter library.
+     */
+    static BufferedImage scaleDown(BufferedImage source, int width, int height) {
+        BufferedImage current = source;
+        int w = source.getWidth();
+        int h = source.getHeight();
+        do {
+            w = Math.max(width, w / 2);
+            h = Math.max(height, h / 2);
+            BufferedImage step = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = step.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, w, h);
+                g.drawImage(current, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            current = step;
+        } while (w > width || h > height);
+        return current;
+    }
+
+    static byte[] jpeg(BufferedImage image, float quality) {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode JPEG", e);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Copy a JPEG to {@code dest} without its EXIF/XMP (APP1) and IPTC (APP13)
+     * segments, so GPS position and camera details are not published.  The
+     * EXIF orientation is the one tag kept, in a minimal APP1, so phone photos
+     * still display upright.  Pixel data is copied as-is, never re-encoded.
+     *
+     * @return false, leaving {@code dest} absent, when the file is not a JPEG,
+     *         is malformed, or carries nothing to strip
+     */
+    static boolean stripJpegMetadata(Path source, Path dest) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(source)))) {
+            Header header = readHeader(in);
+            if (header == null || !header.removed()) return false;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(dest))) {
+                writeStripped(header, in, out);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(dest);
+                throw e;
+            }
+            return true;
+        }
+    }
+
+    /** {@link #stripJpegMetadata(Path, Path)} for bytes in memory; returns the input when nothing changes. */
+    static byte[] stripJpegMetadata(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            Header header = readHeader(in);
+            if (header == null || !header.removed()) return bytes;
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length);
+            writeStripped(header, in, out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            return bytes;
+        }
+    }
+
+    /** EXIF orientation (1-8) of a JPEG; 1 for other formats or when absent. */
+    static int jpegOrientation(Object input) throws IOException {
+        InputStream raw = input instanceof Path p ? Files.newInputStream(p) : new ByteArrayInputStream((byte[]) input);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(raw))) {
+            Header header = readHeader(in);
+            return header != null ? header.orientation() : 1;
+        }
+    }
+
+    /**
+     * Turn decoded pixels upright for an EXIF orientation, since ImageIO
+     * ignores the tag.  Meant for thumbnail-sized images: it copies per pixel.
+     */
+    static BufferedImage applyOrientation(BufferedImage src, int orientation) {
+        if (orientation <= 1 || orientation > 8) return src;
+        int w = src.getWidth();
+        int h = src.getHeight();
+        boolean swap = orientation >= 5;
+        BufferedImage out = new BufferedImage(swap ? h : w, swap ? w : h, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int rgb = src.getRGB(x, y);
+                switch (orientation) {
+                    case 2 -> out.setRGB(w - 1 - x, y, rgb);
+                    case 3 -> out.setRGB(w - 1 - x, h - 1 - y, rgb);
+                    case 4 -> out.setRGB(x, h - 1 - y, rgb);
+                    case 5 -> out.setRGB(y, x, rgb);
+                    case 6 -> out.setRGB(h - 1 - y, x, rgb);
+                    case 7 -> out.setRGB(h - 1 - y, w - 1 - x, rgb);
+                    default -> out.setRGB(y, w - 1 - x, rgb);
+                }
+            }
+        }
+        return out;
+    }
+
+    /* ---- JPEG segments ---- */
+
+    /**
+     * Header segments up to the scan; they are small, so they are held to be
+     * rewritten.  {@code kept} excludes the metadata segments being removed.
+     */
+    private record Header(List<byte[]> kept, boolean removed, int orientation) {}
+
+    /** Reads through the SOS marker; null when the stream is not a well-formed JPEG. */
+    private static Header readHeader(DataInputStream in) throws IOException {
+        try {
+            if (in.readUnsignedShort() != SOI) return null;
+            List<byte[]> kept = new ArrayList<>();
+            boolean removed = false;
+            int orientation = 1;
+            while (true) {
+                int marker = in.readUnsignedShort();
+                if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFFF) return null;
+                if (marker == SOS) return new Header(kept, removed, orientation);
+                int length = in.readUnsignedShort();
+                if (length < 2) return null;
+                byte[] segment = new byte[length + 2];
+                ByteBuffer.wrap(segment).putShort((short) marker).putShort((short) length);
+                in.readFully(segment, 4, length - 2);
+                if (marker == APP1 || marker == APP13) {
+                    int o = marker == APP1 ? exifOrientation(segment) : 1;
+                    if (o != 1) orientation = o;
+                    // our own minimal segment: rewritten if anything else goes, otherwise nothing to do
+                    if (o != 1 && Arrays.equals(segment, orientationSegment(o))) continue;
+                    removed = true;
+                } else {
+                    kept.add(segment);
+                }
+            }
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    /** Write SOI, the kept segments (orientation after JFIF), SOS and the rest of {@code in}. */
+    private static void writeStripped(Header header, InputStream in, OutputStream out) throws IOException {
+        List<byte[]> kept = header.kept();
+        out.write(SOI >> 8);
+        out.write(SOI & 0xFF);
+        int i = 0;
+        if (!kept.isEmpty() && (ByteBuffer.wrap(kept.get(0)).getShort() & 0xFFFF) == APP0) {
+            out.write(kept.get(i++)); // JFIF stays first
+        }
+        if (header.orientation() != 1) out.write(orientationSegment(header.orientation()));
+        for (; i < kept.size(); i++) out.write(kept.get(i));
+        out.write(SOS >> 8);
+        out.write(SOS & 0xFF);
+        in.transferTo(out);
+    }
+
+    /* ---- helpers ---- */
+
+    private static ImageReader readerFor(ImageInputStream in) {
+        if (in == null) return null;
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+        return readers.hasNext() ? readers.next() : null;
+    }
+
+    /** Orientation (1-8) from an APP1 segment, or 1 when absent or unreadable. */
+    private static int exifOrientation(byte[] segment) {
+        try {
+            int tiff = 10; // marker(2) + length(2) + "Exif\0\0"(6)
+            if (segment.length < tiff + 8
+                    || !new String(segment, 4, 4, StandardCharsets.US_ASCII).equals("Exif")) return 1;
+            ByteBuffer b = ByteBuffer.wrap(segment);
+            b.order(segment[tiff] == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+            int ifd = tiff + b.getInt(tiff + 4);
+            int entries = b.getShort(ifd) & 0xFFFF;
+            for (int e = 0; e < entries; e++) {
+                int at = ifd + 2 + e * 12;
+                if ((b.getShort(at) & 0xFFFF) == EXIF_ORIENTATION) {
+                    int value = b.getShort(at + 8) & 0xFFFF;
+                    return value >= 1 && value <= 8 ? value : 1;
+                }
+            }
+        } catch (IndexOutOfBoundsException ignored) {
+            // truncated or odd EXIF; treat as upright
+        }
+        return 1;
+    }
+
+    /** An APP1 holding only IFD0 with the orientation tag (big-endian TIFF). */
+    private static byte[] orientationSegment(int orientation) {
+        ByteBuffer b = ByteBuffer.allocate(36);
+        b.putShort((short) APP1).putShort((short) 34);
+        b.put("Exif".getBytes(StandardCharsets.US_ASCII)).put((byte) 0).put((byte) 0);
+        b.put((byte) 'M').put((byte) 'M').putShort((short) 42).putInt(8);
+        b.putShort((short) 1);
+        b.putShort((short) EXIF_ORIENTATION).putShort((short) 3).putInt(1)
+                .putShort((short) orientation).putShort((short) 0);
+        b.putInt(0);
+        return b.array();
+    }
+}
@@ -0,0 +1,22 @@
+package com.habesha.community.service;
+
+import com.habesha.community.dto.RealtimeEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Single-node fan-out: hands events straight to this JVM's open streams.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.realtime.fanout", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRealtimeFanout implements RealtimeFanout {
+
+    private final RealtimeConnectionRegistry registry;
+
+    @Override
+    public void publish(Long userId, RealtimeEvent event) {
+        registry.deliver(userId, event);
+    }
+}
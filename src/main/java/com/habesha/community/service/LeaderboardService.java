@@ -0,0 +1,163 @@
+package com.habesha.community.service;
+
+import com.habesha.community.dto.LeaderboardEntryDto;
+import com.habesha.community.repository.UserRepository;
+import com.habesha.community.repository.UserRepository.XpRankView;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * XP leaderboard.
+ *
+ * Every read goes through idx_users_xp_rank (V23) with a slim projection,
+ * so neither users' badges nor their avatar blobs are loaded.  The top
+ * {@code app.leaderboard.top-n} rows are held as an in-memory snapshot:
+ * pages inside it and ranks of users on it cost no query.  Deeper pages
+ * are one LIMIT/OFFSET scan of the index.  A deeper rank is two index
+ * range counts that visit every user ranked ahead, so their cost grows
+ * with the rank; the snapshot keeps that off the hot top of the board.
+ *
+ * The application never writes XP itself, so the snapshot only tracks
+ * deletions; the TTL bounds how long an XP change made elsewhere (admin
+ * SQL, imports) takes to show.
+ */
+@Service
+@RequiredArgsConstructor
+public class LeaderboardService {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private record Entry(long id, String displayName, String username, String avatarUrl, int xp) {}
+
+    private record Snapshot(List<Entry> entries, long loadedAtMillis) {
+        int indexOf(long userId) {
+            for (int i = 0; i < entries.size(); i++) {
+                if (entries.get(i).id() == userId) return i;
+            }
+            return -1;
+        }
+    }
+
+    private final UserRepository userRepository;
+
+    private volatile Snapshot snapshot;
+
+    /** Bumped on every invalidation; a snapshot loaded across a bump is not kept. */
+    private final AtomicLong epoch = new AtomicLong();
+
+    @Value("${app.leaderboard.top-n:100}")
+    private int topN = 100;
+
+    @Value("${app.leaderboard.ttl-seconds:60}")
+    private long ttlSeconds = 60;
+
+    /** One page of the leaderboard, highest XP first. */
+    public List<LeaderboardEntryDto> page(int page, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        long offset = (long) Math.max(0, page) * limit;
+
+        Snapshot snap = snapshot();
+        // the snapshot answers the page if it covers it, or if it already holds every user
+        if (offset + limit <= snap.entries().size() || snap.entries().size() < topN) {
+            List<LeaderboardEntryDto> out = new ArrayList<>(limit);
+            for (long i = offset; i < Math.min(offset + limit, snap.entries().size()); i++) {
+                out.add(toDto(snap.entries().get((int) i), i + 1));
+            }
+            return out;
+        }
+
+        List<XpRankView> rows = userRepository.findXpRankPage(limit, offset);
+        List<LeaderboardEntryDto> out = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            out.add(toDto(toEntry(rows.get(i)), offset + i + 1));
+        }
+        return out;
+    }
+
+    /** The user's leaderboard row with their 1-based rank; empty if the user does not exist. */
+    public Optional<LeaderboardEntryDto> rankOf(long userId) {
+        Snapshot snap = snapshot();
+        int i = snap.indexOf(userId);
+        if (i >= 0) return Optional.of(toDto(snap.entries().get(i), i + 1));
+
+        return userRepository.findXpRankView(userId)
+                .map(this::toEntry)
+                .map(e -> toDto(e, userRepository.countRankedAhead(e.xp(), e.id()) + 1));
+    }
+
+    /* ==================== Invalidation (after commit) ==================== */
+
+    /** The user was deleted. */
+    public void userRemoved(long userId) {
+        afterCommit(() -> {
+            Snapshot snap = snapshot;
+            if (snap != null && snap.indexOf(userId) >= 0) invalidate();
+        });
+    }
+
+    private void invalidate() {
+        epoch.incrementAndGet();
+        snapshot = null;
+    }
+
+    /* ==================== Snapshot ==================== */
+
+    private Snapshot snapshot() {
+        Snapshot snap = snapshot;
+        if (snap != null && System.currentTimeMillis() - snap.loadedAtMillis() < ttlSeconds * 1000L) return snap;
+        return reload();
+    }
+
+    /** One loader at a time; callers that waited reuse what it loaded. */
+    private synchronized Snapshot reload() {
+        long now = System.currentTimeMillis();
+        Snapshot snap = snapshot;
+        if (snap != null && now - snap.loadedAtMillis() < ttlSeconds * 1000L) return snap;
+
+        long seen = epoch.get();
+        List<Entry> entries = userRepository.findXpRankPage(topN, 0).stream()
+                .map(this::toEntry)
+                .toList();
+        Snapshot fresh = new Snapshot(entries, now);
+        if (epoch.get() == seen) snapshot = fresh;
+        return fresh;
+    }
+
+    private Entry toEntry(XpRankView v) {
+        String displayName = (v.getName() != null && !v.getName().isBlank()) ? v.getName() : v.getUsername();
+        return new Entry(v.getId(), displayName, v.getUsername(), v.getProfileImageUrl(),
+                v.getXp() != null ? v.getXp() : 0);
+    }
+
+    private static LeaderboardEntryDto toDto(Entry e, long rank) {
+        return LeaderboardEntryDto.builder()
+                .rank(rank)
+                .id(e.id())
+                .displayName(e.displayName())
+                .username(e.username())
+                .avatarUrl(e.avatarUrl())
+                .xp(e.xp())
+                .build();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.habesha.community.service;
+
+import com.habesha.community.model.MediaBlob;
+import com.habesha.community.repository.MediaBlobRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Database-backed image bytes, stored apart from the rows that own them.
+ *
+ * Owners keep a blob id; {@link #store} and {@link #delete} join the
+ * caller's transaction, so an image and its owner commit together.  An
+ * owner deleted by cascade leaves its blob behind, and {@link #purgeOrphans}
+ * removes those nightly.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MediaBlobService {
+
+    private final MediaBlobRepository repository;
+
+    /** Store bytes and return the new blob id, or null when there is nothing to store. */
+    @Transactional
+    public Long store(byte[] data, String contentType) {
+        if (data == null || data.length == 0) return null;
+        MediaBlob saved = repository.save(MediaBlob.builder()
+                .contentType(contentType)
+                .sizeBytes(data.length)
+                .data(data)
+                .build());
+        return saved.getId();
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<MediaBlob> find(Long id) {
+        return id == null ? Optional.empty() : repository.findById(id);
+    }
+
+    @Transactional
+    public void delete(Long id) {
+        if (id != null) repository.deleteBlob(id);
+    }
+
+    /** Remove blobs no photo, service offer or user refers to.  Returns how many went. */
+    @Scheduled(cron = "${app.media.orphan-purge-cron:0 30 4 * * *}")
+    @Transactional
+    public int purgeOrphans() {
+        int purged = repository.deleteOrphans();
+        if (purged > 0) log.info("Purged {} orphaned media blobs", purged);
+        return purged;
+    }
+}
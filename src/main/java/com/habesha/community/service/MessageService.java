@@ -1,7 +1,10 @@
 package com.habesha.community.service;
 
+import com.habesha.community.dto.MessageDto;
+import com.habesha.community.dto.MessagePageDto;
 import com.habesha.community.dto.MessageRequest;
 import com.habesha.community.dto.ThreadSummaryDto;
+import com.habesha.community.model.Conversation;
 import com.habesha.community.model.Message;
 import com.habesha.community.model.User;
 import com.habesha.community.repository.MessageRepository;
@@ -9,10 +12,12 @@ import com.habesha.community.repository.UserRepository;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -24,6 +29,10 @@ public class MessageService {
 
     private final MessageRepository messageRepository;
     private final UserRepository userRepository;
+    private final ConversationService conversationService;
+    private final RealtimeService realtimeService;
+    private final ActivityLogService activityLogService;
+    private final CountsService countsService;
 
     // OPTIONAL: if you don’t have Twilio wired, this won’t break the app.
     @Autowired(required = false)
@@ -39,6 +48,10 @@ public class MessageService {
     private static final int DEDUPE_WINDOW_SECONDS = 10;
     private static final int MAX_MESSAGE_LENGTH = 2000;
 
+    /* ---------------------- conversation paging limits -------------------- */
+    public static final int DEFAULT_CONVERSATION_PAGE = 50;
+    public static final int MAX_CONVERSATION_PAGE = 200;
+
     private final Map<Long, Deque<Long>> perSenderWindow = new ConcurrentHashMap<>();
     private final Map<String, Long> dedupeCache = new ConcurrentHashMap<>();
 
@@ -50,11 +63,11 @@ public class MessageService {
                 .orElseThrow(() -> new IllegalStateException("No current user"));
     }
 
-    private String avatarUrlFor(User u) {
-        if (u == null || u.getId() == null) return null;
+    private String avatarUrlFor(Long userId) {
+        if (userId == null) return null;
         // If you store absolute URLs on the User entity, prefer that:
         // if (u.getProfileImageUrl() != null && !u.getProfileImageUrl().isBlank()) return u.getProfileImageUrl();
-        return "/users/" + u.getId() + "/profile-image";
+        return "/users/" + userId + "/profile-image";
     }
 
     private String normalizeContent(String s) {
@@ -131,6 +144,18 @@ public class MessageService {
                 .build();
 
         messageRepository.save(message);
+        conversationService.recordMessage(message);
+        activityLogService.messageReceived(message);
+
+        Map<String, Object> pushed = new HashMap<>();
+        pushed.put("id", message.getId());
+        pushed.put("senderId", sender.getId());
+        pushed.put("recipientId", recipient.getId());
+        pushed.put("content", content);
+        pushed.put("sentAt", String.valueOf(message.getSentAt()));
+        realtimeService.publish(recipient.getId(), RealtimeService.MESSAGE_NEW, pushed);
+        realtimeService.publish(sender.getId(), RealtimeService.MESSAGE_NEW, pushed);
+        countsService.adjust(recipient.getId(), CountsService.UNREAD_MESSAGES, 1);
 
         if (Boolean.TRUE.equals(request.isViaSms())
                 && twilioService != null
@@ -159,12 +184,51 @@ public class MessageService {
         }
     }
 
-    public List<Message> getConversation(Long otherUserId) {
+    /**
+     * One keyset page of the conversation with {@code otherUserId}, as flat
+     * DTOs in ascending send order.  With no cursor the newest page is
+     * returned; {@code before} scrolls back from a message id and
+     * {@code after} fetches messages newer than a message id.
+     */
+    public MessagePageDto getConversationPage(Long otherUserId, Long before, Long after, Integer limit) {
         User current = getCurrentUser();
-        User other = userRepository.findById(otherUserId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-        return messageRepository.findBySenderAndRecipientOrRecipientAndSenderOrderBySentAtAsc(
-                current, other, current, other);
+        if (!userRepository.existsById(otherUserId)) {
+            throw new IllegalArgumentException("User not found");
+        }
+        int size = (limit == null || limit < 1) ? DEFAULT_CONVERSATION_PAGE : Math.min(limit, MAX_CONVERSATION_PAGE);
+        long lo = Math.min(current.getId(), otherUserId);
+        long hi = Math.max(current.getId(), otherUserId);
+        // Fetch one extra row to learn whether another page exists.
+        PageRequest window = PageRequest.of(0, size + 1);
+
+        List<MessageDto> rows;
+        boolean ascending = false;
+        if (after != null) {
+            LocalDateTime at = cursorTime(after);
+            rows = messageRepository.findAfterInConversation(lo, hi, at, after, window);
+            ascending = true;
+        } else if (before != null) {
+            LocalDateTime at = cursorTime(before);
+            rows = messageRepository.findBeforeInConversation(lo, hi, at, before, window);
+        } else {
+            rows = messageRepository.findLatestInConversation(lo, hi, window);
+        }
+
+        boolean hasMore = rows.size() > size;
+        List<MessageDto> page = new ArrayList<>(hasMore ? rows.subList(0, size) : rows);
+        if (!ascending) Collections.reverse(page);
+
+        return MessagePageDto.builder()
+                .messages(page)
+                .oldestId(page.isEmpty() ? null : page.get(0).getId())
+                .newestId(page.isEmpty() ? null : page.get(page.size() - 1).getId())
+                .hasMore(hasMore)
+                .build();
+    }
+
+    private LocalDateTime cursorTime(Long messageId) {
+        return messageRepository.findSentAtById(messageId)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown message cursor: " + messageId));
     }
 
     public long unreadCountForCurrentUser() {
@@ -180,22 +244,38 @@ public class MessageService {
     @Transactional
     public void markReadFromOther(Long otherUserId) {
         User me = getCurrentUser();
-        messageRepository.markReadFromTo(otherUserId, me.getId());
+        int read = messageRepository.markReadFromTo(otherUserId, me.getId());
+        conversationService.markRead(me.getId(), otherUserId);
+        if (read > 0) {
+            countsService.adjust(me.getId(), CountsService.UNREAD_MESSAGES, -read);
+            realtimeService.publish(otherUserId, RealtimeService.MESSAGE_READ,
+                    Map.of("readerId", me.getId(), "count", read));
+        }
     }
 
+    /**
+     * Inbox sidebar: the user's most recently active conversations, read
+     * from the {@code conversation} summary table (one indexed top-N query
+     * plus one batched name lookup).
+     */
     public List<ThreadSummaryDto> getRecentThreads(int limit) {
         User current = getCurrentUser();
         Long currentId = current.getId();
 
-        List<Message> messages = messageRepository.findRecentMessagesForUser(currentId);
-        Map<Long, ThreadSummaryDto> summaries = new LinkedHashMap<>();
+        List<Conversation> conversations = conversationService.recentForUser(currentId, limit);
+        Set<Long> otherIds = new HashSet<>();
+        for (Conversation c : conversations) otherIds.add(c.otherUserId(currentId));
 
-        for (Message m : messages) {
-            if (summaries.size() >= Math.max(limit, 1)) break;
+        Map<Long, UserRepository.UserNameView> others = new HashMap<>();
+        if (!otherIds.isEmpty()) {
+            for (UserRepository.UserNameView v : userRepository.findNameViewsByIdIn(otherIds)) others.put(v.getId(), v);
+        }
 
-            User other = m.getSender().getId().equals(currentId) ? m.getRecipient() : m.getSender();
-            Long otherId = other.getId();
-            if (summaries.containsKey(otherId)) continue;
+        List<ThreadSummaryDto> threads = new ArrayList<>(conversations.size());
+        for (Conversation c : conversations) {
+            Long otherId = c.otherUserId(currentId);
+            UserRepository.UserNameView other = others.get(otherId);
+            if (other == null) continue;
 
             String name = other.getName();
             if (name == null || name.isBlank()) {
@@ -203,26 +283,16 @@ public class MessageService {
                         ? other.getUsername() : other.getEmail();
             }
 
-            ThreadSummaryDto dto = ThreadSummaryDto.builder()
+            threads.add(ThreadSummaryDto.builder()
                     .userId(otherId)
                     .userName(name)
-                    .avatarUrl(avatarUrlFor(other))
-                    .lastText(m.getContent())
-                    .lastAt(m.getSentAt().atZone(ZoneId.systemDefault()).toInstant())
-                    .unread(0L)
-                    .build();
-
-            summaries.put(otherId, dto);
+                    .avatarUrl(avatarUrlFor(otherId))
+                    .lastText(c.getLastMessageText())
+                    .lastAt(c.getLastMessageAt() != null
+                            ? c.getLastMessageAt().atZone(ZoneId.systemDefault()).toInstant() : null)
+                    .unread((long) c.unreadFor(currentId))
+                    .build());
         }
-
-        List<MessageRepository.UnreadCountView> unread = messageRepository.findUnreadCountsByRecipient(currentId);
-        Map<Long, Long> unreadMap = new HashMap<>();
-        for (MessageRepository.UnreadCountView uv : unread) unreadMap.put(uv.getUserId(), uv.getCount());
-        summaries.forEach((otherId, dto) -> {
-            Long c = unreadMap.get(otherId);
-            if (c != null) dto.setUnread(c);
-        });
-
-        return new ArrayList<>(summaries.values());
+        return threads;
     }
 }
@@ -1,9 +1,12 @@
 package com.habesha.community.service;
 
 import com.habesha.community.dto.MessageRequest;
+import com.habesha.community.model.ActivityType;
 import com.habesha.community.model.Role;
+import com.habesha.community.model.ServiceReview;
 import com.habesha.community.model.User;
 import com.habesha.community.repository.*;
+import com.habesha.community.security.AuthPrincipalCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.http.HttpStatus;
@@ -31,6 +34,9 @@ public class ModerationService {
     private final ServiceReviewRepository serviceReviewRepository;
     private final MessageService messageService;
     private final AuditService auditService;
+    private final AuthPrincipalCache principalCache;
+    private final ActivityLogService activityLogService;
+    private final UserStatsService userStatsService;
 
     private User currentUser() {
         var auth = SecurityContextHolder.getContext().getAuthentication();
@@ -65,6 +71,19 @@ public class ModerationService {
     public void takedown(String contentType, Long contentId, String reason) {
         User actor = currentUser();
         String type = contentType == null ? "" : contentType.trim().toUpperCase();
+        // resolve what the removal un-counts before the row is gone
+        UserStatsService.Counter counter = switch (type) {
+            case "RENTAL" -> UserStatsService.Counter.RENTALS;
+            case "SERVICE" -> UserStatsService.Counter.SERVICES;
+            case "EVENT" -> UserStatsService.Counter.EVENTS;
+            case "AD" -> UserStatsService.Counter.ADS;
+            case "TRAVEL" -> UserStatsService.Counter.TRAVEL_POSTS;
+            default -> null;
+        };
+        Long ownerId = counter != null ? userStatsService.ownerOf(counter, contentId) : null;
+        ServiceReview review = "REVIEW".equals(type) && contentId != null
+                ? serviceReviewRepository.findById(contentId).orElse(null)
+                : null;
         boolean removed;
         switch (type) {
             case "RENTAL":   removed = deleteIfExists(rentalRepository, contentId); break;
@@ -80,6 +99,20 @@ public class ModerationService {
         if (!removed) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, type + " #" + contentId + " not found");
         }
+        switch (type) {
+            case "RENTAL":  activityLogService.listingRemoved(ActivityType.RENTAL_CREATED, contentId); break;
+            case "SERVICE": activityLogService.listingRemoved(ActivityType.SERVICE_CREATED, contentId); break;
+            case "EVENT":   activityLogService.listingRemoved(ActivityType.EVENT_CREATED, contentId); break;
+            case "TRAVEL":  activityLogService.listingRemoved(ActivityType.TRAVEL_POSTED, contentId); break;
+            case "AD":      activityLogService.adRemoved(contentId, ownerId); break;
+            default: break;
+        }
+        if (counter != null) {
+            userStatsService.adjust(ownerId, counter, -1);
+        }
+        if (review != null && review.getProvider() != null) {
+            userStatsService.reviewRemoved(review.getProvider().getId(), review.getRating());
+        }
         auditService.record(actor, "CONTENT_REMOVED", type, contentId, reason);
     }
 
@@ -99,6 +132,7 @@ public class ModerationService {
         u.setActive(false);
         u.setSuspensionReason(why);
         userRepository.save(u);
+        principalCache.invalidateUser(userId);
         auditService.record(actor, "USER_SUSPENDED", "USER", userId, why);
     }
 
@@ -111,6 +145,7 @@ public class ModerationService {
         u.setActive(true);
         u.setSuspensionReason(null);
         userRepository.save(u);
+        principalCache.invalidateUser(userId);
         auditService.record(actor, "USER_UNSUSPENDED", "USER", userId, null);
         notify(userId, "✅ Your account has been reinstated. Welcome back.");
     }
@@ -0,0 +1,212 @@
+package com.habesha.community.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background work for disk-backed photo uploads.
+ *
+ * The upload request stores the original and commits; the photo is then
+ * handed to a small bounded pool.  The worker reads the dimensions from
+ * the image header, strips EXIF/IPTC from JPEGs in place (keeping the
+ * orientation), writes a {@link #THUMB_EDGE} px JPEG thumbnail next to the
+ * original and records all of it on the photo row.  When the row also has
+ * a database copy, that copy is replaced with the stripped bytes.
+ *
+ * The queue is bounded; when it is full the submitting thread runs the job
+ * itself, which slows uploads down instead of piling up work.  Queue depth,
+ * active workers, outcomes and processing time are exported as metrics.
+ * A photo whose job fails is still served from its original.
+ */
+@Slf4j
+@Service
+public class PhotoProcessingService {
+
+    public static final int THUMB_EDGE = 320;
+    private static final float THUMB_QUALITY = 0.8f;
+
+    /** Photo tables the pipeline writes back to. */
+    public enum Kind {
+        AD("ad_photo"),
+        RENTAL("rental_photo"),
+        HOME_SWAP("home_swap_photo");
+
+        private final String table;
+
+        Kind(String table) {
+            this.table = table;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MediaBlobService mediaBlobService;
+    private final ThreadPoolExecutor executor;
+    private final Counter processed;
+    private final Counter failed;
+    private final Counter ranOnCaller;
+    private final Timer duration;
+
+    public PhotoProcessingService(JdbcTemplate jdbcTemplate,
+                                  MediaBlobService mediaBlobService,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.photos.processing.threads:2}") int threads,
+                                  @Value("${app.photos.processing.queue-capacity:200}") int queueCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.mediaBlobService = mediaBlobService;
+
+        AtomicInteger seq = new AtomicInteger();
+        this.ranOnCaller = Counter.builder("habesha.photos.processing.caller_runs")
+                .description("Photo jobs run on the uploading thread because the queue was full")
+                .register(meterRegistry);
+        ThreadPoolExecutor.CallerRunsPolicy callerRuns = new ThreadPoolExecutor.CallerRunsPolicy();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "photo-processing-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                (r, pool) -> {
+                    ranOnCaller.increment();
+                    callerRuns.rejectedExecution(r, pool);
+                });
+
+        this.processed = Counter.builder("habesha.photos.processing.processed")
+                .description("Photos processed after upload")
+                .register(meterRegistry);
+        this.failed = Counter.builder("habesha.photos.processing.failed")
+                .description("Photo jobs that failed; the original is served unchanged")
+                .register(meterRegistry);
+        this.duration = Timer.builder("habesha.photos.processing.duration")
+                .description("Time to process one uploaded photo")
+                .register(meterRegistry);
+        Gauge.builder("habesha.photos.processing.queue.depth", executor, e -> e.getQueue().size())
+                .description("Photo jobs waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("habesha.photos.processing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Photo jobs being processed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queue a stored photo for processing once the caller's transaction
+     * commits.  Photos kept in object storage (URL paths) are skipped.
+     */
+    public void submit(Kind kind, Long photoId, String path) {
+        if (photoId == null || !StringUtils.hasText(path)
+                || path.startsWith("http://") || path.startsWith("https://")) return;
+        afterCommit(() -> executor.execute(() -> duration.record(() -> process(kind, photoId, Path.of(path)))));
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.info("Dropping {} queued photo jobs at shutdown", executor.shutdownNow().size());
+        }
+    }
+
+    /* ==================== Worker ==================== */
+
+    private void process(Kind kind, Long photoId, Path original) {
+        try {
+            if (!Files.isRegularFile(original)) return;
+
+            int[] size = ImageCodecs.dimensions(original);
+            int orientation = ImageCodecs.jpegOrientation(original);
+            if (size != null && orientation >= 5) size = new int[] { size[1], size[0] }; // as displayed
+            boolean stripped = stripInPlace(original);
+            Path thumb = size != null ? writeThumbnail(original, orientation) : null;
+
+            jdbcTemplate.update("UPDATE " + kind.table + " SET width = ?, height = ?, thumb_path = ? WHERE id = ?",
+                    size != null ? size[0] : null, size != null ? size[1] : null,
+                    thumb != null ? thumb.toString() : null, photoId);
+            if (stripped) replaceBlob(kind, photoId, original);
+            processed.increment();
+        } catch (Exception e) {
+            failed.increment();
+            log.warn("Processing {} photo {} failed: {}", kind, photoId, e.getMessage());
+        }
+    }
+
+    private static boolean stripInPlace(Path original) throws IOException {
+        Path tmp = original.resolveSibling(original.getFileName() + ".strip");
+        if (!ImageCodecs.stripJpegMetadata(original, tmp)) return false;
+        move(tmp, original);
+        return true;
+    }
+
+    private static Path writeThumbnail(Path original, int orientation) throws IOException {
+        BufferedImage source = ImageCodecs.readSubsampled(original.toFile(), THUMB_EDGE);
+        if (source == null) return null;
+        double scale = Math.min(1.0, (double) THUMB_EDGE / Math.max(source.getWidth(), source.getHeight()));
+        int w = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int h = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        BufferedImage upright = ImageCodecs.applyOrientation(ImageCodecs.scaleDown(source, w, h), orientation);
+        byte[] jpeg = ImageCodecs.jpeg(upright, THUMB_QUALITY);
+
+        String name = original.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        Path thumb = original.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".thumb.jpg");
+        Path tmp = thumb.resolveSibling(thumb.getFileName() + ".part");
+        Files.write(tmp, jpeg);
+        move(tmp, thumb);
+        return thumb;
+    }
+
+    /** Swap the row's database copy for the stripped file. */
+    private void replaceBlob(Kind kind, Long photoId, Path original) throws IOException {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT image_blob_id, content_type FROM " + kind.table + " WHERE id = ?", photoId);
+        if (rows.isEmpty() || rows.get(0).get("image_blob_id") == null) return;
+        Long previous = ((Number) rows.get(0).get("image_blob_id")).longValue();
+        Long replacement = mediaBlobService.store(Files.readAllBytes(original), (String) rows.get(0).get("content_type"));
+        int updated = jdbcTemplate.update("UPDATE " + kind.table + " SET image_blob_id = ? WHERE id = ? AND image_blob_id = ?",
+                replacement, photoId, previous);
+        mediaBlobService.delete(updated == 1 ? previous : replacement);
+    }
+
+    private static void move(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
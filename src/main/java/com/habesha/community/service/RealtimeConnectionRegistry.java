@@ -0,0 +1,188 @@
+package com.habesha.community.service;
+
+import com.habesha.community.dto.RealtimeEvent;
+import com.habesha.community.security.AuthPrincipal;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Server-Sent Event connections held by this node, grouped by user.  A
+ * user can have a few tabs/devices open; the oldest stream is closed when
+ * they exceed the per-user cap.  A periodic heartbeat keeps proxies from
+ * idling connections out and prunes ones the client has dropped.
+ *
+ * EventSource can't send an Authorization header, so a client first asks
+ * for a {@link #issueTicket ticket}: a random, single-use value that is
+ * good for {@code app.realtime.ticket-ttl-seconds} and is passed as
+ * {@code ?ticket=}.  The bearer token itself never appears in a URL.
+ *
+ * Each stream remembers the session token it was opened with.  Logout,
+ * session revocation, bans and suspensions go through
+ * {@code AuthPrincipalCache}, which calls {@link #closeToken} or
+ * {@link #closeUser}, so a revoked session stops receiving events at once
+ * instead of at the stream timeout.
+ */
+@Slf4j
+@Service
+public class RealtimeConnectionRegistry {
+
+    private static final int MAX_STREAMS_PER_USER = 5;
+    private static final int MAX_TICKETS = 10_000;
+
+    /** One open stream and the hash of the session token that opened it. */
+    private record Stream(SseEmitter emitter, String tokenHash) {}
+
+    /** What a ticket stands for: the principal and session it was issued to. */
+    public record Ticket(AuthPrincipal principal, String tokenHash, long expiresAtMillis) {}
+
+    private final Map<Long, List<Stream>> streams = new ConcurrentHashMap<>();
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+
+    @Value("${app.realtime.stream-timeout-ms:1800000}")
+    private long streamTimeoutMs;
+
+    @Value("${app.realtime.ticket-ttl-seconds:30}")
+    private long ticketTtlSeconds = 30;
+
+    public RealtimeConnectionRegistry(MeterRegistry meterRegistry) {
+        Gauge.builder("habesha.realtime.connections", this, RealtimeConnectionRegistry::connectionCount)
+                .description("Open realtime streams on this node")
+                .register(meterRegistry);
+    }
+
+    /* ==================== Tickets ==================== */
+
+    /**
+     * A single-use ticket for opening a stream as {@code principal}, bound
+     * to the session token the ticket request was authenticated with.
+     */
+    public String issueTicket(AuthPrincipal principal, String tokenHash) {
+        long now = System.currentTimeMillis();
+        if (tickets.size() >= MAX_TICKETS) tickets.values().removeIf(t -> t.expiresAtMillis() <= now);
+        if (tickets.size() >= MAX_TICKETS) throw new IllegalStateException("Too many pending stream tickets");
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String ticket = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        tickets.put(ticket, new Ticket(principal, tokenHash, now + ticketTtlSeconds * 1000L));
+        return ticket;
+    }
+
+    public long ticketTtlSeconds() {
+        return ticketTtlSeconds;
+    }
+
+    /** Consume a ticket; null when it is unknown, already used or expired. */
+    public Ticket redeemTicket(String ticket) {
+        if (ticket == null) return null;
+        Ticket t = tickets.remove(ticket);
+        return t != null && System.currentTimeMillis() < t.expiresAtMillis() ? t : null;
+    }
+
+    /* ==================== Streams ==================== */
+
+    /**
+     * Open a new stream for the user, opened with the session whose token
+     * hashes to {@code tokenHash}.  Clients reconnect after the timeout.
+     */
+    public SseEmitter open(Long userId, String tokenHash) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        Stream stream = new Stream(emitter, tokenHash);
+        List<Stream> mine = streams.computeIfAbsent(userId, k -> new CopyOnWriteArrayList<>());
+        mine.add(stream);
+        while (mine.size() > MAX_STREAMS_PER_USER) {
+            Stream oldest = mine.remove(0);
+            oldest.emitter().complete();
+        }
+        emitter.onCompletion(() -> remove(userId, stream));
+        emitter.onTimeout(() -> remove(userId, stream));
+        emitter.onError(e -> remove(userId, stream));
+        return emitter;
+    }
+
+    /** Push an event to every stream this node holds for the user. */
+    public void deliver(Long userId, RealtimeEvent event) {
+        List<Stream> mine = streams.get(userId);
+        if (mine == null || mine.isEmpty()) return;
+        for (Stream stream : mine) {
+            try {
+                stream.emitter().send(SseEmitter.event()
+                        .name(event.getType())
+                        .data(event, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                remove(userId, stream);
+            }
+        }
+    }
+
+    /** Close every stream and drop every pending ticket the user has. */
+    public void closeUser(Long userId) {
+        if (userId == null) return;
+        tickets.values().removeIf(t -> userId.equals(t.principal().id()));
+        List<Stream> mine = streams.remove(userId);
+        if (mine != null) mine.forEach(s -> s.emitter().complete());
+    }
+
+    /** Close the streams and drop the tickets of one session. */
+    public void closeToken(String tokenHash) {
+        if (tokenHash == null) return;
+        tickets.values().removeIf(t -> tokenHash.equals(t.tokenHash()));
+        streams.forEach((userId, mine) -> {
+            for (Stream stream : mine) {
+                if (Objects.equals(tokenHash, stream.tokenHash())) {
+                    remove(userId, stream);
+                    stream.emitter().complete();
+                }
+            }
+        });
+    }
+
+    /** Close everything, e.g. when every cached principal is invalidated. */
+    public void closeAll() {
+        tickets.clear();
+        streams.keySet().forEach(this::closeUser);
+    }
+
+    public int connectionCount() {
+        int n = 0;
+        for (List<Stream> mine : streams.values()) n += mine.size();
+        return n;
+    }
+
+    @Scheduled(fixedRateString = "${app.realtime.heartbeat-ms:25000}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        tickets.values().removeIf(t -> t.expiresAtMillis() <= now);
+        streams.forEach((userId, mine) -> {
+            for (Stream stream : mine) {
+                try {
+                    stream.emitter().send(SseEmitter.event().comment("ping"));
+                } catch (IOException | IllegalStateException e) {
+                    remove(userId, stream);
+                }
+            }
+        });
+    }
+
+    private void remove(Long userId, Stream stream) {
+        streams.computeIfPresent(userId, (k, mine) -> {
+            mine.remove(stream);
+            return mine.isEmpty() ? null : mine;
+        });
+    }
+}
@@ -0,0 +1,16 @@
+package com.habesha.community.service;
+
+import com.habesha.community.dto.RealtimeEvent;
+
+/**
+ * Routes a user-addressed event to whichever node holds that user's open
+ * stream connections.  The default {@link InMemoryRealtimeFanout} delivers
+ * locally, which is all a single-node deployment needs.  A multi-node
+ * backend (Redis pub/sub, Postgres LISTEN/NOTIFY, ...) should publish to
+ * its bus and call {@link RealtimeConnectionRegistry#deliver} on every node
+ * that receives the message; select it with {@code app.realtime.fanout}.
+ */
+public interface RealtimeFanout {
+
+    void publish(Long userId, RealtimeEvent event);
+}
@@ -0,0 +1,70 @@
+package com.habesha.community.service;
+
+import com.habesha.community.dto.RealtimeEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Entry point for domain services that want to push something to a user
+ * (new message, read receipt, counter change, friend request).  Events
+ * raised inside a transaction are held until it commits, so clients never
+ * see state that was rolled back.  Delivery is best-effort: a failure here
+ * must never break the write that triggered it.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RealtimeService {
+
+    public static final String MESSAGE_NEW = "message.new";
+    public static final String MESSAGE_READ = "message.read";
+    public static final String COUNTER_DELTA = "counter.delta";
+    public static final String FRIEND_REQUEST = "friend.request";
+    public static final String FRIEND_REQUEST_CANCELLED = "friend.request.cancelled";
+    public static final String FRIEND_RESPONSE = "friend.response";
+
+    /* Counter names used in COUNTER_DELTA payloads (match /api/counts fields). */
+    public static final String UNREAD_MESSAGES = "unreadMessages";
+    public static final String PENDING_FRIEND_REQUESTS = "pendingRequests";
+    public static final String NEW_INTERACTIONS = "newInteractions";
+
+    private final RealtimeFanout fanout;
+
+    public void publish(Long userId, String type, Map<String, Object> data) {
+        if (userId == null) return;
+        RealtimeEvent event = RealtimeEvent.builder()
+                .type(type)
+                .data(data)
+                .at(Instant.now())
+                .build();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(userId, event);
+                }
+            });
+        } else {
+            send(userId, event);
+        }
+    }
+
+    public void counterDelta(Long userId, String counter, long delta) {
+        if (delta == 0) return;
+        publish(userId, COUNTER_DELTA, Map.of("counter", counter, "delta", delta));
+    }
+
+    private void send(Long userId, RealtimeEvent event) {
+        try {
+            fanout.publish(userId, event);
+        } catch (Exception e) {
+            log.debug("Realtime delivery failed for userId={}: {}", userId, e.getMessage());
+        }
+    }
+}
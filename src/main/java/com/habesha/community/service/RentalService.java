@@ -4,6 +4,7 @@ import com.habesha.community.dto.RentalDetailDto;
 import com.habesha.community.dto.RentalRequest;
 import com.habesha.community.dto.RentalUpdateRequest;
 import com.habesha.community.dto.UserSummaryDto;
+import com.habesha.community.model.ActivityType;
 import com.habesha.community.model.Role;
 import com.habesha.community.model.Rental;
 import com.habesha.community.model.User;
@@ -30,6 +31,8 @@ public class RentalService {
 
     private final RentalRepository rentalRepository;
     private final UserRepository userRepository;
+    private final ActivityLogService activityLogService;
+    private final UserStatsService userStatsService;
 
     /**
      * Resolve the authenticated User from the security context.
@@ -77,7 +80,21 @@ public class RentalService {
                 .availableFrom(parseDate(request.getAvailableFrom()))
                 .build();
 
-        return rentalRepository.save(rental);
+        return createRental(rental, owner);
+    }
+
+    /**
+     * Save a new rental for {@code owner}, with its activity-log row and
+     * counter bump in the same transaction.  Every create path goes through here.
+     */
+    @Transactional
+    public Rental createRental(Rental rental, User owner) {
+        rental.setOwner(owner);
+        Rental saved = rentalRepository.save(rental);
+        activityLogService.listingCreated(ActivityType.RENTAL_CREATED, owner.getId(),
+                saved.getId(), saved.getTitle(), saved.getCreatedAt());
+        userStatsService.adjust(owner.getId(), UserStatsService.Counter.RENTALS, 1);
+        return saved;
     }
 
     /* ===================== LIST ===================== */
@@ -184,6 +201,7 @@ public class RentalService {
         // Apply updates if present
         if (req.getTitle() != null) {
             rental.setTitle(req.getTitle());
+            activityLogService.listingRetitled(ActivityType.RENTAL_CREATED, rental.getId(), req.getTitle());
         }
 
         if (req.getDescription() != null) {
@@ -241,5 +259,9 @@ public class RentalService {
         }
 
         rentalRepository.delete(rental);
+        activityLogService.listingRemoved(ActivityType.RENTAL_CREATED, id);
+        if (rental.getOwner() != null) {
+            userStatsService.adjust(rental.getOwner().getId(), UserStatsService.Counter.RENTALS, -1);
+        }
     }
 }
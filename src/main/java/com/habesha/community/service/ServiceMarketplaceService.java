@@ -2,6 +2,7 @@ package com.habesha.community.service;
 
 import com.habesha.community.dto.ServiceBookingRequest;
 import com.habesha.community.dto.ServiceOfferRequest;
+import com.habesha.community.model.ActivityType;
 import com.habesha.community.model.BookingStatus;
 import com.habesha.community.model.Role;
 import com.habesha.community.model.ServiceBooking;
@@ -33,6 +34,8 @@ public class ServiceMarketplaceService {
     private final ServiceOfferRepository offerRepository;
     private final ServiceBookingRepository bookingRepository;
     private final UserRepository userRepository;
+    private final ActivityLogService activityLogService;
+    private final UserStatsService userStatsService;
 
     private User getCurrentUser() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -56,7 +59,21 @@ public class ServiceMarketplaceService {
                 .mode(request.getMode())
                 .featured(request.isFeatured())
                 .build();
-        return offerRepository.save(offer);
+        return createService(offer, provider);
+    }
+
+    /**
+     * Save a new offer for {@code provider}, with its activity-log row and
+     * counter bump in the same transaction.  Every create path goes through here.
+     */
+    @Transactional
+    public ServiceOffer createService(ServiceOffer offer, User provider) {
+        offer.setProvider(provider);
+        ServiceOffer saved = offerRepository.save(offer);
+        activityLogService.listingCreated(ActivityType.SERVICE_CREATED, provider.getId(),
+                saved.getId(), saved.getTitle(), saved.getCreatedAt());
+        userStatsService.adjust(provider.getId(), UserStatsService.Counter.SERVICES, 1);
+        return saved;
     }
 
     public List<ServiceOffer> listServices(Optional<String> category) {
@@ -101,6 +118,8 @@ public class ServiceMarketplaceService {
             throw new IllegalStateException("Not authorised to delete this service");
         }
         offerRepository.delete(offer);
+        activityLogService.listingRemoved(ActivityType.SERVICE_CREATED, id);
+        userStatsService.adjust(offer.getProvider().getId(), UserStatsService.Counter.SERVICES, -1);
     }
 
     public void setCommissionRate(BigDecimal rate) {
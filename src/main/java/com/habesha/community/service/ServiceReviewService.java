@@ -2,6 +2,7 @@ package com.habesha.community.service;
 
 import com.habesha.community.dto.ServiceReviewDto;
 import com.habesha.community.dto.ServiceReviewSummaryDto;
+import com.habesha.community.dto.UserSummaryDto;
 import com.habesha.community.model.ServiceReview;
 import com.habesha.community.model.User;
 import com.habesha.community.repository.MessageRepository;
@@ -14,6 +15,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -31,6 +34,7 @@ public class ServiceReviewService {
     private final UserRepository userRepository;
     private final MessageRepository messageRepository;
     private final UserService userService;
+    private final UserStatsService userStatsService;
 
     public ServiceReviewSummaryDto getSummary(Long providerId) {
         userRepository.findById(providerId)
@@ -60,7 +64,7 @@ public class ServiceReviewService {
                 .canReview(canReview)
                 .reason(reason)
                 .myReview(myReview)
-                .reviews(all.stream().map(this::toDto).toList())
+                .reviews(toDtos(all))
                 .build();
     }
 
@@ -81,9 +85,17 @@ public class ServiceReviewService {
 
         ServiceReview review = reviewRepository.findByProvider_IdAndReviewer_Id(providerId, me.getId())
                 .orElseGet(() -> ServiceReview.builder().provider(provider).reviewer(me).build());
+        boolean isNew = review.getId() == null;
+        int oldRating = review.getRating();
         review.setRating(rating);
         review.setComment(comment != null ? comment.trim() : null);
-        return toDto(reviewRepository.save(review));
+        ServiceReview saved = reviewRepository.save(review);
+        if (isNew) {
+            userStatsService.reviewAdded(providerId, rating);
+        } else {
+            userStatsService.reviewRerated(providerId, oldRating, rating);
+        }
+        return toDto(saved);
     }
 
     @Transactional
@@ -91,7 +103,10 @@ public class ServiceReviewService {
         User me = userService.getCurrentUser()
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
         reviewRepository.findByProvider_IdAndReviewer_Id(providerId, me.getId())
-                .ifPresent(reviewRepository::delete);
+                .ifPresent(review -> {
+                    reviewRepository.delete(review);
+                    userStatsService.reviewRemoved(providerId, review.getRating());
+                });
     }
 
     /* -------------------- eligibility -------------------- */
@@ -112,12 +127,27 @@ public class ServiceReviewService {
     }
 
     private ServiceReviewDto toDto(ServiceReview r) {
+        return toDto(r, userService.toSummary(r.getReviewer()));
+    }
+
+    /** Reviewer summaries for the whole list come from one batch. */
+    private List<ServiceReviewDto> toDtos(List<ServiceReview> reviews) {
+        Map<Long, UserSummaryDto> reviewers = userService.toSummaries(reviews.stream()
+                .map(ServiceReview::getReviewer)
+                .filter(Objects::nonNull)
+                .toList());
+        return reviews.stream()
+                .map(r -> toDto(r, r.getReviewer() != null ? reviewers.get(r.getReviewer().getId()) : null))
+                .toList();
+    }
+
+    private ServiceReviewDto toDto(ServiceReview r, UserSummaryDto reviewer) {
         return ServiceReviewDto.builder()
                 .id(r.getId())
                 .rating(r.getRating())
                 .comment(r.getComment())
                 .createdAt(r.getCreatedAt())
-                .reviewer(userService.toSummary(r.getReviewer()))
+                .reviewer(reviewer)
                 .build();
     }
 }
@@ -4,14 +4,28 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Uploads images to Supabase Storage (an S3-style object store) over its REST
@@ -23,6 +37,12 @@ import java.util.UUID;
  *
  * <p>The target bucket is expected to be <b>public</b> so the URLs returned by
  * {@link #upload} are directly readable by browsers.
+ *
+ * <p>Multi-photo posts go through {@link #uploadAll}: each file streams from
+ * disk with at most {@code supabase.upload-concurrency} requests in flight,
+ * and a failed batch deletes whatever it already stored.  Callers run it
+ * before opening their transaction, so no JDBC connection is held while the
+ * uploads are on the network.
  */
 @Slf4j
 @Service
@@ -37,6 +57,10 @@ public class SupabaseStorageService {
     @Value("${supabase.storage-bucket:rental-photos}")
     private String bucket;
 
+    /** Uploads one {@link #uploadAll} call keeps in flight at a time. */
+    @Value("${supabase.upload-concurrency:4}")
+    private int uploadConcurrency = 4;
+
     private final HttpClient http = HttpClient.newBuilder()
             .connectTimeout(Duration.ofSeconds(15))
             .build();
@@ -60,25 +84,11 @@ public class SupabaseStorageService {
         }
         String base = trimTrailingSlash(supabaseUrl);
         String objectPath = buildObjectPath(folder, filename);
-        String uploadUrl = base + "/storage/v1/object/" + bucket + "/" + objectPath;
 
         try {
-            HttpRequest req = HttpRequest.newBuilder()
-                    .uri(URI.create(uploadUrl))
-                    .timeout(Duration.ofSeconds(30))
-                    .header("Authorization", "Bearer " + serviceKey)
-                    .header("Content-Type", StringUtils.hasText(contentType) ? contentType : "application/octet-stream")
-                    .header("x-upsert", "true")
-                    .header("cache-control", "max-age=31536000")
-                    .POST(HttpRequest.BodyPublishers.ofByteArray(data))
-                    .build();
-
+            HttpRequest req = uploadRequest(base, objectPath, contentType, HttpRequest.BodyPublishers.ofByteArray(data));
             HttpResponse<String> resp = http.send(req, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
-            if (resp.statusCode() < 200 || resp.statusCode() >= 300) {
-                throw new RuntimeException("Supabase upload failed (HTTP " + resp.statusCode() + "): " + resp.body());
-            }
-            // Public URL — readable directly by the browser when the bucket is public.
-            return base + "/storage/v1/object/public/" + bucket + "/" + objectPath;
+            return publicUrl(base, objectPath, resp);
         } catch (RuntimeException e) {
             throw e;
         } catch (Exception e) {
@@ -86,27 +96,177 @@ public class SupabaseStorageService {
         }
     }
 
+    /**
+     * Upload several multipart files under {@code folder} and return their
+     * public URLs in the same order.  Each file is first moved to its own
+     * temp file (a rename when the container has already spooled it to
+     * disk) and streamed from there; the temp files are removed before
+     * returning.  All or nothing: if any upload fails, the ones that
+     * succeeded are deleted and the first error is thrown.
+     */
+    public List<String> uploadAll(String folder, List<MultipartFile> files) throws IOException {
+        List<Path> staged = new ArrayList<>(files.size());
+        try {
+            List<Upload> uploads = new ArrayList<>(files.size());
+            for (MultipartFile file : files) {
+                Path tmp = Files.createTempFile("supabase-", ".upload");
+                staged.add(tmp);
+                file.transferTo(tmp.toFile());
+                uploads.add(new Upload(folder, file.getOriginalFilename(), file.getContentType(), tmp));
+            }
+            return uploadAll(uploads);
+        } finally {
+            for (Path tmp : staged) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException e) {
+                    log.warn("Could not delete upload temp file {}: {}", tmp, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Upload files from disk with {@code sendAsync}, at most
+     * {@code supabase.upload-concurrency} at a time, and return their public
+     * URLs in input order.  Blocks until every started upload has finished.
+     * If any fails, no further uploads are started, the ones that succeeded
+     * are deleted and the first error is thrown.
+     */
+    public List<String> uploadAll(List<Upload> uploads) {
+        if (!isEnabled()) {
+            throw new IllegalStateException("Supabase Storage is not configured");
+        }
+        String base = trimTrailingSlash(supabaseUrl);
+        int n = uploads.size();
+        String[] urls = new String[n];
+        CompletableFuture<?>[] started = new CompletableFuture<?>[n];
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Semaphore permits = new Semaphore(Math.max(1, uploadConcurrency));
+
+        for (int i = 0; i < n && failure.get() == null; i++) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure.compareAndSet(null, e);
+                break;
+            }
+            if (failure.get() != null) {
+                permits.release();
+                break;
+            }
+            Upload u = uploads.get(i);
+            String objectPath = buildObjectPath(u.folder(), u.filename());
+            HttpRequest req;
+            try {
+                req = uploadRequest(base, objectPath, u.contentType(), HttpRequest.BodyPublishers.ofFile(u.file()));
+            } catch (FileNotFoundException e) {
+                permits.release();
+                failure.compareAndSet(null, e);
+                break;
+            }
+            int index = i;
+            started[i] = http.sendAsync(req, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                    .thenApply(resp -> publicUrl(base, objectPath, resp))
+                    .whenComplete((url, ex) -> {
+                        if (ex != null) failure.compareAndSet(null, ex);
+                        else urls[index] = url;
+                        permits.release();
+                    });
+        }
+
+        for (CompletableFuture<?> f : started) {
+            if (f == null) continue;
+            try {
+                f.join();
+            } catch (RuntimeException ignored) {
+                // recorded in failure by whenComplete
+            }
+        }
+
+        Throwable error = failure.get();
+        if (error == null) return Arrays.asList(urls);
+
+        deleteAll(Arrays.stream(urls).filter(Objects::nonNull).toList());
+        if (error instanceof CompletionException && error.getCause() != null) error = error.getCause();
+        if (error instanceof RuntimeException re) throw re;
+        throw new RuntimeException("Supabase upload error: " + error.getMessage(), error);
+    }
+
     /** Best-effort delete of an object previously created via {@link #upload}. */
     public void deleteByPublicUrl(String publicUrl) {
-        if (!isEnabled() || !StringUtils.hasText(publicUrl)) return;
-        String marker = "/storage/v1/object/public/" + bucket + "/";
-        int idx = publicUrl.indexOf(marker);
-        if (idx < 0) return; // not one of our objects — nothing to do
-        String objectPath = publicUrl.substring(idx + marker.length());
-        String deleteUrl = trimTrailingSlash(supabaseUrl) + "/storage/v1/object/" + bucket + "/" + objectPath;
+        HttpRequest req = deleteRequest(publicUrl);
+        if (req == null) return;
         try {
-            HttpRequest req = HttpRequest.newBuilder()
-                    .uri(URI.create(deleteUrl))
-                    .timeout(Duration.ofSeconds(15))
-                    .header("Authorization", "Bearer " + serviceKey)
-                    .DELETE()
-                    .build();
             http.send(req, HttpResponse.BodyHandlers.discarding());
         } catch (Exception e) {
             log.warn("Supabase delete failed for {}: {}", publicUrl, e.getMessage());
         }
     }
 
+    /**
+     * Best-effort delete of several objects, sent concurrently.  Used to undo
+     * uploads whose database rows were never written.
+     */
+    public void deleteAll(Collection<String> publicUrls) {
+        List<CompletableFuture<?>> pending = new ArrayList<>();
+        for (String url : publicUrls) {
+            HttpRequest req = deleteRequest(url);
+            if (req == null) continue;
+            pending.add(http.sendAsync(req, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((resp, ex) -> {
+                        if (ex != null) log.warn("Supabase delete failed for {}: {}", url, ex.getMessage());
+                    }));
+        }
+        for (CompletableFuture<?> f : pending) {
+            try {
+                f.join();
+            } catch (RuntimeException ignored) {
+                // logged above
+            }
+        }
+    }
+
+    /** One file for {@link #uploadAll(List)}. */
+    public record Upload(String folder, String filename, String contentType, Path file) {}
+
+    private HttpRequest uploadRequest(String base, String objectPath, String contentType,
+                                      HttpRequest.BodyPublisher body) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(base + "/storage/v1/object/" + bucket + "/" + objectPath))
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", "Bearer " + serviceKey)
+                .header("Content-Type", StringUtils.hasText(contentType) ? contentType : "application/octet-stream")
+                .header("x-upsert", "true")
+                .header("cache-control", "max-age=31536000")
+                .POST(body)
+                .build();
+    }
+
+    /** Public URL of an uploaded object — readable directly by the browser when the bucket is public. */
+    private String publicUrl(String base, String objectPath, HttpResponse<String> resp) {
+        if (resp.statusCode() < 200 || resp.statusCode() >= 300) {
+            throw new RuntimeException("Supabase upload failed (HTTP " + resp.statusCode() + "): " + resp.body());
+        }
+        return base + "/storage/v1/object/public/" + bucket + "/" + objectPath;
+    }
+
+    /** DELETE for one of our public URLs, or null when it isn't one. */
+    private HttpRequest deleteRequest(String publicUrl) {
+        if (!isEnabled() || !StringUtils.hasText(publicUrl)) return null;
+        String marker = "/storage/v1/object/public/" + bucket + "/";
+        int idx = publicUrl.indexOf(marker);
+        if (idx < 0) return null; // not one of our objects — nothing to do
+        String objectPath = publicUrl.substring(idx + marker.length());
+        return HttpRequest.newBuilder()
+                .uri(URI.create(trimTrailingSlash(supabaseUrl) + "/storage/v1/object/" + bucket + "/" + objectPath))
+                .timeout(Duration.ofSeconds(15))
+                .header("Authorization", "Bearer " + serviceKey)
+                .DELETE()
+                .build();
+    }
+
     private String buildObjectPath(String folder, String filename) {
         String f = (folder == null ? "" : folder.replaceAll("^/+", "").replaceAll("/+$", ""));
         String clean = StringUtils.hasText(filename) ? filename : "file";
@@ -2,6 +2,8 @@ package com.habesha.community.service;
 
 import com.habesha.community.dto.TravelCreateRequest;
 import com.habesha.community.dto.TravelPostResponse;
+import com.habesha.community.dto.UserSummaryDto;
+import com.habesha.community.model.ActivityType;
 import com.habesha.community.model.Role;
 import com.habesha.community.model.TravelPost;
 import com.habesha.community.model.User;
@@ -9,14 +11,16 @@ import com.habesha.community.repository.TravelPostRepository;
 import com.habesha.community.repository.UserRepository;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Optional;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
@@ -25,6 +29,11 @@ public class TravelService {
     private final TravelPostRepository travelPostRepository;
     private final UserRepository userRepository;
     private final UserService userService;
+    private final ActivityLogService activityLogService;
+    private final UserStatsService userStatsService;
+
+    /** Upper bound of the date window when no exact date is asked for. */
+    private static final LocalDate NO_END_DATE = LocalDate.of(9999, 12, 31);
 
     /**
      * Resolve the authenticated user from SecurityContext.
@@ -51,32 +60,60 @@ public class TravelService {
                 .build();
 
         TravelPost saved = travelPostRepository.save(post);
+        activityLogService.listingCreated(ActivityType.TRAVEL_POSTED, me.getId(), saved.getId(),
+                ActivityLogService.travelTitle(saved.getOriginCity(), saved.getDestinationCity()),
+                saved.getCreatedAt());
+        userStatsService.adjust(me.getId(), UserStatsService.Counter.TRAVEL_POSTS, 1);
         return toResponse(saved);
     }
 
     /* ====================== READ / LIST ====================== */
 
-    public List<TravelPostResponse> search(
-            Optional<String> originOpt,
-            Optional<String> destinationOpt,
-            Optional<LocalDate> dateOpt
-    ) {
-        String origin = originOpt.filter(s -> !s.isBlank()).orElse(null);
-        String destination = destinationOpt.filter(s -> !s.isBlank()).orElse(null);
-        LocalDate date = dateOpt.orElse(null);
-
-        // Repository handles filtering (exact match style)
-        List<TravelPost> list = travelPostRepository.search(origin, destination, date);
-
-        // Sort newest first, safe if createdAt can be null
-        list.sort(
-                Comparator.comparing(
-                        TravelPost::getCreatedAt,
-                        Comparator.nullsLast(Comparator.naturalOrder())
-                ).reversed()
-        );
-
-        return list.stream().map(this::toResponse).toList();
+    /**
+     * One page of trips, soonest travel date first.  Past trips are left
+     * out unless {@code from} reaches back; an exact {@code date} overrides
+     * {@code from}.  Pass {@code afterDate}/{@code afterId} (the last trip
+     * of the previous page) for keyset paging, or a page number for
+     * offset paging.
+     */
+    public List<TravelPostResponse> search(String origin,
+                                           String destination,
+                                           LocalDate date,
+                                           LocalDate from,
+                                           LocalDate afterDate,
+                                           Long afterId,
+                                           int page,
+                                           int size) {
+        boolean keyset = afterDate != null && afterId != null;
+        // An exact date is a one-day window; otherwise everything from `from` on.
+        LocalDate lo = date != null ? date : (from != null ? from : LocalDate.now());
+        LocalDate hi = date != null ? date : NO_END_DATE;
+        LocalDate after = lo.minusDays(1);
+        long afterKey = 0L;
+        if (keyset && afterDate.isAfter(after)) {
+            after = afterDate;
+            afterKey = afterId;
+            if (afterDate.isAfter(lo)) lo = afterDate;
+        }
+        String o = lowerOrNull(origin);
+        String d = lowerOrNull(destination);
+        PageRequest pageable = PageRequest.of(keyset ? 0 : page, size);
+
+        List<TravelPost> posts;
+        if (o != null && d != null) {
+            posts = travelPostRepository.findPageByRoute(o, d, lo, hi, after, afterKey, pageable);
+        } else if (o != null) {
+            posts = travelPostRepository.findPageByOrigin(o, lo, hi, after, afterKey, pageable);
+        } else if (d != null) {
+            posts = travelPostRepository.findPageByDestination(d, lo, hi, after, afterKey, pageable);
+        } else {
+            posts = travelPostRepository.findPage(lo, hi, after, afterKey, pageable);
+        }
+        return toResponses(posts);
+    }
+
+    private static String lowerOrNull(String s) {
+        return (s == null || s.isBlank()) ? null : s.trim().toLowerCase(Locale.ROOT);
     }
 
     public TravelPostResponse getOne(Long id) {
@@ -109,6 +146,8 @@ public class TravelService {
         post.setContactMethod(request.getContactMethod());
 
         TravelPost saved = travelPostRepository.save(post);
+        activityLogService.listingRetitled(ActivityType.TRAVEL_POSTED, saved.getId(),
+                ActivityLogService.travelTitle(saved.getOriginCity(), saved.getDestinationCity()));
         return toResponse(saved);
     }
 
@@ -130,6 +169,8 @@ public class TravelService {
         }
 
         travelPostRepository.delete(post);
+        activityLogService.listingRemoved(ActivityType.TRAVEL_POSTED, id);
+        userStatsService.adjust(post.getUser().getId(), UserStatsService.Counter.TRAVEL_POSTS, -1);
     }
 
     /* ====================== HELPERS ====================== */
@@ -149,6 +190,19 @@ public class TravelService {
     /* ====================== MAPPER ====================== */
 
     private TravelPostResponse toResponse(TravelPost p) {
+        return toResponses(List.of(p)).get(0);
+    }
+
+    /** Maps a page of posts; poster summaries are built in one batch. */
+    private List<TravelPostResponse> toResponses(List<TravelPost> posts) {
+        Map<Long, UserSummaryDto> posters = userService.toSummaries(posts.stream()
+                .map(TravelPost::getUser)
+                .filter(Objects::nonNull)
+                .toList());
+        return posts.stream().map(p -> toResponse(p, posters)).toList();
+    }
+
+    private TravelPostResponse toResponse(TravelPost p, Map<Long, UserSummaryDto> posters) {
         TravelPostResponse dto = new TravelPostResponse();
         dto.setId(p.getId());
         dto.setOriginCity(p.getOriginCity());
@@ -173,8 +227,7 @@ public class TravelService {
             dto.setUserName(display);
 
             // unified poster summary
-            com.habesha.community.dto.UserSummaryDto summary = userService.toSummary(u);
-            dto.setPostedBy(summary);
+            dto.setPostedBy(posters.get(u.getId()));
         }
 
         return dto;
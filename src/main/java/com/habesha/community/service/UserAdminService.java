@@ -3,17 +3,16 @@ package com.habesha.community.service;
 import com.habesha.community.dto.AdminUserDto;
 import com.habesha.community.model.Role;
 import com.habesha.community.model.User;
+import com.habesha.community.repository.LikePatterns;
 import com.habesha.community.repository.UserRepository;
+import com.habesha.community.security.AuthPrincipalCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
 import java.time.LocalDateTime;
 
 /**
@@ -26,12 +25,15 @@ import java.time.LocalDateTime;
 public class UserAdminService {
 
     private final UserRepository userRepository;
+    private final AuthPrincipalCache principalCache;
+    private final FriendGraphCache friendGraph;
+    private final LeaderboardService leaderboardService;
 
     /**
      * Returns a page of users with optional case‑insensitive
-     * search on name or username. When a query is provided, a
-     * best‑effort manual paging is done over the full list of
-     * matches. If no query is supplied, JPA paging is used directly.
+     * search on name or username.  Both cases are paged in SQL; the
+     * search is served by the trigram indexes and, unlike the member
+     * search, includes users who are not searchable.
      *
      * @param query optional search string to filter by name/username
      * @param pageable the paging information
@@ -39,15 +41,8 @@ public class UserAdminService {
      */
     public Page<AdminUserDto> listUsers(String query, Pageable pageable) {
         if (query != null && !query.isBlank()) {
-            List<User> all = userRepository
-                    .findByNameContainingIgnoreCaseOrUsernameContainingIgnoreCase(query, query);
-            int start = (int) pageable.getOffset();
-            int end = Math.min(start + pageable.getPageSize(), all.size());
-            List<AdminUserDto> slice = all.subList(Math.min(start, all.size()), end)
-                    .stream()
-                    .map(this::toDto)
-                    .collect(Collectors.toList());
-            return new PageImpl<>(slice, pageable, all.size());
+            String pattern = "%" + LikePatterns.escape(query.trim()) + "%";
+            return userRepository.searchAllByNameOrUsername(pattern, pageable).map(this::toDto);
         } else {
             Page<User> page = userRepository.findAll(pageable);
             return page.map(this::toDto);
@@ -69,6 +64,7 @@ public class UserAdminService {
                 .orElseThrow(() -> new IllegalArgumentException("User not found: " + userId));
         user.setRole(newRole);
         userRepository.save(user);
+        principalCache.invalidateUser(userId);
     }
 
     private AdminUserDto toDto(User u) {
@@ -118,6 +114,9 @@ public class UserAdminService {
     @Transactional
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
+        principalCache.invalidateUser(id);
+        friendGraph.evictUser(id);
+        leaderboardService.userRemoved(id);
     }
 
     /**
@@ -135,5 +134,6 @@ public class UserAdminService {
                 .orElseThrow(() -> new IllegalArgumentException("User not found: " + id));
         user.setActive(value);
         userRepository.save(user);
+        principalCache.invalidateUser(id);
     }
 }
\ No newline at end of file
@@ -0,0 +1,142 @@
+package com.habesha.community.service;
+
+import com.habesha.community.repository.LikePatterns;
+import com.habesha.community.repository.UserBlockRepository;
+import com.habesha.community.repository.UserRepository;
+import com.habesha.community.repository.UserRepository.SearchHitView;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * People search by name or username.
+ *
+ * Matching, ranking and paging all happen in SQL over the pg_trgm indexes
+ * of V24 ({@link UserRepository#searchPeople}).  Users who turned
+ * {@code searchable} off never match; the viewer and everyone blocked
+ * either way are excluded per request.
+ *
+ * Typeahead sends the same short prefixes over and over, and those are
+ * the least selective queries, so the first {@link #CACHE_DEPTH} ranked
+ * ids of each query are cached without the viewer filter and shared by
+ * all viewers.  Pages inside that window are filtered in memory; deeper
+ * pages go to SQL.  The TTL bounds how long a renamed or newly hidden
+ * user can still show up.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserSearchService {
+
+    public static final int MIN_QUERY_LENGTH = 2;
+
+    /** Longer input is cut; nobody types a 64-character name into a search box. */
+    private static final int MAX_QUERY_LENGTH = 64;
+
+    /** Ranked ids kept per cached query; covers the first pages of typeahead. */
+    private static final int CACHE_DEPTH = 200;
+
+    public record Result(List<Long> ids, long total) {}
+
+    /** The first {@link #CACHE_DEPTH} ids of a query's match set, best first. */
+    private record Hits(long[] ids, long total, long loadedAtMillis) {
+        boolean complete() {
+            return ids.length >= total;
+        }
+    }
+
+    private final UserRepository userRepository;
+    private final UserBlockRepository userBlockRepository;
+
+    private final Map<String, Hits> cache = new ConcurrentHashMap<>();
+
+    @Value("${app.search.people.max-entries:2000}")
+    private int maxEntries = 2000;
+
+    @Value("${app.search.people.ttl-seconds:60}")
+    private long ttlSeconds = 60;
+
+    /**
+     * One page of user ids matching {@code query} as seen by {@code viewerId},
+     * best first, plus the size of the whole match set.  Queries shorter
+     * than {@link #MIN_QUERY_LENGTH} match nobody.
+     */
+    public Result search(long viewerId, String query, int page, int size) {
+        String q = normalize(query);
+        if (q == null) return new Result(List.of(), 0);
+        int limit = Math.max(1, size);
+        long offset = (long) Math.max(0, page) * limit;
+
+        Set<Long> excluded = new HashSet<>(userBlockRepository.findBlockedEitherWay(viewerId));
+        excluded.add(viewerId);
+
+        String pattern = "%" + LikePatterns.escape(q) + "%";
+        Hits hits = hits(q, pattern);
+
+        List<Long> visible = new ArrayList<>(hits.ids().length);
+        for (long id : hits.ids()) {
+            if (!excluded.contains(id)) visible.add(id);
+        }
+        if (offset + limit <= visible.size() || hits.complete()) {
+            long hidden = hits.complete()
+                    ? hits.ids().length - visible.size()
+                    : userRepository.countPeopleMatchesAmong(pattern, excluded);
+            int from = (int) Math.min(offset, visible.size());
+            int to = (int) Math.min(offset + limit, visible.size());
+            return new Result(List.copyOf(visible.subList(from, to)), hits.total() - hidden);
+        }
+
+        List<SearchHitView> rows = userRepository.searchPeople(
+                pattern, LikePatterns.escape(q) + "%", excluded, limit, offset);
+        long total = rows.isEmpty()
+                ? hits.total() - userRepository.countPeopleMatchesAmong(pattern, excluded)
+                : rows.get(0).getTotal();
+        return new Result(rows.stream().map(SearchHitView::getId).toList(), total);
+    }
+
+    /** Lower-cased, trimmed, inner whitespace collapsed; null when too short to search. */
+    static String normalize(String query) {
+        if (query == null) return null;
+        String q = query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        if (q.length() < MIN_QUERY_LENGTH) return null;
+        return q.length() > MAX_QUERY_LENGTH ? q.substring(0, MAX_QUERY_LENGTH) : q;
+    }
+
+    /* ==================== Cache ==================== */
+
+    private Hits hits(String q, String pattern) {
+        Hits hit = cache.get(q);
+        long now = System.currentTimeMillis();
+        if (hit != null && now - hit.loadedAtMillis() < ttlSeconds * 1000L) return hit;
+
+        // viewer-independent: only the sentinel id is excluded
+        List<SearchHitView> rows = userRepository.searchPeople(
+                pattern, LikePatterns.escape(q) + "%", List.of(-1L), CACHE_DEPTH, 0);
+        long[] ids = rows.stream().mapToLong(SearchHitView::getId).toArray();
+        Hits loaded = new Hits(ids, rows.isEmpty() ? 0 : rows.get(0).getTotal(), now);
+        if (cache.size() >= maxEntries) evict();
+        cache.put(q, loaded);
+        return loaded;
+    }
+
+    /** Drop expired entries first; if still full, drop the oldest tenth. */
+    private void evict() {
+        long cutoff = System.currentTimeMillis() - ttlSeconds * 1000L;
+        cache.entrySet().removeIf(e -> e.getValue().loadedAtMillis() < cutoff);
+        if (cache.size() >= maxEntries) {
+            cache.entrySet().stream()
+                    .sorted(Comparator.comparingLong(e -> e.getValue().loadedAtMillis()))
+                    .limit(Math.max(1, maxEntries / 10))
+                    .toList()
+                    .forEach(e -> cache.remove(e.getKey(), e.getValue()));
+        }
+    }
+}
@@ -3,14 +3,12 @@ package com.habesha.community.service;
 import com.habesha.community.dto.UserProfileDto;
 import com.habesha.community.dto.UserResponse;
 import com.habesha.community.dto.UserSummaryDto;
-import com.habesha.community.model.FriendRequestStatus;
 import com.habesha.community.model.Role;
 import com.habesha.community.model.User;
-import com.habesha.community.repository.EventRepository;
+import com.habesha.community.model.UserStats;
 import com.habesha.community.repository.FriendRequestRepository;
-import com.habesha.community.repository.RentalRepository;
-import com.habesha.community.repository.ServiceOfferRepository;
 import com.habesha.community.repository.UserRepository;
+import com.habesha.community.security.AuthPrincipalCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
@@ -19,8 +17,15 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,10 +33,12 @@ import java.util.stream.Collectors;
 public class UserService {
 
     private final UserRepository userRepository;
-    private final EventRepository eventRepository;
-    private final ServiceOfferRepository serviceOfferRepository;
-    private final RentalRepository rentalRepository;
     private final FriendRequestRepository friendRequestRepository;
+    private final AuthPrincipalCache principalCache;
+    private final FriendGraphCache friendGraph;
+    private final UserStatsService userStatsService;
+    private final LeaderboardService leaderboardService;
+    private final AvatarService avatarService;
 
     /** Resolve the signed-in user entity via Spring Security (email is the username). */
     @Transactional(readOnly = true)
@@ -93,44 +100,95 @@ public class UserService {
 
     public UserSummaryDto toSummary(User user) {
         if (user == null) return null;
-        String displayName = (user.getName() != null && !user.getName().isBlank())
-                ? user.getName() : user.getUsername();
-        Long friendsCount = null;
-        Long postsCount = null; // not computed here
-        try {
-            friendsCount = friendRequestRepository != null
-                    ? friendRequestRepository
-                        .findBySenderOrReceiverAndStatus(user, user, FriendRequestStatus.ACCEPTED)
-                        .stream().count()
-                    : null;
-        } catch (Exception ignored) { }
+        if (user.getId() == null) return summary(user, null);
+        return toSummaries(List.of(user)).get(user.getId());
+    }
+
+    /**
+     * Batched {@link #toSummary(User)}: friend counts for every user come
+     * from one grouped query instead of one friend-list load per user.
+     * Keyed by user id, in the iteration order of {@code users}.
+     */
+    public Map<Long, UserSummaryDto> toSummaries(Collection<User> users) {
+        Map<Long, UserSummaryDto> out = new LinkedHashMap<>();
+        if (users == null || users.isEmpty()) return out;
+        Set<Long> ids = new HashSet<>();
+        for (User u : users) {
+            if (u != null && u.getId() != null) ids.add(u.getId());
+        }
+        Map<Long, Long> friendCounts = friendCounts(ids);
+        for (User user : users) {
+            if (user == null || user.getId() == null || out.containsKey(user.getId())) continue;
+            out.put(user.getId(), summary(user, friendCounts.getOrDefault(user.getId(), 0L)));
+        }
+        return out;
+    }
+
+    /**
+     * {@link #toSummaries(Collection)} for ids: reads only the name columns
+     * through a projection, so no entity (or its eager badges) is loaded.
+     * Unknown ids are left out.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, UserSummaryDto> toSummariesByIds(Collection<Long> ids) {
+        Map<Long, UserSummaryDto> out = new LinkedHashMap<>();
+        if (ids == null || ids.isEmpty()) return out;
+        Map<Long, Long> friendCounts = friendCounts(ids);
+        for (UserRepository.UserNameView v : userRepository.findNameViewsByIdIn(ids)) {
+            // username is the email, as User#getUsername() reports it
+            out.put(v.getId(), summary(v.getId(), v.getName(), v.getEmail(), v.getProfileImageUrl(),
+                    friendCounts.getOrDefault(v.getId(), 0L)));
+        }
+        return out;
+    }
+
+    private Map<Long, Long> friendCounts(Collection<Long> ids) {
+        Map<Long, Long> friendCounts = new HashMap<>();
+        if (ids.isEmpty()) return friendCounts;
+        for (FriendRequestRepository.IdCountView row : friendRequestRepository.countAcceptedByUserIds(ids)) {
+            friendCounts.put(row.getUserId(), row.getCount());
+        }
+        return friendCounts;
+    }
+
+    private UserSummaryDto summary(User user, Long friendsCount) {
+        return summary(user.getId(), user.getName(), user.getUsername(), user.getProfileImageUrl(), friendsCount);
+    }
+
+    private static UserSummaryDto summary(Long id, String name, String username, String avatarUrl, Long friendsCount) {
+        String displayName = (name != null && !name.isBlank()) ? name : username;
         return UserSummaryDto.builder()
-                .id(user.getId())
+                .id(id)
                 .displayName(displayName)
-                .username(user.getUsername())
-                .avatarUrl(user.getProfileImageUrl())
+                .username(username)
+                .avatarUrl(avatarUrl)
                 .verified(false)
                 .friendsCount(friendsCount)
-                .postsCount(postsCount)
+                .postsCount(null) // not computed here
                 .build();
     }
 
     public UserProfileDto toProfile(User user, boolean includeEmail) {
         if (user == null) return null;
+        return toProfile(user, includeEmail, userStatsService.get(user.getId()));
+    }
+
+    /** Batched {@link #toProfile(User, boolean)}: counters for every user come from one query. */
+    public List<UserProfileDto> toProfiles(List<User> users, boolean includeEmail) {
+        Map<Long, UserStats> stats = userStatsService.getAll(users.stream()
+                .map(User::getId)
+                .filter(Objects::nonNull)
+                .toList());
+        return users.stream()
+                .map(u -> toProfile(u, includeEmail, stats.get(u.getId())))
+                .collect(Collectors.toList());
+    }
+
+    private UserProfileDto toProfile(User user, boolean includeEmail, UserStats stats) {
         String displayName = (user.getName() != null && !user.getName().isBlank())
                 ? user.getName() : user.getUsername();
         String joinDate = user.getCreatedAt() != null ? user.getCreatedAt().toString() : null;
-        long eventsCount   = eventRepository   != null ? eventRepository.countByOrganizer_Id(user.getId()) : 0;
-        long servicesCount = serviceOfferRepository != null ? serviceOfferRepository.countByProvider_Id(user.getId()) : 0;
-        long rentalsCount  = rentalRepository  != null ? rentalRepository.countByOwner_Id(user.getId()) : 0;
-        long friendsCount  = 0;
-        if (friendRequestRepository != null) {
-            try {
-                friendsCount = friendRequestRepository
-                        .findBySenderOrReceiverAndStatus(user, user, FriendRequestStatus.ACCEPTED)
-                        .size();
-            } catch (Exception ignored) { }
-        }
+        if (stats == null) stats = UserStats.builder().userId(user.getId()).build();
         return UserProfileDto.builder()
                 .id(user.getId())
                 .displayName(displayName)
@@ -141,10 +199,14 @@ public class UserService {
                 .avatarUrl(user.getProfileImageUrl())
                 .bannerUrl(user.getBannerImageUrl())
                 .joinDate(joinDate)
-                .friendsCount(friendsCount)
-                .eventsCount(eventsCount)
-                .servicesCount(servicesCount)
-                .rentalsCount(rentalsCount)
+                .friendsCount(stats.getFriends())
+                .eventsCount(stats.getEvents())
+                .servicesCount(stats.getServices())
+                .rentalsCount(stats.getRentals())
+                .adsCount(stats.getAds())
+                .travelPostsCount(stats.getTravelPosts())
+                .reviewsCount(stats.getReviewsReceived())
+                .averageRating(stats.averageRating())
                 .xp(user.getXp())
                 .badges(user.getBadges())
                 .twitter(user.getTwitter())
@@ -203,14 +265,9 @@ public class UserService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
         userRepository.delete(user);
-    }
-
-    public List<User> findAllOrderedByXp() {
-        return userRepository.findAll().stream()
-                .sorted((u1, u2) -> Integer.compare(
-                        u2.getXp() != null ? u2.getXp() : 0,
-                        u1.getXp() != null ? u1.getXp() : 0))
-                .collect(Collectors.toList());
+        principalCache.invalidateUser(id);
+        friendGraph.evictUser(id);
+        leaderboardService.userRemoved(id);
     }
 
     // ---------- Avatar (DB stored) ----------
@@ -219,50 +276,29 @@ public class UserService {
     @Transactional
     public UserResponse updateProfileImageUrl(String url) {
         User u = getCurrentUser().orElseThrow(() -> new IllegalStateException("No current user"));
+        avatarService.clear(u);
         u.setProfileImageUrl(url);
-        u.setProfileImage(null);
-        u.setProfileImageType(null);
         userRepository.save(u);
         return toResponse(u);
     }
 
-    /** Primary: store avatar bytes in DB and expose a stable local URL. */
+    /** Primary: store avatar bytes (and resized renditions) in the DB behind a versioned local URL. */
     @Transactional
     public UserResponse updateProfileImage(byte[] bytes, String contentType) {
         User user = getCurrentUser()
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated"));
-        user.setProfileImage(bytes);
-        user.setProfileImageType(contentType != null ? contentType : "image/jpeg");
-        user.setProfileImageUrl("/users/" + user.getId() + "/profile-image");
+        avatarService.store(user, bytes, contentType != null ? contentType : "image/jpeg");
+        user.setProfileImageUrl(AvatarService.url(user));
         userRepository.save(user);
         return toResponse(user);
     }
 
-    // tiny DTO for streaming
-    public static record UserImage(byte[] data, String contentType) {}
-
-    @Transactional(readOnly = true)
-    public Optional<UserImage> getCurrentUserImage() {
-        return getCurrentUser().flatMap(u -> {
-            if (u.getProfileImage() == null) return Optional.empty();
-            return Optional.of(new UserImage(u.getProfileImage(), u.getProfileImageType()));
-        });
-    }
-
-    @Transactional(readOnly = true)
-    public Optional<UserImage> getUserImageById(Long id) {
-        return userRepository.findById(id).flatMap(u -> {
-            if (u.getProfileImage() == null) return Optional.empty();
-            return Optional.of(new UserImage(u.getProfileImage(), u.getProfileImageType()));
-        });
-    }
-
+    @Transactional
     public void removeProfileImage() {
         User user = getCurrentUser()
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated"));
-        if (user.getProfileImage() != null || user.getProfileImageType() != null) {
-            user.setProfileImage(null);
-            user.setProfileImageType(null);
+        if (user.getProfileImageBlobId() != null || user.getProfileImageType() != null) {
+            avatarService.clear(user);
             user.setProfileImageUrl(null);
             userRepository.save(user);
         }
@@ -5,6 +5,7 @@ import com.habesha.community.model.User;
 import com.habesha.community.model.UserSession;
 import com.habesha.community.repository.UserRepository;
 import com.habesha.community.repository.UserSessionRepository;
+import com.habesha.community.security.AuthPrincipalCache;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -28,6 +29,7 @@ public class UserSessionService {
     private final UserSessionRepository sessionRepo;
     private final UserRepository userRepo;
     private final HttpServletRequest request;
+    private final AuthPrincipalCache principalCache;
 
     private User getCurrentUserOrThrow() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -66,6 +68,17 @@ public class UserSessionService {
         }
         
         sessionRepo.delete(session);
+        principalCache.invalidateToken(session.getToken());
+    }
+
+    /**
+     * Sign out the session bound to the current request's bearer token
+     */
+    public void signOutCurrentSession() {
+        String currentToken = extractTokenFromRequest();
+        if (currentToken == null) return;
+        sessionRepo.findByToken(currentToken).ifPresent(sessionRepo::delete);
+        principalCache.invalidateToken(currentToken);
     }
 
     /**
@@ -79,12 +92,14 @@ public class UserSessionService {
             Optional<UserSession> current = sessionRepo.findByToken(currentToken);
             if (current.isPresent()) {
                 sessionRepo.deleteAllByUserIdExceptCurrent(me.getId(), current.get().getId());
+                principalCache.invalidateUser(me.getId());
                 return;
             }
         }
         
         // If we can't identify current session, delete all
         sessionRepo.deleteAllByUserId(me.getId());
+        principalCache.invalidateUser(me.getId());
     }
 
     /**
@@ -0,0 +1,154 @@
+package com.habesha.community.service;
+
+import com.habesha.community.model.UserStats;
+import com.habesha.community.repository.UserStatsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-user content counters in {@code user_stats}, so a profile is one
+ * primary-key read instead of a count query per content type.
+ *
+ * Domain services call {@link #adjust} (and the review hooks) inside their
+ * own transaction, so a counter moves exactly when the row it counts is
+ * committed.  Each call is a single upsert.  Paths that can't report a
+ * delta (cascading deletes, direct SQL) are corrected by
+ * {@link #reconcile()}, which runs nightly and rewrites only rows that
+ * drifted.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserStatsService {
+
+    /** One counted content type; {@code table}/{@code ownerColumn} drive {@link #ownerOf}. */
+    public enum Counter {
+        FRIENDS("friends", null, null),
+        EVENTS("events", "events", "organizer_id"),
+        SERVICES("services", "service_offers", "provider_id"),
+        RENTALS("rentals", "rentals", "owner_id"),
+        ADS("ads", "classified_ads", "poster_id"),
+        TRAVEL_POSTS("travel_posts", "travel_posts", "user_id");
+
+        private final String column;
+        private final String table;
+        private final String ownerColumn;
+
+        Counter(String column, String table, String ownerColumn) {
+            this.column = column;
+            this.table = table;
+            this.ownerColumn = ownerColumn;
+        }
+    }
+
+    private final UserStatsRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+
+    /* ------------------------------- reads -------------------------------- */
+
+    /** The user's counters; all zero when nothing has been counted yet. */
+    public UserStats get(Long userId) {
+        if (userId == null) return empty(null);
+        return repository.findById(userId).orElseGet(() -> empty(userId));
+    }
+
+    /** Counters for a batch of users in one query, keyed by user id. */
+    public Map<Long, UserStats> getAll(Collection<Long> userIds) {
+        Map<Long, UserStats> out = new HashMap<>();
+        if (userIds == null || userIds.isEmpty()) return out;
+        for (UserStats s : repository.findAllById(userIds)) out.put(s.getUserId(), s);
+        for (Long id : userIds) {
+            if (id != null) out.computeIfAbsent(id, UserStatsService::empty);
+        }
+        return out;
+    }
+
+    private static UserStats empty(Long userId) {
+        return UserStats.builder().userId(userId).build();
+    }
+
+    /* ------------------------------- writes ------------------------------- */
+
+    /**
+     * Move one counter by {@code delta}, never below zero.  Must run inside
+     * the transaction that writes the counted row; calling it outside one
+     * fails instead of committing a counter the row may never match.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void adjust(Long userId, Counter counter, long delta) {
+        if (userId == null || delta == 0) return;
+        String col = counter.column;
+        jdbcTemplate.update("INSERT INTO user_stats (user_id, " + col + ", updated_at) VALUES (?, ?, NOW()) "
+                        + "ON CONFLICT (user_id) DO UPDATE SET " + col + " = GREATEST(0, user_stats." + col + " + ?), "
+                        + "updated_at = NOW()",
+                userId, Math.max(0, delta), delta);
+    }
+
+    /** A review was added for the provider. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reviewAdded(Long providerId, int rating) {
+        adjustReviews(providerId, 1, rating);
+    }
+
+    /** An existing review's rating changed. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reviewRerated(Long providerId, int oldRating, int newRating) {
+        adjustReviews(providerId, 0, newRating - oldRating);
+    }
+
+    /** A review for the provider was deleted. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reviewRemoved(Long providerId, int rating) {
+        adjustReviews(providerId, -1, -rating);
+    }
+
+    private void adjustReviews(Long providerId, long countDelta, long sumDelta) {
+        if (providerId == null || (countDelta == 0 && sumDelta == 0)) return;
+        jdbcTemplate.update("""
+                INSERT INTO user_stats (user_id, reviews_received, rating_sum, updated_at)
+                VALUES (?, ?, ?, NOW())
+                ON CONFLICT (user_id) DO UPDATE
+                   SET reviews_received = GREATEST(0, user_stats.reviews_received + ?),
+                       rating_sum = GREATEST(0, user_stats.rating_sum + ?),
+                       updated_at = NOW()
+                """,
+                providerId, Math.max(0, countDelta), Math.max(0, sumDelta), countDelta, sumDelta);
+    }
+
+    /**
+     * Owner of a counted row, for callers that delete by id without loading
+     * the entity (moderation).  Call before the delete.
+     */
+    public Long ownerOf(Counter counter, Long contentId) {
+        if (counter.table == null || contentId == null) return null;
+        List<Long> owners = jdbcTemplate.queryForList(
+                "SELECT " + counter.ownerColumn + " FROM " + counter.table + " WHERE id = ?", Long.class, contentId);
+        return owners.isEmpty() ? null : owners.get(0);
+    }
+
+    /* ---------------------------- maintenance ----------------------------- */
+
+    /**
+     * Re-derive all counters and fix the rows that drifted.  Returns how many
+     * were rewritten.  The statement lives in {@code reconcile_user_stats()}
+     * (V22), which the migration's backfill also runs.
+     */
+    @Scheduled(cron = "${app.user-stats.reconcile-cron:0 0 4 * * *}")
+    @Transactional
+    public int reconcile() {
+        Integer rows = jdbcTemplate.queryForObject("SELECT reconcile_user_stats()", Integer.class);
+        int fixed = rows != null ? rows : 0;
+        log.info("User stats reconcile rewrote {} rows", fixed);
+        return fixed;
+    }
+}
@@ -0,0 +1,16 @@
+-- ============================================================================
+-- V17: Keyset pagination for 1:1 conversations. Messages between two users are
+-- addressed by the ordered pair (least, greatest) regardless of direction, so
+-- one index serves both "A -> B" and "B -> A" rows in send order.
+-- ============================================================================
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'messages' AND column_name = 'sent_at') THEN
+        CREATE INDEX IF NOT EXISTS idx_messages_pair_sent_at ON messages (
+            LEAST(sender_id, recipient_id),
+            GREATEST(sender_id, recipient_id),
+            sent_at DESC,
+            id DESC
+        );
+    END IF;
+END $$;
@@ -0,0 +1,92 @@
+-- ============================================================================
+-- V18: One row per 1:1 conversation (ordered user pair, lo < hi) holding the
+-- last message preview and per-side unread counters. Kept current by
+-- MessageService in the same transaction as the message insert, so the inbox
+-- sidebar is an indexed top-N read instead of a scan of every message.
+-- ============================================================================
+CREATE TABLE IF NOT EXISTS conversation (
+    id                BIGSERIAL PRIMARY KEY,
+    user_lo_id        BIGINT    NOT NULL,
+    user_hi_id        BIGINT    NOT NULL,
+    last_message_id   BIGINT,
+    last_message_text VARCHAR(4000),
+    last_message_at   TIMESTAMP,
+    last_sender_id    BIGINT,
+    unread_for_lo     INTEGER   NOT NULL DEFAULT 0,
+    unread_for_hi     INTEGER   NOT NULL DEFAULT 0,
+    CONSTRAINT uq_conversation_pair UNIQUE (user_lo_id, user_hi_id),
+    CONSTRAINT ck_conversation_pair_order CHECK (user_lo_id < user_hi_id)
+);
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.table_constraints
+                   WHERE constraint_name = 'fk_conversation_user_lo'
+                     AND table_name = 'conversation') THEN
+        ALTER TABLE conversation ADD CONSTRAINT fk_conversation_user_lo
+            FOREIGN KEY (user_lo_id) REFERENCES users(id) ON DELETE CASCADE;
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM information_schema.table_constraints
+                   WHERE constraint_name = 'fk_conversation_user_hi'
+                     AND table_name = 'conversation') THEN
+        ALTER TABLE conversation ADD CONSTRAINT fk_conversation_user_hi
+            FOREIGN KEY (user_hi_id) REFERENCES users(id) ON DELETE CASCADE;
+    END IF;
+END $$;
+
+CREATE INDEX IF NOT EXISTS idx_conversation_lo_last ON conversation (user_lo_id, last_message_at DESC);
+CREATE INDEX IF NOT EXISTS idx_conversation_hi_last ON conversation (user_hi_id, last_message_at DESC);
+
+-- Rebuilds every conversation row from messages and returns the number of
+-- rows written. The single definition of the derivation: the backfill below
+-- and ConversationService.rebuildAll() (to repair drift) both call it.
+CREATE OR REPLACE FUNCTION rebuild_conversations() RETURNS INTEGER
+LANGUAGE plpgsql AS $fn$
+DECLARE
+    n INTEGER;
+BEGIN
+    WITH pairs AS (
+        SELECT LEAST(sender_id, recipient_id)    AS lo,
+               GREATEST(sender_id, recipient_id) AS hi,
+               id, sender_id, recipient_id, content, sent_at, read_by_recipient
+          FROM messages
+         WHERE sender_id <> recipient_id
+    ),
+    latest AS (
+        SELECT DISTINCT ON (lo, hi) lo, hi, id, sender_id, content, sent_at
+          FROM pairs
+         ORDER BY lo, hi, sent_at DESC, id DESC
+    ),
+    unread AS (
+        SELECT lo, hi,
+               COUNT(*) FILTER (WHERE recipient_id = lo AND NOT read_by_recipient) AS unread_lo,
+               COUNT(*) FILTER (WHERE recipient_id = hi AND NOT read_by_recipient) AS unread_hi
+          FROM pairs
+         GROUP BY lo, hi
+    )
+    INSERT INTO conversation (user_lo_id, user_hi_id, last_message_id, last_message_text,
+                              last_message_at, last_sender_id, unread_for_lo, unread_for_hi)
+    SELECT l.lo, l.hi, l.id, LEFT(l.content, 4000), l.sent_at, l.sender_id,
+           COALESCE(u.unread_lo, 0), COALESCE(u.unread_hi, 0)
+      FROM latest l
+      LEFT JOIN unread u ON u.lo = l.lo AND u.hi = l.hi
+    ON CONFLICT (user_lo_id, user_hi_id) DO UPDATE SET
+        last_message_id   = EXCLUDED.last_message_id,
+        last_message_text = EXCLUDED.last_message_text,
+        last_message_at   = EXCLUDED.last_message_at,
+        last_sender_id    = EXCLUDED.last_sender_id,
+        unread_for_lo     = EXCLUDED.unread_for_lo,
+        unread_for_hi     = EXCLUDED.unread_for_hi;
+    GET DIAGNOSTICS n = ROW_COUNT;
+    RETURN n;
+END
+$fn$;
+
+-- One-off backfill from existing messages.
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'messages' AND column_name = 'sent_at')
+       AND EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'messages' AND column_name = 'read_by_recipient') THEN
+        PERFORM rebuild_conversations();
+    END IF;
+END $$;
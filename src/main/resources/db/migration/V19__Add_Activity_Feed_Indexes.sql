@@ -0,0 +1,41 @@
+-- ============================================================================
+-- V19: Owner-scoped (owner, created_at) indexes for the activity feed. Each
+-- feed source reads "the newest N rows for this user before a cursor", which
+-- these serve as a bounded backward index scan instead of a table scan.
+-- Columns that older databases may lack are checked before indexing.
+-- ============================================================================
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'events' AND column_name = 'created_at') THEN
+        CREATE INDEX IF NOT EXISTS idx_events_organizer_created_at ON events (organizer_id, created_at DESC);
+    END IF;
+
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'service_offers' AND column_name = 'created_at') THEN
+        CREATE INDEX IF NOT EXISTS idx_service_offers_provider_created_at ON service_offers (provider_id, created_at DESC);
+    END IF;
+
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'rentals' AND column_name = 'created_at') THEN
+        CREATE INDEX IF NOT EXISTS idx_rentals_owner_created_at ON rentals (owner_id, created_at DESC);
+    END IF;
+
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'travel_posts' AND column_name = 'created_at') THEN
+        CREATE INDEX IF NOT EXISTS idx_travel_posts_user_created_at ON travel_posts (user_id, created_at DESC);
+    END IF;
+
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'messages' AND column_name = 'sent_at') THEN
+        CREATE INDEX IF NOT EXISTS idx_messages_recipient_sent_at ON messages (recipient_id, sent_at DESC);
+    END IF;
+
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'friend_requests' AND column_name = 'created_at') THEN
+        CREATE INDEX IF NOT EXISTS idx_friend_requests_sender_status_created ON friend_requests (sender_id, status, created_at DESC);
+        CREATE INDEX IF NOT EXISTS idx_friend_requests_receiver_status_created ON friend_requests (receiver_id, status, created_at DESC);
+    END IF;
+
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'ad_likes' AND column_name = 'created_at') THEN
+        CREATE INDEX IF NOT EXISTS idx_ad_likes_ad_created_at ON ad_likes (ad_id, created_at DESC);
+    END IF;
+
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'ad_comments' AND column_name = 'created_at') THEN
+        CREATE INDEX IF NOT EXISTS idx_ad_comments_ad_created_at ON ad_comments (ad_id, created_at DESC);
+    END IF;
+END $$;
@@ -0,0 +1,96 @@
+-- ============================================================================
+-- V20: Append-only activity log. One row per feed entry, written by the domain
+-- services alongside the row that caused it (listing created, ad liked or
+-- commented, friendship accepted, message received). The feed and the
+-- "new interactions" badge become a single (user_id, created_at) range scan.
+-- ============================================================================
+CREATE TABLE IF NOT EXISTS activity_event (
+    id          BIGSERIAL    PRIMARY KEY,
+    user_id     BIGINT       NOT NULL,
+    type        VARCHAR(32)  NOT NULL,
+    source_id   BIGINT       NOT NULL,
+    entity_id   BIGINT,
+    actor_id    BIGINT,
+    text        VARCHAR(500),
+    detail      VARCHAR(500),
+    created_at  TIMESTAMP    NOT NULL,
+    CONSTRAINT uq_activity_event_source UNIQUE (user_id, type, source_id)
+);
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.table_constraints
+                   WHERE constraint_name = 'fk_activity_event_user'
+                     AND table_name = 'activity_event') THEN
+        ALTER TABLE activity_event ADD CONSTRAINT fk_activity_event_user
+            FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE;
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM information_schema.table_constraints
+                   WHERE constraint_name = 'fk_activity_event_actor'
+                     AND table_name = 'activity_event') THEN
+        ALTER TABLE activity_event ADD CONSTRAINT fk_activity_event_actor
+            FOREIGN KEY (actor_id) REFERENCES users(id) ON DELETE CASCADE;
+    END IF;
+END $$;
+
+CREATE INDEX IF NOT EXISTS idx_activity_event_user_created ON activity_event (user_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_activity_event_type_source ON activity_event (type, source_id);
+CREATE INDEX IF NOT EXISTS idx_activity_event_type_entity ON activity_event (type, entity_id);
+CREATE INDEX IF NOT EXISTS idx_activity_event_created ON activity_event (created_at);
+
+-- Re-derives the log from the source tables for everything newer than the
+-- cutoff and returns the number of rows added. The single definition of the
+-- derivation: the backfill below and ActivityLogService.rebuildAll() (POST
+-- /admin/activity/rebuild, to repair drift) both call it.
+CREATE OR REPLACE FUNCTION rebuild_activity_event(cutoff TIMESTAMP) RETURNS INTEGER
+LANGUAGE plpgsql AS $fn$
+DECLARE
+    n INTEGER;
+BEGIN
+    INSERT INTO activity_event (user_id, type, source_id, entity_id, actor_id, text, detail, created_at)
+    SELECT e.organizer_id, 'EVENT_CREATED', e.id, e.id, e.organizer_id, LEFT(e.title, 500), NULL, e.created_at
+      FROM events e WHERE e.organizer_id IS NOT NULL AND e.created_at >= cutoff
+    UNION ALL
+    SELECT s.provider_id, 'SERVICE_CREATED', s.id, s.id, s.provider_id, LEFT(s.title, 500), NULL, s.created_at
+      FROM service_offers s WHERE s.provider_id IS NOT NULL AND s.created_at >= cutoff
+    UNION ALL
+    SELECT r.owner_id, 'RENTAL_CREATED', r.id, r.id, r.owner_id, LEFT(r.title, 500), NULL, r.created_at
+      FROM rentals r WHERE r.owner_id IS NOT NULL AND r.created_at >= cutoff
+    UNION ALL
+    SELECT t.user_id, 'TRAVEL_POSTED', t.id, t.id, t.user_id,
+           LEFT(COALESCE(t.origin_city, 'From') || ' → ' || COALESCE(t.destination_city, 'To'), 500),
+           NULL, t.created_at
+      FROM travel_posts t WHERE t.user_id IS NOT NULL AND t.created_at >= cutoff
+    UNION ALL
+    SELECT f.sender_id, 'FRIEND_ACCEPTED', f.id, f.id, f.receiver_id, LEFT(u.username, 500), NULL, f.created_at
+      FROM friend_requests f JOIN users u ON u.id = f.receiver_id
+     WHERE f.status = 'ACCEPTED' AND f.created_at >= cutoff
+    UNION ALL
+    SELECT f.receiver_id, 'FRIEND_ACCEPTED', f.id, f.id, f.sender_id, LEFT(u.username, 500), NULL, f.created_at
+      FROM friend_requests f JOIN users u ON u.id = f.sender_id
+     WHERE f.status = 'ACCEPTED' AND f.created_at >= cutoff
+    UNION ALL
+    SELECT m.recipient_id, 'MESSAGE_RECEIVED', m.id, m.id, m.sender_id, LEFT(m.content, 500), NULL, m.sent_at
+      FROM messages m WHERE m.sent_at >= cutoff
+    UNION ALL
+    SELECT a.poster_id, 'AD_LIKED', l.id, a.id, l.user_id, LEFT(a.title, 500), NULL, l.created_at
+      FROM ad_likes l JOIN classified_ads a ON a.id = l.ad_id
+     WHERE a.poster_id IS NOT NULL AND l.created_at >= cutoff
+    UNION ALL
+    SELECT a.poster_id, 'AD_COMMENTED', c.id, a.id, c.author_id, LEFT(c.text, 500), LEFT(a.title, 500), c.created_at
+      FROM ad_comments c JOIN classified_ads a ON a.id = c.ad_id
+     WHERE a.poster_id IS NOT NULL AND c.created_at >= cutoff
+    ON CONFLICT (user_id, type, source_id) DO NOTHING;
+    GET DIAGNOSTICS n = ROW_COUNT;
+    RETURN n;
+END
+$fn$;
+
+-- One-off backfill of the last 180 days (the default retention).
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'messages' AND column_name = 'sent_at')
+       AND EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'travel_posts' AND column_name = 'created_at') THEN
+        PERFORM rebuild_activity_event(CAST(NOW() - INTERVAL '180 days' AS TIMESTAMP));
+    END IF;
+END $$;
@@ -0,0 +1,11 @@
+-- ============================================================================
+-- V21: Reverse lookup on user_block. Friend suggestions exclude everyone a
+-- user has blocked or been blocked by; the UNIQUE (blocker_id, blocked_id)
+-- constraint serves the first half, this index the second.
+-- ============================================================================
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'user_block' AND column_name = 'blocked_id') THEN
+        CREATE INDEX IF NOT EXISTS idx_user_block_blocked_blocker ON user_block (blocked_id, blocker_id);
+    END IF;
+END $$;
@@ -0,0 +1,68 @@
+-- ============================================================================
+-- V22: Denormalized per-user content counters. Profiles and leaderboards read
+-- one row by primary key instead of running a count per content type. The
+-- domain services keep the row current inside their own transactions;
+-- UserStatsService.reconcile() re-derives it nightly to repair drift.
+-- ============================================================================
+CREATE TABLE IF NOT EXISTS user_stats (
+    user_id           BIGINT     PRIMARY KEY,
+    friends           BIGINT     NOT NULL DEFAULT 0,
+    events            BIGINT     NOT NULL DEFAULT 0,
+    services          BIGINT     NOT NULL DEFAULT 0,
+    rentals           BIGINT     NOT NULL DEFAULT 0,
+    ads               BIGINT     NOT NULL DEFAULT 0,
+    travel_posts      BIGINT     NOT NULL DEFAULT 0,
+    reviews_received  BIGINT     NOT NULL DEFAULT 0,
+    rating_sum        BIGINT     NOT NULL DEFAULT 0,
+    updated_at        TIMESTAMP
+);
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.table_constraints
+                   WHERE constraint_name = 'fk_user_stats_user'
+                     AND table_name = 'user_stats') THEN
+        ALTER TABLE user_stats ADD CONSTRAINT fk_user_stats_user
+            FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE;
+    END IF;
+END $$;
+
+-- Re-derives every user's counters from the source tables, writes only the
+-- rows that differ and returns how many were written. The single definition
+-- of the derivation: the backfill below and UserStatsService.reconcile()
+-- (nightly, and POST /admin/user-stats/reconcile) both call it.
+CREATE OR REPLACE FUNCTION reconcile_user_stats() RETURNS INTEGER
+LANGUAGE plpgsql AS $fn$
+DECLARE
+    n INTEGER;
+BEGIN
+    INSERT INTO user_stats (user_id, friends, events, services, rentals, ads, travel_posts,
+                            reviews_received, rating_sum, updated_at)
+    SELECT u.id,
+           (SELECT COUNT(*) FROM friend_requests f WHERE f.status = 'ACCEPTED' AND f.sender_id = u.id)
+         + (SELECT COUNT(*) FROM friend_requests f WHERE f.status = 'ACCEPTED' AND f.receiver_id = u.id),
+           (SELECT COUNT(*) FROM events e WHERE e.organizer_id = u.id),
+           (SELECT COUNT(*) FROM service_offers s WHERE s.provider_id = u.id),
+           (SELECT COUNT(*) FROM rentals r WHERE r.owner_id = u.id),
+           (SELECT COUNT(*) FROM classified_ads a WHERE a.poster_id = u.id),
+           (SELECT COUNT(*) FROM travel_posts t WHERE t.user_id = u.id),
+           (SELECT COUNT(*) FROM service_reviews v WHERE v.provider_id = u.id),
+           (SELECT COALESCE(SUM(v.rating), 0) FROM service_reviews v WHERE v.provider_id = u.id),
+           NOW()
+      FROM users u
+    ON CONFLICT (user_id) DO UPDATE
+       SET friends = EXCLUDED.friends, events = EXCLUDED.events, services = EXCLUDED.services,
+           rentals = EXCLUDED.rentals, ads = EXCLUDED.ads, travel_posts = EXCLUDED.travel_posts,
+           reviews_received = EXCLUDED.reviews_received, rating_sum = EXCLUDED.rating_sum,
+           updated_at = EXCLUDED.updated_at
+     WHERE (user_stats.friends, user_stats.events, user_stats.services, user_stats.rentals,
+            user_stats.ads, user_stats.travel_posts, user_stats.reviews_received, user_stats.rating_sum)
+           IS DISTINCT FROM
+           (EXCLUDED.friends, EXCLUDED.events, EXCLUDED.services, EXCLUDED.rentals,
+            EXCLUDED.ads, EXCLUDED.travel_posts, EXCLUDED.reviews_received, EXCLUDED.rating_sum);
+    GET DIAGNOSTICS n = ROW_COUNT;
+    RETURN n;
+END $fn$;
+
+-- One-off backfill.
+SELECT reconcile_user_stats();
@@ -0,0 +1,11 @@
+-- ============================================================================
+-- V23: XP leaderboard index. Pages of /api/users/rankings and the rank-of-user
+-- counts are range scans over (COALESCE(xp, 0) DESC, id); the expression must
+-- match the ORDER BY / WHERE in UserRepository's leaderboard queries exactly.
+-- ============================================================================
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'users' AND column_name = 'xp') THEN
+        CREATE INDEX IF NOT EXISTS idx_users_xp_rank ON users ((COALESCE(xp, 0)) DESC, id);
+    END IF;
+END $$;
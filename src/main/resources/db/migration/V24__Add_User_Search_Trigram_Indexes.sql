@@ -0,0 +1,20 @@
+-- ============================================================================
+-- V24: Substring people search. /friends/search and the admin user list match
+-- name/username with ILIKE '%q%', which a btree cannot serve; pg_trgm GIN
+-- indexes can. If the extension cannot be created (no privilege) the queries
+-- still work, only without the indexes.
+-- ============================================================================
+DO $$
+BEGIN
+    CREATE EXTENSION IF NOT EXISTS pg_trgm;
+EXCEPTION WHEN insufficient_privilege THEN
+    RAISE NOTICE 'pg_trgm unavailable; people search will not be index-backed';
+END $$;
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_trgm') THEN
+        CREATE INDEX IF NOT EXISTS idx_users_name_trgm ON users USING gin (name gin_trgm_ops);
+        CREATE INDEX IF NOT EXISTS idx_users_username_trgm ON users USING gin (username gin_trgm_ops);
+    END IF;
+END $$;
@@ -0,0 +1,19 @@
+-- ============================================================================
+-- V25: Ads feed. GET /api/ads pages newest-first, optionally within one
+-- category (matched case-insensitively) and by title text. The composite index
+-- serves the category feed in order without a sort; the title trigram index
+-- serves the substring filter used by global search.
+-- ============================================================================
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'classified_ads' AND column_name = 'category') THEN
+        CREATE INDEX IF NOT EXISTS idx_classified_ads_category_created
+            ON classified_ads (LOWER(category), created_at DESC, id DESC);
+    END IF;
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'classified_ads' AND column_name = 'created_at') THEN
+        CREATE INDEX IF NOT EXISTS idx_classified_ads_created_id ON classified_ads (created_at DESC, id DESC);
+    END IF;
+    IF EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_trgm') THEN
+        CREATE INDEX IF NOT EXISTS idx_classified_ads_title_trgm ON classified_ads USING gin (title gin_trgm_ops);
+    END IF;
+END $$;
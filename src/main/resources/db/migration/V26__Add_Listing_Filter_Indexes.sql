@@ -0,0 +1,37 @@
+-- ============================================================================
+-- V26: Filters on /api/rentals and /api/services (ListingSpecifications).
+-- Room type and category are exact, case-insensitive matches listed newest
+-- first; price bounds and price sorting use the price columns; free-text
+-- search is LOWER(col) LIKE '%q%', served by trigram indexes when pg_trgm
+-- is installed (V24).
+-- ============================================================================
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'rentals' AND column_name = 'room_type') THEN
+        CREATE INDEX IF NOT EXISTS idx_rentals_room_type_created
+            ON rentals (LOWER(room_type), created_at DESC, id DESC);
+    END IF;
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'rentals' AND column_name = 'price') THEN
+        CREATE INDEX IF NOT EXISTS idx_rentals_price_id ON rentals (price, id);
+    END IF;
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'rentals' AND column_name = 'created_at') THEN
+        CREATE INDEX IF NOT EXISTS idx_rentals_created_id ON rentals (created_at DESC, id DESC);
+    END IF;
+
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'service_offers' AND column_name = 'category') THEN
+        CREATE INDEX IF NOT EXISTS idx_service_offers_category_created
+            ON service_offers (LOWER(category), created_at DESC, id DESC);
+    END IF;
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'service_offers' AND column_name = 'base_price') THEN
+        CREATE INDEX IF NOT EXISTS idx_service_offers_price_id ON service_offers (base_price, id);
+    END IF;
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'service_offers' AND column_name = 'created_at') THEN
+        CREATE INDEX IF NOT EXISTS idx_service_offers_created_id ON service_offers (created_at DESC, id DESC);
+    END IF;
+
+    IF EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_trgm') THEN
+        CREATE INDEX IF NOT EXISTS idx_rentals_title_trgm ON rentals USING gin (LOWER(title) gin_trgm_ops);
+        CREATE INDEX IF NOT EXISTS idx_rentals_location_trgm ON rentals USING gin (LOWER(location) gin_trgm_ops);
+        CREATE INDEX IF NOT EXISTS idx_service_offers_title_trgm ON service_offers USING gin (LOWER(title) gin_trgm_ops);
+    END IF;
+END $$;
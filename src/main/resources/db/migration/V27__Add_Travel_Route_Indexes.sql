@@ -0,0 +1,21 @@
+-- ============================================================================
+-- V27: /travel lists upcoming trips soonest first, optionally for one route
+-- (origin and/or destination, compared lower-cased) and keyset-paged on
+-- (travel_date, id). TravelPostRepository has one fixed query per route
+-- filter (both, origin, destination, none) with no optional parameters, so
+-- each is planned against its own index below and reads rows already in page
+-- order.
+-- ============================================================================
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'travel_posts' AND column_name = 'travel_date') THEN
+        CREATE INDEX IF NOT EXISTS idx_travel_posts_route_date
+            ON travel_posts (LOWER(origin_city), LOWER(destination_city), travel_date, id);
+        CREATE INDEX IF NOT EXISTS idx_travel_posts_origin_date
+            ON travel_posts (LOWER(origin_city), travel_date, id);
+        CREATE INDEX IF NOT EXISTS idx_travel_posts_destination_date
+            ON travel_posts (LOWER(destination_city), travel_date, id);
+        CREATE INDEX IF NOT EXISTS idx_travel_posts_date_id
+            ON travel_posts (travel_date, id);
+    END IF;
+END $$;
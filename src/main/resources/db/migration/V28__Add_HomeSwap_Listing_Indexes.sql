@@ -0,0 +1,14 @@
+-- ============================================================================
+-- V28: HomeSwap listing. The entity declares idx_homeswap_created and
+-- idx_hsphoto_sort, but no migration ever created them. The listing walks
+-- posts newest first and then reads photo metadata per page in display order.
+-- ============================================================================
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'home_swap' AND column_name = 'created_at') THEN
+        CREATE INDEX IF NOT EXISTS idx_homeswap_created ON home_swap (created_at DESC, id DESC);
+    END IF;
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'home_swap_photo' AND column_name = 'sort_order') THEN
+        CREATE INDEX IF NOT EXISTS idx_hsphoto_sort ON home_swap_photo (home_swap_id, sort_order, id);
+    END IF;
+END $$;
@@ -0,0 +1,12 @@
+-- ============================================================================
+-- V29: Denormalized like counter on classified_ads. AdService moves it in the
+-- same transaction as the ad_likes insert/delete with one atomic UPDATE, so
+-- ad details and feed cards never count ad_likes. A nightly job
+-- (AdService.reconcileLikeCounts) repairs drift from cascading deletes.
+-- ============================================================================
+ALTER TABLE classified_ads ADD COLUMN IF NOT EXISTS like_count BIGINT NOT NULL DEFAULT 0;
+
+UPDATE classified_ads a
+   SET like_count = c.n
+  FROM (SELECT ad_id, COUNT(*) AS n FROM ad_likes GROUP BY ad_id) c
+ WHERE c.ad_id = a.id;
@@ -0,0 +1,65 @@
+-- ============================================================================
+-- V30: Image bytes move out of the entity tables into media_blob. Photo rows,
+-- service offers and users keep only a blob id, so entity reads and saves
+-- (lists, findById, profile updates) no longer read or rewrite bytea. The
+-- bytes are loaded by id only when an image is actually served.
+--
+-- Existing blobs are copied row by row. The old bytea columns are left in
+-- place (nullable, no longer mapped) so the previous release keeps working
+-- during a rollout and a rollback loses nothing. A later migration drops
+-- them once no running release reads them; it should repeat this copy first,
+-- which only touches rows whose blob id is still NULL. Rows that lose their
+-- owner (cascading deletes) are removed nightly by
+-- MediaBlobService.purgeOrphans.
+-- ============================================================================
+CREATE TABLE IF NOT EXISTS media_blob (
+    id           BIGSERIAL PRIMARY KEY,
+    content_type VARCHAR(100),
+    size_bytes   BIGINT       NOT NULL,
+    data         BYTEA        NOT NULL,
+    created_at   TIMESTAMP    NOT NULL DEFAULT NOW()
+);
+
+ALTER TABLE ad_photo        ADD COLUMN IF NOT EXISTS image_blob_id BIGINT REFERENCES media_blob (id) ON DELETE SET NULL;
+ALTER TABLE rental_photo    ADD COLUMN IF NOT EXISTS image_blob_id BIGINT REFERENCES media_blob (id) ON DELETE SET NULL;
+ALTER TABLE home_swap_photo ADD COLUMN IF NOT EXISTS image_blob_id BIGINT REFERENCES media_blob (id) ON DELETE SET NULL;
+ALTER TABLE service_offers  ADD COLUMN IF NOT EXISTS image_blob_id BIGINT REFERENCES media_blob (id) ON DELETE SET NULL;
+ALTER TABLE users           ADD COLUMN IF NOT EXISTS profile_image_blob_id BIGINT REFERENCES media_blob (id) ON DELETE SET NULL;
+
+-- Every delete from media_blob looks up referencing rows to apply ON DELETE
+-- SET NULL; without these each blob delete would scan all five tables. Most
+-- rows have no blob, so partial indexes are enough.
+CREATE INDEX IF NOT EXISTS idx_ad_photo_image_blob        ON ad_photo (image_blob_id)        WHERE image_blob_id IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_rental_photo_image_blob    ON rental_photo (image_blob_id)    WHERE image_blob_id IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_home_swap_photo_image_blob ON home_swap_photo (image_blob_id) WHERE image_blob_id IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_service_offers_image_blob  ON service_offers (image_blob_id)  WHERE image_blob_id IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_users_profile_image_blob   ON users (profile_image_blob_id)   WHERE profile_image_blob_id IS NOT NULL;
+
+DO $$
+DECLARE
+    t   RECORD;
+    r   RECORD;
+    bid BIGINT;
+BEGIN
+    FOR t IN SELECT * FROM (VALUES
+            ('ad_photo',        'image_data',    'content_type',       'image_blob_id'),
+            ('rental_photo',    'image_data',    'content_type',       'image_blob_id'),
+            ('home_swap_photo', 'image_data',    'content_type',       'image_blob_id'),
+            ('service_offers',  'image_data',    'image_content_type', 'image_blob_id'),
+            ('users',           'profile_image', 'profile_image_type', 'profile_image_blob_id')
+         ) AS v (tbl, data_col, type_col, ref_col)
+    LOOP
+        CONTINUE WHEN NOT EXISTS (SELECT 1 FROM information_schema.columns
+                                   WHERE table_name = t.tbl AND column_name = t.data_col);
+
+        FOR r IN EXECUTE format(
+                'SELECT id, %I AS data, %I AS ct FROM %I WHERE %I IS NOT NULL AND octet_length(%I) > 0 AND %I IS NULL',
+                t.data_col, t.type_col, t.tbl, t.data_col, t.data_col, t.ref_col)
+        LOOP
+            INSERT INTO media_blob (content_type, size_bytes, data)
+            VALUES (r.ct, octet_length(r.data), r.data)
+            RETURNING id INTO bid;
+            EXECUTE format('UPDATE %I SET %I = $1 WHERE id = $2', t.tbl, t.ref_col) USING bid, r.id;
+        END LOOP;
+    END LOOP;
+END $$;
@@ -0,0 +1,16 @@
+-- ============================================================================
+-- V31: Resized avatar variants. Uploads stored in Postgres get 48/128/512 px
+-- JPEG renditions in media_blob next to the original, plus a content hash
+-- that versions the avatar URL and ETag. Avatars uploaded before this keep
+-- working: they have no variants and the original is served for every size.
+-- ============================================================================
+ALTER TABLE users ADD COLUMN IF NOT EXISTS profile_image_hash VARCHAR(64);
+ALTER TABLE users ADD COLUMN IF NOT EXISTS avatar_sm_blob_id BIGINT REFERENCES media_blob (id) ON DELETE SET NULL;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS avatar_md_blob_id BIGINT REFERENCES media_blob (id) ON DELETE SET NULL;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS avatar_lg_blob_id BIGINT REFERENCES media_blob (id) ON DELETE SET NULL;
+
+-- Indexed like the V30 blob references, so deleting a replaced avatar's
+-- blobs doesn't scan users once per variant column.
+CREATE INDEX IF NOT EXISTS idx_users_avatar_sm_blob ON users (avatar_sm_blob_id) WHERE avatar_sm_blob_id IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_users_avatar_md_blob ON users (avatar_md_blob_id) WHERE avatar_md_blob_id IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_users_avatar_lg_blob ON users (avatar_lg_blob_id) WHERE avatar_lg_blob_id IS NOT NULL;
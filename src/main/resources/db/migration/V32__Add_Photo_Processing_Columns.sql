@@ -0,0 +1,15 @@
+-- ============================================================================
+-- V32: Results of the background photo pipeline (PhotoProcessingService).
+-- Disk-backed uploads are stored as-is and answered immediately; a worker
+-- then fills in the dimensions, strips EXIF and writes a thumbnail, recording
+-- it here. home_swap_photo already has width/height.
+-- ============================================================================
+ALTER TABLE ad_photo        ADD COLUMN IF NOT EXISTS width INTEGER;
+ALTER TABLE ad_photo        ADD COLUMN IF NOT EXISTS height INTEGER;
+ALTER TABLE ad_photo        ADD COLUMN IF NOT EXISTS thumb_path VARCHAR(2048);
+
+ALTER TABLE rental_photo    ADD COLUMN IF NOT EXISTS width INTEGER;
+ALTER TABLE rental_photo    ADD COLUMN IF NOT EXISTS height INTEGER;
+ALTER TABLE rental_photo    ADD COLUMN IF NOT EXISTS thumb_path VARCHAR(2048);
+
+ALTER TABLE home_swap_photo ADD COLUMN IF NOT EXISTS thumb_path VARCHAR(2048);
@@ -0,0 +1,23 @@
+-- ============================================================================
+-- V33: At most one friend_requests row per pair of users, whatever the
+-- direction. FriendService.sendRequest checks before inserting, but two
+-- concurrent sends (or two nodes with stale friend graphs) can both pass the
+-- check; this index makes the second insert fail instead.
+--
+-- Existing duplicates are not deleted here: if any pair already has more than
+-- one row the index is skipped with a notice, to be created by hand once the
+-- duplicates are resolved.
+-- ============================================================================
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.tables WHERE table_name = 'friend_requests') THEN
+        IF EXISTS (SELECT 1 FROM friend_requests
+                    GROUP BY LEAST(sender_id, receiver_id), GREATEST(sender_id, receiver_id)
+                   HAVING COUNT(*) > 1) THEN
+            RAISE NOTICE 'friend_requests has duplicate pairs; uq_friend_requests_pair not created';
+        ELSE
+            CREATE UNIQUE INDEX IF NOT EXISTS uq_friend_requests_pair
+                ON friend_requests (LEAST(sender_id, receiver_id), GREATEST(sender_id, receiver_id));
+        END IF;
+    END IF;
+END $$;